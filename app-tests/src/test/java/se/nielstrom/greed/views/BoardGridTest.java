@@ -0,0 +1,102 @@
+package se.nielstrom.greed.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import se.nielstrom.greed.models.Die;
+import se.nielstrom.greed.models.GameChange;
+import se.nielstrom.greed.models.Greed;
+
+public class BoardGridTest {
+
+	@Test
+	public void laysTheDiceOutInRows() {
+		BoardGrid grid = new BoardGrid();
+		grid.layout(6, 2, 10, 20, 300, 600);
+		Assert.assertEquals(6, grid.size());
+		assertCell(grid, 0, 10, 20, 160, 220);
+		assertCell(grid, 1, 160, 20, 310, 220);
+		assertCell(grid, 2, 10, 220, 160, 420);
+		assertCell(grid, 5, 160, 420, 310, 620);
+	}
+
+	@Test
+	public void leavesTheLastRowShort() {
+		BoardGrid grid = new BoardGrid();
+		grid.layout(5, 3, 0, 0, 300, 200);
+		assertCell(grid, 2, 200, 0, 300, 100);
+		assertCell(grid, 3, 0, 100, 100, 200);
+		assertCell(grid, 4, 100, 100, 200, 200);
+		Assert.assertEquals(BoardGrid.NO_CELL, grid.cellAt(250, 150));
+	}
+
+	@Test
+	public void findsTheCellAtAPoint() {
+		BoardGrid grid = new BoardGrid();
+		grid.layout(6, 2, 0, 0, 300, 600);
+		Assert.assertEquals(0, grid.cellAt(0, 0));
+		Assert.assertEquals(1, grid.cellAt(150, 199.5f));
+		Assert.assertEquals(3, grid.cellAt(160, 210));
+		Assert.assertEquals(5, grid.cellAt(299, 599));
+		Assert.assertEquals(BoardGrid.NO_CELL, grid.cellAt(-1, 10));
+		Assert.assertEquals(BoardGrid.NO_CELL, grid.cellAt(300, 10));
+		Assert.assertEquals(BoardGrid.NO_CELL, grid.cellAt(10, 600));
+	}
+
+	@Test
+	public void hasNoCellsBeforeItsSized() {
+		BoardGrid grid = new BoardGrid();
+		grid.layout(6, 2, 0, 0, 0, 0);
+		for (int i = 0; i < grid.size(); i++) {
+			Assert.assertTrue(grid.isEmpty(i));
+		}
+		Assert.assertEquals(BoardGrid.NO_CELL, grid.cellAt(0, 0));
+
+		grid.layout(0, 2, 0, 0, 300, 600);
+		Assert.assertEquals(0, grid.size());
+	}
+
+	@Test
+	public void redrawsOnlyTheChangedDice() {
+		final BoardGrid grid = new BoardGrid();
+		grid.layout(6, 2, 0, 0, 300, 600);
+		final List<Integer> redrawn = new ArrayList<>();
+		Greed game = new Greed(1);
+		game.addGameChangeListener(new Greed.GameChangeListener() {
+			@Override
+			public void onGameChanged(Greed game, GameChange change) {
+				redrawn.add(grid.changed(change));
+			}
+		});
+
+		game.roll();
+		Assert.assertEquals(Integer.valueOf(0x3f), redrawn.remove(0));
+
+		// Two dice locked in one update
+		Die[] dice = game.getDice();
+		game.beginUpdate();
+		dice[1].setLocked(true);
+		dice[4].setLocked(true);
+		game.commitUpdate();
+		Assert.assertEquals(Integer.valueOf(1 << 1 | 1 << 4), redrawn.remove(0));
+
+		// Nothing to redraw when the dice stay as they are
+		game.beginUpdate();
+		game.setScoreTotal(game.getScoreTotal() + 50);
+		game.commitUpdate();
+		Assert.assertEquals(Integer.valueOf(0), redrawn.remove(0));
+		Assert.assertTrue(redrawn.isEmpty());
+	}
+
+	private static void assertCell(BoardGrid grid, int cell, int left, int top, int right,
+			int bottom) {
+		Assert.assertEquals(left, grid.getLeft(cell));
+		Assert.assertEquals(top, grid.getTop(cell));
+		Assert.assertEquals(right, grid.getRight(cell));
+		Assert.assertEquals(bottom, grid.getBottom(cell));
+		Assert.assertFalse(grid.isEmpty(cell));
+	}
+}
@@ -0,0 +1,121 @@
+package se.nielstrom.greed.host;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nielstrom.greed.models.GameStateCodec;
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.random.XoshiroSource;
+
+/**
+ * Sustained actions per second of a {@link GameHost} with many live
+ * sessions. An in-process client keeps a window of actions in flight,
+ * spread over random sessions, and waits for the whole window to complete
+ * before sending the next one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameHostBenchmark {
+	private static final int WINDOW = 4096;
+
+	@Param({ "10000" })
+	public int sessions;
+
+	private GameHost host;
+	private long[] ids;
+	private boolean[] won;
+	private final XoshiroSource random = new XoshiroSource(1);
+	private final Client client = new Client();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		host = new GameHost(10, TimeUnit.MINUTES);
+		ids = new long[sessions];
+		won = new boolean[sessions];
+		for (int i = 0; i < sessions; i++) {
+			ids[i] = host.open(i);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		host.close();
+	}
+
+	/**
+	 * Rolls and claims at random, resetting games that have been won.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(WINDOW)
+	public long actions() {
+		client.start(WINDOW);
+		for (int i = 0; i < WINDOW; i++) {
+			int session = random.nextInt(sessions);
+			int action;
+			if (won[session]) {
+				won[session] = false;
+				action = GameHost.RESET;
+			} else {
+				action = random.nextInt(3) == 0 ? GameHost.CLAIM : GameHost.ROLL;
+			}
+			host.submit(ids[session], action, 0, client);
+		}
+		client.await();
+		return host.getActions();
+	}
+
+	private class Client implements ActionCallback {
+		private final AtomicInteger pending = new AtomicInteger();
+		private volatile Thread waiter;
+
+		void start(int actions) {
+			waiter = Thread.currentThread();
+			pending.set(actions);
+		}
+
+		void await() {
+			while (pending.get() > 0) {
+				LockSupport.park(this);
+			}
+		}
+
+		@Override
+		public void onDone(long session, long dice, long scores) {
+			if (GameStateCodec.getState(dice) == Greed.State.WIN) {
+				won[(int) session - 1] = true;
+			}
+			finish();
+		}
+
+		@Override
+		public void onFailed(long session, Exception cause) {
+			finish();
+		}
+
+		private void finish() {
+			if (pending.decrementAndGet() == 0) {
+				LockSupport.unpark(waiter);
+			}
+		}
+	}
+}
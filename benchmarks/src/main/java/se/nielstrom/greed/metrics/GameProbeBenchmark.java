@@ -0,0 +1,59 @@
+package se.nielstrom.greed.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nielstrom.greed.models.Greed;
+
+/**
+ * Measures what a {@link GameProbe} adds to the updates of a game: none at
+ * all, {@link GameMetrics}, and the Flight Recorder probe with its events off,
+ * when the greed-jfr module is in the jar.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameProbeBenchmark {
+	private static final String JFR_PROBE = "se.nielstrom.greed.jfr.JfrProbe";
+
+	@Param({ "none", "metrics", "jfr" })
+	public String probe;
+
+	private Greed game;
+
+	@Setup
+	public void setUp() throws ReflectiveOperationException {
+		game = new Greed(1);
+		if (probe.equals("metrics")) {
+			game.setProbe(new GameMetrics());
+		} else if (probe.equals("jfr")) {
+			game.setProbe((GameProbe) Class.forName(JFR_PROBE).getDeclaredConstructor()
+					.newInstance());
+		}
+		game.setState(Greed.State.BUST);
+	}
+
+	@Benchmark
+	public Greed roll() {
+		return game.roll();
+	}
+
+	@Benchmark
+	public boolean updateScore() {
+		return game.updateScore();
+	}
+}
@@ -0,0 +1,58 @@
+package se.nielstrom.greed.models;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nielstrom.greed.models.Die.DieChangeListener;
+
+/**
+ * Benchmarks {@link Die} with change listeners attached, as each die has a
+ * button listening to it in the game activity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DieBenchmark {
+	private static final int LISTENERS = 2;
+
+	private Die die;
+	private int next;
+	public int changes;
+
+	@Setup
+	public void setUp() {
+		die = new Die(Greed.NR_OF_SIDES);
+		for (int i = 0; i < LISTENERS; i++) {
+			die.addChangeListener(new DieChangeListener() {
+				@Override
+				public void onDieChanged(Die die) {
+					changes++;
+				}
+			});
+		}
+	}
+
+	@Benchmark
+	public Die roll() {
+		return die.roll();
+	}
+
+	@Benchmark
+	public Die setValue() {
+		next = next % Greed.NR_OF_SIDES + 1;
+		return die.setValue(next);
+	}
+}
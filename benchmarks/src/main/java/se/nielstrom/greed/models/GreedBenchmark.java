@@ -0,0 +1,139 @@
+package se.nielstrom.greed.models;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the hot paths of {@link Greed} with a property change listener
+ * attached, the way the game activity uses it. Variants with other
+ * {@link RuleSet}s should cost the same as the default rules.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreedBenchmark {
+	/** Rolls that score, with and without all dice used. */
+	private static final int[][] ROLLS = {
+		{ 1, 1, 1, 5, 5, 2 },
+		{ 1, 2, 3, 4, 5, 6 },
+		{ 2, 2, 2, 3, 3, 3 },
+		{ 1, 5, 3, 4, 6, 2 },
+	};
+
+	@Param({ "6", "5" })
+	public int dice;
+
+	@Param({ "6", "7" })
+	public int sides;
+
+	private Greed game;
+	private final long[] packed = new long[GameStateCodec.LONGS];
+	private final int[] keeps = new int[Keeps.MAX];
+	private int next;
+	public int events;
+
+	@Setup
+	public void setUp() {
+		game = new Greed(RuleSet.DEFAULT.withDice(dice).withSides(sides));
+		game.addPropertyChangeListener(new PropertyChangeListener() {
+			@Override
+			public void propertyChange(PropertyChangeEvent event) {
+				events++;
+			}
+		});
+		game.setState(Greed.State.BUST);
+		GameStateCodec.encode(game, packed, 0);
+	}
+
+	@Benchmark
+	public Greed roll() {
+		return game.roll();
+	}
+
+	/**
+	 * Claims a fresh roll. The total is reset every time so that the game
+	 * never reaches {@link Greed#WINNING_SCORE}.
+	 */
+	@Benchmark
+	public int claim() {
+		setDice();
+		game.setState(Greed.State.OK);
+		game.claim();
+		int total = game.getScoreTotal();
+		game.setScoreTotal(0);
+		return total;
+	}
+
+	/**
+	 * Locks the first half of a roll and scores it.
+	 */
+	@Benchmark
+	public boolean updateScore() {
+		setDice();
+		Die[] dice = game.getDice();
+		for (int i = 0; i < dice.length / 2; i++) {
+			dice[i].setLocked(true);
+		}
+		return game.updateScore();
+	}
+
+	/**
+	 * The scoring of all dice that roll() and claim() use, without any events.
+	 */
+	@Benchmark
+	public int calculateScore() {
+		setDice();
+		return game.calculateScore();
+	}
+
+	/**
+	 * Enumerates the keeps of a fresh roll, as a bot searching moves would.
+	 */
+	@Benchmark
+	public int findKeeps() {
+		setDice();
+		return game.findKeeps(keeps, 0);
+	}
+
+	@Benchmark
+	public long[] encode() {
+		GameStateCodec.encode(game, packed, 0);
+		return packed;
+	}
+
+	/**
+	 * Restores the state of a roll without any events.
+	 */
+	@Benchmark
+	public Greed decode() {
+		GameStateCodec.decode(packed, 0, game);
+		return game;
+	}
+
+	private void setDice() {
+		int[] roll = ROLLS[next];
+		next = (next + 1) % ROLLS.length;
+
+		Die[] dice = game.getDice();
+		for (int i = 0; i < dice.length; i++) {
+			dice[i].setLocked(false);
+			dice[i].setValue(roll[i]);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package se.nielstrom.greed.random;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares rolling faces in bulk against drawing them one at a time. Scores
+ * are in faces per microsecond.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkDiceBenchmark {
+	private static final int FACES = 4096;
+
+	private final RandomSource random = new XoshiroSource(1);
+	private final BulkDice dice = new BulkDice(6);
+	private final byte[] bytes = new byte[FACES];
+	private final int[] ints = new int[FACES];
+
+	@Benchmark
+	@OperationsPerInvocation(FACES)
+	public byte[] bulkBytes() {
+		dice.roll(random, bytes);
+		return bytes;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FACES)
+	public int[] bulkInts() {
+		dice.roll(random, ints);
+		return ints;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FACES)
+	public int[] nextInt() {
+		for (int i = 0; i < FACES; i++) {
+			ints[i] = random.nextInt(6) + 1;
+		}
+		return ints;
+	}
+}
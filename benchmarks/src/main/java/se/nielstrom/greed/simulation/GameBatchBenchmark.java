@@ -0,0 +1,77 @@
+package se.nielstrom.greed.simulation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nielstrom.greed.models.RuleSet;
+import se.nielstrom.greed.random.XoshiroSource;
+
+/**
+ * Compares playing games in a {@link GameBatch} against one {@link Simulator}
+ * game at a time, and the scalar batch kernel against the default one. Scores
+ * are in games per millisecond.
+ * 
+ * Before measuring, the setup plays the same batch with both kernels and
+ * fails unless they end up in exactly the same state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBatchBenchmark {
+	private static final int GAMES = 4096;
+	private static final int THRESHOLD = 350;
+
+	@Param({"scalar", "default"})
+	public String kernel;
+
+	private GameBatch batch;
+	private Simulator simulator;
+	private long seed;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BatchKernel chosen = kernel.equals("scalar")
+				? ScalarKernel.INSTANCE : GameBatch.getDefaultKernel();
+		batch = new GameBatch(RuleSet.DEFAULT, GAMES, THRESHOLD, chosen);
+		simulator = new Simulator(new ThresholdStrategy(THRESHOLD), null,
+				Simulator.DEFAULT_MAX_ROUNDS, 1);
+
+		GameBatch scalar = new GameBatch(RuleSet.DEFAULT, GAMES + 3, THRESHOLD,
+				ScalarKernel.INSTANCE);
+		GameBatch other = new GameBatch(RuleSet.DEFAULT, GAMES + 3, THRESHOLD, chosen);
+		scalar.play(new XoshiroSource(1), Simulator.DEFAULT_MAX_ROUNDS);
+		other.play(new XoshiroSource(1), Simulator.DEFAULT_MAX_ROUNDS);
+		if (!scalar.sameState(other)) {
+			throw new IllegalStateException(chosen.getClass().getSimpleName()
+					+ " differs from the scalar kernel");
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(GAMES)
+	public GameBatch batch() {
+		return batch.play(new XoshiroSource(seed++), Simulator.DEFAULT_MAX_ROUNDS);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(GAMES)
+	public SimulationResult simulator() {
+		return simulator.runSequential(GAMES);
+	}
+}
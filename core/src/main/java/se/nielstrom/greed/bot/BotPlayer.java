@@ -0,0 +1,201 @@
+package se.nielstrom.greed.bot;
+
+import java.io.Closeable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import se.nielstrom.greed.models.GameStateCodec;
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.RuleSet;
+import se.nielstrom.greed.random.SplitMixSource;
+
+/**
+ * Plays the rounds of computer opponents without ever blocking the thread
+ * that owns the games, such as the UI thread of an activity.
+ * 
+ * The games are only touched on that thread, called the main thread here.
+ * For each move the state of the game is copied with the
+ * {@link GameStateCodec} and handed to the {@link Brain} on a background
+ * thread, together with a deadline. The move comes back to the main thread as
+ * one task which makes it as one update of the game, so the views redraw once
+ * per move. A brain that misses its deadline is interrupted and the round is
+ * claimed in its place.
+ * 
+ * {@link #cancel()} drops everything in flight, for when the activity is
+ * destroyed. All methods must be called on the main thread.
+ */
+public class BotPlayer implements Closeable {
+	private final Brain brain;
+	private final long budget;
+	private final long pace;
+	private final Executor mainThread;
+	private final ScheduledExecutorService worker;
+
+	// Only used on the main thread
+	private int generation;
+	private Future<?> thinking;
+	private Future<?> timeout;
+
+	/**
+	 * @param brain			Decides the moves.
+	 * @param budget		The most time a brain may think about a move.
+	 * @param pace			The least time between two moves, so that a player
+	 * 						can follow them. May be 0.
+	 * @param unit			The unit of budget and pace.
+	 * @param mainThread	Queues tasks to run on the thread that owns the
+	 * 						games, such as a Handler of the UI thread.
+	 */
+	public BotPlayer(Brain brain, long budget, long pace, TimeUnit unit, Executor mainThread) {
+		this.brain = brain;
+		this.budget = unit.toNanos(budget);
+		this.pace = unit.toNanos(pace);
+		this.mainThread = mainThread;
+
+		// One thread thinks while the other one keeps the time
+		worker = new ScheduledThreadPoolExecutor(2, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "BotPlayer");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Plays one round of a game, starting with a roll unless the round is
+	 * already underway. The listener hears about every move and about the end
+	 * of the round.
+	 */
+	public void play(Greed game, TurnListener listener) {
+		if (game.getState() == Greed.State.WIN) {
+			listener.onTurnEnded(game);
+		} else if (game.getState() == Greed.State.OK) {
+			think(game, listener);
+		} else {
+			game.roll();
+			next(game, listener);
+		}
+	}
+
+	/**
+	 * Stops thinking and forgets all moves not yet made. The games are left as
+	 * they are, and {@link #play(Greed, TurnListener)} picks up from there.
+	 */
+	public void cancel() {
+		generation++;
+		if (thinking != null) {
+			thinking.cancel(true);
+			timeout.cancel(false);
+			thinking = null;
+			timeout = null;
+		}
+	}
+
+	/**
+	 * Cancels everything and stops the background threads.
+	 */
+	@Override
+	public void close() {
+		cancel();
+		worker.shutdownNow();
+	}
+
+	private void next(Greed game, TurnListener listener) {
+		if (game.getState() == Greed.State.OK) {
+			think(game, listener);
+		} else {
+			listener.onTurnEnded(game);
+		}
+	}
+
+	/**
+	 * Lets the brain think about a copy of the game in the background.
+	 */
+	private void think(final Greed game, final TurnListener listener) {
+		final int current = generation;
+		final long start = System.nanoTime();
+		final long deadline = start + budget;
+		final RuleSet rules = game.getRules();
+		final long dice = GameStateCodec.encodeDice(game);
+		final long scores = GameStateCodec.encodeScores(game);
+		final AtomicBoolean decided = new AtomicBoolean();
+
+		final Future<?> task = worker.submit(new Runnable() {
+			@Override
+			public void run() {
+				Greed copy = new Greed(rules, new SplitMixSource());
+				GameStateCodec.decode(dice, scores, copy);
+				Move move = brain.think(copy, deadline);
+				if (decided.compareAndSet(false, true)) {
+					post(current, start, game, move, listener);
+				}
+			}
+		});
+		timeout = worker.schedule(new Runnable() {
+			@Override
+			public void run() {
+				if (decided.compareAndSet(false, true)) {
+					task.cancel(true);
+					post(current, start, game, Move.CLAIM, listener);
+				}
+			}
+		}, budget, TimeUnit.NANOSECONDS);
+		thinking = task;
+	}
+
+	/**
+	 * Sends a move to the main thread, no sooner than the pace allows.
+	 */
+	private void post(final int current, long start, final Greed game, final Move move,
+			final TurnListener listener) {
+		final Runnable make = new Runnable() {
+			@Override
+			public void run() {
+				if (current != generation) {
+					return; // Cancelled
+				}
+				thinking = null;
+				timeout.cancel(false);
+				timeout = null;
+
+				move.apply(game);
+				listener.onMove(game, move);
+				next(game, listener);
+			}
+		};
+
+		long wait = start + pace - System.nanoTime();
+		if (wait > 0 && !worker.isShutdown()) {
+			worker.schedule(new Runnable() {
+				@Override
+				public void run() {
+					mainThread.execute(make);
+				}
+			}, wait, TimeUnit.NANOSECONDS);
+		} else {
+			mainThread.execute(make);
+		}
+	}
+
+	/**
+	 * Receives the progress of a round played by a bot, on the main thread.
+	 */
+	public interface TurnListener {
+		/**
+		 * Called after the bot has made a move in the game.
+		 */
+		public void onMove(Greed game, Move move);
+
+		/**
+		 * Called when the round is over, whether claimed, bust or won.
+		 */
+		public void onTurnEnded(Greed game);
+	}
+}
@@ -0,0 +1,21 @@
+package se.nielstrom.greed.bot;
+
+import se.nielstrom.greed.models.Greed;
+
+/**
+ * Decides the moves of a bot. Runs on a background thread of a
+ * {@link BotPlayer}, with a private copy of the game.
+ */
+public interface Brain {
+	/**
+	 * Called after each scoring roll of the bot, with the game in the
+	 * {@link Greed.State#OK OK} state.
+	 * 
+	 * @param game		A copy of the game, free to change.
+	 * @param deadline	The {@link System#nanoTime()} by which to answer. A
+	 * 					brain that thinks for longer is interrupted and its
+	 * 					answer ignored.
+	 * @return			The move to make.
+	 */
+	public Move think(Greed game, long deadline);
+}
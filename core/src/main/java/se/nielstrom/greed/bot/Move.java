@@ -0,0 +1,67 @@
+package se.nielstrom.greed.bot;
+
+import se.nielstrom.greed.models.Die;
+import se.nielstrom.greed.models.Greed;
+
+/**
+ * What a bot does after a roll: the dice it locks, and whether it then claims
+ * the round or rolls the rest of the dice.
+ */
+public final class Move {
+	/** Claims the round, which is always allowed after a scoring roll. */
+	public static final Move CLAIM = new Move(0, true);
+
+	private final int locks;
+	private final boolean claim;
+
+	/**
+	 * @param locks	A bit per die to lock, bit i standing for getDice()[i], as
+	 * 				in {@link se.nielstrom.greed.models.Keeps#getMask(int)}.
+	 * @param claim	True to claim the round afterwards, False to roll.
+	 */
+	public Move(int locks, boolean claim) {
+		this.locks = locks;
+		this.claim = claim;
+	}
+
+	public int getLocks() {
+		return locks;
+	}
+
+	public boolean isClaim() {
+		return claim;
+	}
+
+	/**
+	 * Makes the move in a game as one update, so that listeners get a single
+	 * change for all of it. Rolling is replaced by claiming if the locked dice
+	 * don't score enough to roll on.
+	 * 
+	 * @return The game for chaining.
+	 */
+	public Greed apply(Greed game) {
+		game.beginUpdate();
+		try {
+			Die[] dice = game.getDice();
+			for (int i = 0; i < dice.length; i++) {
+				if ((locks & (1 << i)) != 0) {
+					dice[i].setLocked(true);
+				}
+			}
+
+			if (game.updateScore() && !claim) {
+				game.roll();
+			} else {
+				game.claim();
+			}
+		} finally {
+			game.commitUpdate();
+		}
+		return game;
+	}
+
+	@Override
+	public String toString() {
+		return (claim ? "claim" : "roll") + " locking " + Integer.toBinaryString(locks);
+	}
+}
@@ -0,0 +1,42 @@
+package se.nielstrom.greed.bot;
+
+import se.nielstrom.greed.models.Die;
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.simulation.Strategy;
+
+/**
+ * Lets a bot play like one of the simulation strategies, such as a
+ * {@link se.nielstrom.greed.simulation.ThresholdStrategy ThresholdStrategy}
+ * or an {@link se.nielstrom.greed.solver.OptimalStrategy OptimalStrategy}.
+ * The strategy locks dice in the copy of the game and the move is read back
+ * from it.
+ */
+public class StrategyBrain implements Brain {
+	private final Strategy strategy;
+
+	public StrategyBrain(Strategy strategy) {
+		this.strategy = strategy;
+	}
+
+	@Override
+	public Move think(Greed game, long deadline) {
+		int before = lockedDice(game);
+		boolean claim = strategy.play(game);
+		return new Move(lockedDice(game) & ~before, claim);
+	}
+
+	public Strategy getStrategy() {
+		return strategy;
+	}
+
+	private static int lockedDice(Greed game) {
+		Die[] dice = game.getDice();
+		int mask = 0;
+		for (int i = 0; i < dice.length; i++) {
+			if (dice[i].isLocked()) {
+				mask |= 1 << i;
+			}
+		}
+		return mask;
+	}
+}
@@ -0,0 +1,97 @@
+package se.nielstrom.greed.hint;
+
+/**
+ * The answer of a {@link HintEngine}: the dice to lock and whether to roll
+ * them or claim the round, along with the points each choice is expected to
+ * bring the round.
+ */
+public final class Hint {
+	private final int locks;
+	private final boolean claim;
+	private final double value;
+	private final double claimValue;
+	private final double rollValue;
+	private final int depth;
+	private final boolean settled;
+
+	/**
+	 * @param locks			A bit per die to have locked before rolling.
+	 * @param claim			True if claiming is best.
+	 * @param value			The expected points of the best move.
+	 * @param claimValue	The points of claiming now.
+	 * @param rollValue		The expected points of rolling with the dice locked
+	 * 						as they are, or NaN if they may not be rolled.
+	 * @param depth			The number of rolls searched ahead.
+	 * @param settled		True if searching deeper wouldn't change the hint.
+	 */
+	Hint(int locks, boolean claim, double value, double claimValue, double rollValue,
+			int depth, boolean settled) {
+		this.locks = locks;
+		this.claim = claim;
+		this.value = value;
+		this.claimValue = claimValue;
+		this.rollValue = rollValue;
+		this.depth = depth;
+		this.settled = settled;
+	}
+
+	/**
+	 * @return	A bit per die to lock before rolling, bit i standing for
+	 * 			getDice()[i]. Unlike a {@link se.nielstrom.greed.bot.Move Move}
+	 * 			these are all dice to have locked, so dice locked now may have
+	 * 			to be unlocked. The dice locked now if claiming is best.
+	 */
+	public int getLocks() {
+		return locks;
+	}
+
+	public boolean isClaim() {
+		return claim;
+	}
+
+	/**
+	 * @return	The points the round is expected to bring with the best move,
+	 * 			at most the points needed to win.
+	 */
+	public double getValue() {
+		return value;
+	}
+
+	/**
+	 * @return The points of claiming the round now.
+	 */
+	public double getClaimValue() {
+		return claimValue;
+	}
+
+	/**
+	 * @return	The points the round is expected to bring by rolling with the
+	 * 			dice locked as they are, or NaN if they may not be rolled.
+	 */
+	public double getRollValue() {
+		return rollValue;
+	}
+
+	/**
+	 * @return	The number of rolls the search looked ahead, 0 if it was
+	 * 			stopped before looking at any.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return	True if the search went deep enough for the values to settle,
+	 * 			or claiming wins the game.
+	 */
+	public boolean isSettled() {
+		return settled;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s locking %s: %.1f (claim %.1f, roll %.1f) at depth %d%s",
+				claim ? "claim" : "roll", Integer.toBinaryString(locks), value, claimValue,
+				rollValue, depth, settled ? ", settled" : "");
+	}
+}
@@ -0,0 +1,368 @@
+package se.nielstrom.greed.hint;
+
+import java.util.Arrays;
+
+import se.nielstrom.greed.models.GameState;
+import se.nielstrom.greed.models.GameStateCodec;
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.Greed.State;
+import se.nielstrom.greed.models.RuleSet;
+import se.nielstrom.greed.models.ScoreTable;
+
+/**
+ * Finds the best move after a scoring roll, weighing every set of dice that
+ * may be locked and rolled against claiming the round, by the points the
+ * round is expected to bring.
+ * 
+ * The search is an expectimax over the rest of the round: the player picks
+ * the best of claiming and rolling each allowed set of locked dice, and a
+ * roll is worth the average over every outcome of the free dice, a bust
+ * being worth nothing. As in the {@link se.nielstrom.greed.solver.Solver
+ * Solver}, only dice that all score are locked, since other dice are worth
+ * more rolled. Claiming is worth at most the points needed to win, so the
+ * search never rolls on a won game.
+ * 
+ * Only the combination of the dice matters, not which die shows what, so the
+ * state before a roll is the combination of the locked dice together with
+ * the bonus, the points needed and whether the roll may bust. These canonical states key a
+ * {@link TranspositionTable} in which every roll is searched once per depth,
+ * however many orders of dice and moves lead to it. The states after a roll
+ * are many more and cheap to search from the table, so they aren't kept.
+ * 
+ * Hot dice let a round go on forever, so the search is bounded by a number
+ * of rolls and deepened one roll at a time, claiming at the horizon. Each
+ * depth reuses the table of the last one as well as of earlier searches,
+ * and deepening stops once the values have settled. The search looks at the
+ * clock every thousand or so states and stops at its deadline or when its
+ * thread is interrupted, answering with the best move of the deepest search
+ * it completed, so it always has an answer. A search after a die has been
+ * locked or unlocked finds the states it needs already in the table.
+ * 
+ * An engine keeps its table between searches and is not thread safe, see
+ * {@link HintWorker} for searching in the background.
+ */
+public class HintEngine {
+	/** The most rolls a search looks ahead. */
+	public static final int MAX_DEPTH = 32;
+	/** The table holds 2^DEFAULT_TABLE_BITS states, about 1 MB. */
+	public static final int DEFAULT_TABLE_BITS = 16;
+
+	/** Values growing less than this from one depth to the next are settled. */
+	private static final double SETTLED = 0.01;
+	private static final int CHECK_INTERVAL = 1024;
+
+	// The fields of a key, the scores in units of the codec
+	private static final int SCORE_BITS = 13;
+	private static final long SCORE_MASK = (1L << SCORE_BITS) - 1;
+	private static final int BONUS_SHIFT = RuleSet.MAX_SIDES * ScoreTable.BITS_PER_SIDE;
+	private static final int NEED_SHIFT = BONUS_SHIFT + SCORE_BITS;
+	private static final long FREE = 1L << (NEED_SHIFT + SCORE_BITS);
+
+	private final ScoreTable table;
+	private final RuleSet rules;
+	private final TranspositionTable transpositions;
+
+	/** The codes of every roll of a number of dice, with their probabilities. */
+	private final int[][] rolls;
+	private final double[][] probabilities;
+	/** The scoring combinations that may be locked out of a combination. */
+	private final int[][] keeps;
+
+	// The search underway
+	private long deadline;
+	private int nodes;
+	private boolean stopped;
+	private int best;
+
+	public HintEngine(ScoreTable table) {
+		this(table, DEFAULT_TABLE_BITS);
+	}
+
+	/**
+	 * @param tableBits	The transposition table holds 2^tableBits states.
+	 */
+	public HintEngine(ScoreTable table, int tableBits) {
+		this.table = table;
+		rules = table.getRules();
+		transpositions = new TranspositionTable(tableBits);
+		keeps = new int[table.getCombinations()][];
+
+		rolls = new int[rules.getDice() + 1][];
+		probabilities = new double[rules.getDice() + 1][];
+		for (int dice = 1; dice <= rules.getDice(); dice++) {
+			enumerate(dice);
+		}
+	}
+
+	public ScoreTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Forgets all states searched.
+	 */
+	public void clear() {
+		transpositions.clear();
+	}
+
+	/**
+	 * Searches the best move of a game.
+	 * 
+	 * @see #search(GameState, long)
+	 */
+	public Hint search(Greed game, long deadline) {
+		if (game.getScoreTable() != table) {
+			throw new IllegalArgumentException("The game is played by other rules - "
+					+ game.getRules() + " given, " + rules + " expected.");
+		}
+		return search(game.getGameState(), deadline);
+	}
+
+	/**
+	 * Searches the best move after a scoring roll, deeper and deeper until the
+	 * values settle, the deadline passes or the thread is interrupted. The
+	 * interrupt is left for the caller to see.
+	 * 
+	 * @param state		A game in the {@link State#OK OK} state.
+	 * @param deadline	The {@link System#nanoTime()} by which to answer.
+	 * @return			The best move found by the deepest search completed,
+	 * 					claiming if none was.
+	 */
+	public Hint search(GameState state, long deadline) {
+		if (state.getState() != State.OK) {
+			throw new IllegalArgumentException("Only a scoring roll has moves - "
+					+ state.getState() + " given.");
+		}
+		int all = ScoreTable.EMPTY;
+		int locked = ScoreTable.EMPTY;
+		int locks = 0;
+		for (int i = 0; i < rules.getDice(); i++) {
+			all = ScoreTable.add(all, state.getFace(i));
+			if (state.isLocked(i)) {
+				locked = ScoreTable.add(locked, state.getFace(i));
+				locks |= 1 << i;
+			}
+		}
+		int bonus = state.getScoreRoundBonus();
+		int previous = state.getScorePrevious();
+		int need = Math.max(rules.getWinningScore() - state.getScoreTotal(), GameStateCodec.SCORE_UNIT);
+		int claim = Math.min(table.score(all) + bonus, need);
+		boolean mayRoll = table.score(locked) + bonus > least(previous);
+
+		this.deadline = deadline;
+		nodes = 0;
+		stopped = false;
+		Hint hint = new Hint(locks, true, claim, claim, Double.NaN, 0, claim == need);
+		for (int depth = 1; depth <= MAX_DEPTH && !hint.isSettled(); depth++) {
+			best = ScoreTable.EMPTY;
+			double value = decide(all, bonus, previous, need, depth, true);
+			double roll = mayRoll ? roll(locked, bonus, need, depth) : Double.NaN;
+			if (stopped) {
+				break;
+			}
+			// The value of rolling is shown too, so it must settle as well
+			boolean settled = depth > 1 && value - hint.getValue() < SETTLED
+					&& (!mayRoll || roll - hint.getRollValue() < SETTLED);
+			if (best == ScoreTable.EMPTY) {
+				hint = new Hint(locks, true, claim, claim, roll, depth, settled);
+			} else {
+				hint = new Hint(locksOf(state, best), false, value, claim, roll, depth, settled);
+			}
+		}
+		return hint;
+	}
+
+	/**
+	 * @return	The expected points of the round after a roll, choosing the
+	 * 			best move. At the root the combination to lock is kept in
+	 * 			{@link #best}, or EMPTY for claiming.
+	 * 
+	 * @param all		The combination of all dice.
+	 * @param previous	The round score before the roll, to be beaten.
+	 */
+	private double decide(int all, int bonus, int previous, int need, int depth, boolean root) {
+		int claim = Math.min(table.score(all) + bonus, need);
+		if (depth == 0 || claim == need) {
+			return claim; // The horizon, or claiming wins
+		}
+		if (++nodes % CHECK_INTERVAL == 0 && (System.nanoTime() - deadline > 0
+				|| Thread.currentThread().isInterrupted())) {
+			stopped = true;
+		}
+		if (stopped) {
+			return claim;
+		}
+
+		double value = claim;
+		int least = least(previous);
+		for (int keep : keepsOf(all)) {
+			if (table.score(keep) + bonus > least) {
+				double roll = roll(keep, bonus, need, depth);
+				if (roll > value) {
+					value = roll;
+					if (root) {
+						best = keep;
+					}
+				}
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @return The expected points of the round from rolling the free dice.
+	 * 
+	 * @param locked The combination of the locked dice.
+	 */
+	private double roll(int locked, int bonus, int need, int depth) {
+		int dice = rules.getDice() - ScoreTable.size(locked);
+		int previous = table.score(locked) + bonus; // The round score to beat
+		boolean free = false;
+		if (dice == 0) {
+			if (!table.allUsed(locked)) {
+				return 0; // Nothing is rolled, which scores nothing
+			}
+			// Hot dice: as in Greed.roll() the round score is added to the
+			// bonus. With a bonus already, the new bonus alone beats the round
+			// score, so the roll can't bust and any keep may be rolled on.
+			free = bonus > 0;
+			bonus += previous;
+			locked = ScoreTable.EMPTY;
+			dice = rules.getDice();
+			if (free) {
+				previous = 0;
+			}
+		}
+
+		long key = locked | units(bonus) << BONUS_SHIFT | units(need) << NEED_SHIFT
+				| (free ? FREE : 0);
+		double stored = transpositions.get(key, depth);
+		if (!Double.isNaN(stored)) {
+			return stored;
+		}
+
+		int[] codes = rolls[dice];
+		double[] chances = probabilities[dice];
+		int least = rules.getMinScore() - 1;
+		double value = 0;
+		for (int i = 0; i < codes.length; i++) {
+			int all = locked + codes[i];
+			int score = table.score(all) + bonus;
+			if (score > previous && score >= least) { // Neither bust nor low
+				value += chances[i] * decide(all, bonus, previous, need, depth - 1, false);
+			}
+		}
+		if (!stopped) {
+			transpositions.put(key, depth, value);
+		}
+		return value;
+	}
+
+	/**
+	 * @return	The score the locked dice must beat to be rolled, as in
+	 * 			{@link Greed#updateScore()}.
+	 */
+	private int least(int previous) {
+		return Math.max(rules.getMinScore() - 1, previous);
+	}
+
+	/**
+	 * @return	Every combination in which all dice score that may be taken
+	 * 			out of a combination.
+	 */
+	private int[] keepsOf(int all) {
+		int index = table.index(all);
+		if (keeps[index] == null) {
+			int[] codes = { ScoreTable.EMPTY };
+			for (int side = 1; side <= rules.getSides(); side++) {
+				int count = ScoreTable.count(all, side);
+				int[] more = new int[codes.length * (count + 1)];
+				int n = 0;
+				for (int code : codes) {
+					for (int i = 0; i <= count; i++) {
+						more[n++] = code;
+						code = ScoreTable.add(code, side);
+					}
+				}
+				codes = more;
+			}
+			int n = 0;
+			for (int code : codes) {
+				if (code != ScoreTable.EMPTY && table.allUsed(code)) {
+					codes[n++] = code;
+				}
+			}
+			keeps[index] = Arrays.copyOf(codes, n);
+		}
+		return keeps[index];
+	}
+
+	/**
+	 * Lists every combination of a number of dice with its probability, the
+	 * sides of each in non-decreasing order.
+	 */
+	private void enumerate(int dice) {
+		int sides = rules.getSides();
+		int[] codes = new int[table.getCombinations()];
+		double[] chances = new double[codes.length];
+		double total = Math.pow(sides, dice);
+		int n = 0;
+		int[] faces = new int[dice];
+		Arrays.fill(faces, 1);
+
+		while (true) {
+			int code = ScoreTable.pack(faces);
+			double orders = factorial(dice);
+			for (int side = 1; side <= sides; side++) {
+				orders /= factorial(ScoreTable.count(code, side));
+			}
+			codes[n] = code;
+			chances[n++] = orders / total;
+
+			int i = dice - 1;
+			while (i >= 0 && faces[i] == sides) {
+				i--;
+			}
+			if (i < 0) {
+				break;
+			}
+			faces[i]++;
+			for (int j = i + 1; j < dice; j++) {
+				faces[j] = faces[i];
+			}
+		}
+		rolls[dice] = Arrays.copyOf(codes, n);
+		probabilities[dice] = Arrays.copyOf(chances, n);
+	}
+
+	/**
+	 * @return The dice to lock for a combination, the dice locked now first
+	 * 			so that as few dice as possible change.
+	 */
+	private int locksOf(GameState state, int keep) {
+		int locks = 0;
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < rules.getDice(); i++) {
+				int face = state.getFace(i);
+				if ((locks & (1 << i)) == 0 && state.isLocked(i) == (pass == 0)
+						&& ScoreTable.count(keep, face) > 0) {
+					locks |= 1 << i;
+					keep = ScoreTable.remove(keep, face);
+				}
+			}
+		}
+		return locks;
+	}
+
+	private static long units(int score) {
+		return (score / GameStateCodec.SCORE_UNIT) & SCORE_MASK;
+	}
+
+	private static double factorial(int n) {
+		double result = 1;
+		for (int i = 2; i <= n; i++) {
+			result *= i;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,118 @@
+package se.nielstrom.greed.hint;
+
+import java.io.Closeable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import se.nielstrom.greed.models.GameState;
+import se.nielstrom.greed.models.ScoreTable;
+
+/**
+ * Searches hints with a {@link HintEngine} on a background thread, for a
+ * thread that must never block, such as the UI thread of an activity.
+ * 
+ * Asking for a hint interrupts the search underway, so a player toggling
+ * dice only waits for the hint of the dice as they are last. What the
+ * interrupted search found stays in the table of the engine, so the next
+ * search starts off where it stopped. A hint comes back to the main thread
+ * within the budget, unless another one has been asked for since.
+ * 
+ * All methods must be called on the main thread.
+ */
+public class HintWorker implements Closeable {
+	private final HintEngine engine;
+	private final long budget;
+	private final Executor mainThread;
+	private final ExecutorService worker;
+
+	// Only used on the main thread
+	private int generation;
+	private Future<?> searching;
+
+	/**
+	 * @param table			The scores of the games to hint.
+	 * @param budget		The most time to search for a hint.
+	 * @param unit			The unit of the budget.
+	 * @param mainThread	Queues tasks to run on the thread asking for hints,
+	 * 						such as a Handler of the UI thread.
+	 */
+	public HintWorker(ScoreTable table, long budget, TimeUnit unit, Executor mainThread) {
+		this.engine = new HintEngine(table);
+		this.budget = unit.toNanos(budget);
+		this.mainThread = mainThread;
+		worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "HintWorker");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	public ScoreTable getTable() {
+		return engine.getTable();
+	}
+
+	/**
+	 * Searches the best move of a state, dropping any hint asked for before.
+	 * 
+	 * @param state	A game in the {@link se.nielstrom.greed.models.Greed.State#OK
+	 * 				OK} state.
+	 */
+	public void request(final GameState state, final HintListener listener) {
+		cancel();
+		final int current = generation;
+		final long deadline = System.nanoTime() + budget;
+		searching = worker.submit(new Runnable() {
+			@Override
+			public void run() {
+				final Hint hint = engine.search(state, deadline);
+				mainThread.execute(new Runnable() {
+					@Override
+					public void run() {
+						if (current == generation) {
+							searching = null;
+							listener.onHint(state, hint);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Stops the search underway and forgets its hint.
+	 */
+	public void cancel() {
+		generation++;
+		if (searching != null) {
+			searching.cancel(true);
+			searching = null;
+		}
+	}
+
+	/**
+	 * Cancels the search and stops the background thread.
+	 */
+	@Override
+	public void close() {
+		cancel();
+		worker.shutdownNow();
+	}
+
+	/**
+	 * Receives hints on the main thread.
+	 */
+	public interface HintListener {
+		/**
+		 * Called with the best move found for a state within the budget.
+		 */
+		public void onHint(GameState state, Hint hint);
+	}
+}
@@ -0,0 +1,89 @@
+package se.nielstrom.greed.hint;
+
+import java.util.Arrays;
+
+import se.nielstrom.greed.models.GameStateCodec;
+
+/**
+ * The values of the states a {@link HintEngine} has searched, each with the
+ * depth it was searched to.
+ * 
+ * The table has a fixed number of slots, in parallel arrays so that it holds
+ * no objects. A key is looked for in a few slots from its hash; when they are
+ * all taken the shallowest entry gives way, since it was the cheapest to
+ * compute. A depth of 0 marks an empty slot.
+ */
+final class TranspositionTable {
+	private static final int PROBES = 4;
+
+	private final long[] keys;
+	private final double[] values;
+	private final byte[] depths;
+	private final int mask;
+
+	/**
+	 * @param bits	The table holds 2^bits entries.
+	 */
+	TranspositionTable(int bits) {
+		if (bits < 4 || bits > 24) {
+			throw new IllegalArgumentException("From 4 to 24 bits - " + bits + " given.");
+		}
+		keys = new long[1 << bits];
+		values = new double[1 << bits];
+		depths = new byte[1 << bits];
+		mask = (1 << bits) - 1;
+	}
+
+	/**
+	 * @return	The value of a state searched at least to the given depth, or
+	 * 			NaN if there is none.
+	 */
+	double get(long key, int depth) {
+		int slot = slot(key);
+		for (int i = 0; i < PROBES; i++, slot = (slot + 1) & mask) {
+			if (depths[slot] == 0) {
+				break;
+			} else if (keys[slot] == key) {
+				return depths[slot] >= depth ? values[slot] : Double.NaN;
+			}
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Keeps the value of a state, unless it's already kept from a deeper
+	 * search.
+	 * 
+	 * @param depth	From 1 to 127.
+	 */
+	void put(long key, int depth, double value) {
+		int slot = slot(key);
+		int victim = slot;
+		for (int i = 0; i < PROBES; i++, slot = (slot + 1) & mask) {
+			if (depths[slot] == 0 || keys[slot] == key) {
+				victim = slot;
+				break;
+			} else if (depths[slot] < depths[victim]) {
+				victim = slot;
+			}
+		}
+		if (keys[victim] == key && depths[victim] > depth) {
+			return;
+		}
+		keys[victim] = key;
+		values[victim] = value;
+		depths[victim] = (byte) depth;
+	}
+
+	void clear() {
+		Arrays.fill(depths, (byte) 0);
+	}
+
+	int capacity() {
+		return keys.length;
+	}
+
+	private int slot(long key) {
+		return (int) GameStateCodec.hash(key, 0) & mask;
+	}
+}
@@ -0,0 +1,163 @@
+package se.nielstrom.greed.history;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Keeps up the statistics of a stream of whole numbers, such as the scores of
+ * the games: the count, the mean and spread, the extremes, a histogram of
+ * fixed-width buckets and a {@link QuantileSketch} per quantile asked for.
+ * Adding a value takes constant time and nothing is kept of the values
+ * themselves.
+ * 
+ * The last bucket of the histogram holds every value too large for the
+ * others, and the first one every value below its upper limit, negative ones
+ * included.
+ */
+public class Distribution {
+	private final int bucketWidth;
+	private final long[] buckets;
+	private final QuantileSketch[] sketches;
+	private long count;
+	private double sum;
+	private double sumSquares;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	/**
+	 * @param bucketWidth	The range of values of each bucket.
+	 * @param buckets		The number of buckets.
+	 * @param quantiles		The quantiles to estimate, each from 0 to 1.
+	 */
+	public Distribution(int bucketWidth, int buckets, double... quantiles) {
+		this.bucketWidth = bucketWidth;
+		this.buckets = new long[buckets];
+		sketches = new QuantileSketch[quantiles.length];
+		for (int i = 0; i < quantiles.length; i++) {
+			sketches[i] = new QuantileSketch(quantiles[i]);
+		}
+	}
+
+	/**
+	 * Reads a distribution written by {@link #writeTo(DataOutput)}.
+	 */
+	public Distribution(DataInput in) throws IOException {
+		bucketWidth = in.readInt();
+		buckets = new long[in.readInt()];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = in.readLong();
+		}
+		sketches = new QuantileSketch[in.readInt()];
+		for (int i = 0; i < sketches.length; i++) {
+			sketches[i] = new QuantileSketch(in);
+		}
+		count = in.readLong();
+		sum = in.readDouble();
+		sumSquares = in.readDouble();
+		min = in.readLong();
+		max = in.readLong();
+	}
+
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(bucketWidth);
+		out.writeInt(buckets.length);
+		for (long bucket : buckets) {
+			out.writeLong(bucket);
+		}
+		out.writeInt(sketches.length);
+		for (QuantileSketch sketch : sketches) {
+			sketch.writeTo(out);
+		}
+		out.writeLong(count);
+		out.writeDouble(sum);
+		out.writeDouble(sumSquares);
+		out.writeLong(min);
+		out.writeLong(max);
+	}
+
+	public void add(long value) {
+		count++;
+		sum += value;
+		sumSquares += (double) value * value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		buckets[(int) Math.max(0, Math.min(value / bucketWidth, buckets.length - 1))]++;
+		for (QuantileSketch sketch : sketches) {
+			sketch.add(value);
+		}
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return The mean of the values, or NaN if there are none.
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : sum / count;
+	}
+
+	/**
+	 * @return The standard deviation of the values, or NaN if there are none.
+	 */
+	public double getStandardDeviation() {
+		if (count == 0) {
+			return Double.NaN;
+		}
+		double mean = sum / count;
+		return Math.sqrt(Math.max(0, sumSquares / count - mean * mean));
+	}
+
+	/**
+	 * @return The smallest value, Long.MAX_VALUE if there are none.
+	 */
+	public long getMin() {
+		return min;
+	}
+
+	/**
+	 * @return The largest value, Long.MIN_VALUE if there are none.
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	public int getBucketWidth() {
+		return bucketWidth;
+	}
+
+	/**
+	 * @return The counts of the buckets, bucket i holding the values from
+	 * 			i * bucketWidth up to (i + 1) * bucketWidth - 1.
+	 */
+	public long[] getBuckets() {
+		return buckets.clone();
+	}
+
+	/**
+	 * @param quantile	One of the quantiles the distribution was created with.
+	 * @return			Its estimate, or NaN if there are no values.
+	 */
+	public double getQuantile(double quantile) {
+		for (QuantileSketch sketch : sketches) {
+			if (sketch.getQuantile() == quantile) {
+				return sketch.getEstimate();
+			}
+		}
+		throw new IllegalArgumentException("The quantile isn't estimated - " + quantile
+				+ " given.");
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(String.format("n %d, mean %.1f, sd %.1f",
+				count, getMean(), getStandardDeviation()));
+		for (QuantileSketch sketch : sketches) {
+			builder.append(String.format(", p%.0f %.0f", sketch.getQuantile() * 100,
+					sketch.getEstimate()));
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,396 @@
+package se.nielstrom.greed.history;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every finished game in a file of fixed-width records, along with a
+ * leaderboard of the best ones.
+ * 
+ * The header of the file holds everything the queries need: the number of
+ * games, the {@link #TOP_SIZE} best games in order and how many games were
+ * won in each number of rounds. Opening the history therefore only reads the
+ * header, however long the history is, and the best game and the rank of any
+ * game are answered from memory. Only {@link #readAll()} reads the records.
+ * 
+ * The file is opened and written by a background thread. Adding a game
+ * updates the index in memory right away and queues the record and the new
+ * header to be written, the record first, so a history cut short by a crash
+ * at worst loses the last game. The queries wait for the header to be read,
+ * which is a single small read started as soon as the history is created.
+ * 
+ * Each record is {@link #RECORD_SIZE} bytes: the time the game ended, the
+ * seed, the duration in milliseconds, the score, the rounds and the flags.
+ */
+public class GameHistory implements Closeable {
+	/** The number of games on the leaderboard. */
+	public static final int TOP_SIZE = 10;
+	/** Games won in this many rounds or more share the last histogram bucket. */
+	public static final int MAX_ROUNDS = 127;
+
+	static final int MAGIC = 0x47524853; // "GRHS"
+	static final int VERSION = 1;
+	static final int COUNT_OFFSET = 8;
+	static final int TOP_COUNT_OFFSET = 16;
+	static final int HISTOGRAM_OFFSET = 24;
+	static final int TOP_OFFSET = HISTOGRAM_OFFSET + (MAX_ROUNDS + 1) * 4;
+	static final int HEADER_SIZE = 1024;
+	public static final int RECORD_SIZE = 32;
+
+	private static final int WON = 1;
+
+	private final File file;
+	private final ExecutorService writer;
+	private final Future<?> loaded;
+	private volatile IOException failure;
+
+	// Guarded by this, the index in memory
+	private long count;
+	private final int[] histogram = new int[MAX_ROUNDS + 1];
+	private final List<GameRecord> top = new ArrayList<GameRecord>(TOP_SIZE + 1);
+
+	// Only used on the writer thread
+	private RandomAccessFile raf;
+	private FileChannel channel;
+	private long written;
+
+	/**
+	 * Opens the history kept in a file, creating it if necessary. The file is
+	 * read on a background thread, so this is safe to call on the UI thread.
+	 */
+	public GameHistory(File file) {
+		this.file = file;
+		writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "GameHistory");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		loaded = writer.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					open();
+				} catch (IOException e) {
+					failure = e;
+				}
+			}
+		});
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Adds a finished game to the history. The index is updated at once, the
+	 * file shortly after.
+	 */
+	public void add(GameRecord record) {
+		awaitLoaded();
+		final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		putRecord(buffer, record);
+		buffer.flip();
+
+		final long position;
+		final ByteBuffer header;
+		synchronized (this) {
+			position = HEADER_SIZE + count * RECORD_SIZE;
+			count++;
+			if (record.isWon()) {
+				histogram[Math.min(record.getRounds(), MAX_ROUNDS)]++;
+			}
+			int i = Collections.binarySearch(top, record, GameRecord.BEST_FIRST);
+			top.add(i < 0 ? -i - 1 : i, record);
+			if (top.size() > TOP_SIZE) {
+				top.remove(TOP_SIZE);
+			}
+			header = encodeHeader();
+		}
+
+		if (writer.isShutdown()) {
+			return;
+		}
+		writer.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (failure != null) {
+					return; // Don't make a broken file worse
+				}
+				try {
+					write(buffer, position);
+					write(header, 0);
+					written = (position - HEADER_SIZE) / RECORD_SIZE + 1;
+				} catch (IOException e) {
+					failure = e;
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return The number of games in the history, won or not.
+	 */
+	public long getCount() {
+		awaitLoaded();
+		synchronized (this) {
+			return count;
+		}
+	}
+
+	/**
+	 * @return The number of games won by the player.
+	 */
+	public long getWins() {
+		awaitLoaded();
+		long wins = 0;
+		synchronized (this) {
+			for (int games : histogram) {
+				wins += games;
+			}
+		}
+		return wins;
+	}
+
+	/**
+	 * @return The best game won, or null if no game has been won yet.
+	 */
+	public GameRecord getBest() {
+		awaitLoaded();
+		synchronized (this) {
+			return (top.isEmpty() || !top.get(0).isWon()) ? null : top.get(0);
+		}
+	}
+
+	/**
+	 * @return The best games, best first, at most {@link #TOP_SIZE} of them.
+	 */
+	public List<GameRecord> getTop() {
+		awaitLoaded();
+		synchronized (this) {
+			return new ArrayList<GameRecord>(top);
+		}
+	}
+
+	/**
+	 * Tells where a game won in some number of rounds places among the games
+	 * won so far. Games won in the same number of rounds share the rank, and
+	 * all games of {@link #MAX_ROUNDS} rounds or more are ranked as equal.
+	 * 
+	 * @return One more than the number of games won in fewer rounds.
+	 */
+	public long getRank(int rounds) {
+		awaitLoaded();
+		long rank = 1;
+		synchronized (this) {
+			for (int r = 0; r < Math.min(rounds, MAX_ROUNDS); r++) {
+				rank += histogram[r];
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Reads every game of the history from the file, oldest first, once the
+	 * games added before this call have been written.
+	 */
+	public Future<List<GameRecord>> readAll() {
+		return writer.submit(new Callable<List<GameRecord>>() {
+			@Override
+			public List<GameRecord> call() throws IOException {
+				if (failure != null) {
+					throw failure;
+				}
+				long games = written;
+				List<GameRecord> records = new ArrayList<GameRecord>((int) games);
+				ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 256).order(ByteOrder.LITTLE_ENDIAN);
+				long position = HEADER_SIZE;
+				long end = HEADER_SIZE + games * RECORD_SIZE;
+				while (position < end) {
+					buffer.clear();
+					buffer.limit((int) Math.min(buffer.capacity(), end - position));
+					readFully(buffer, position);
+					buffer.flip();
+					while (buffer.remaining() >= RECORD_SIZE) {
+						records.add(getRecord(buffer));
+					}
+					position += buffer.limit();
+				}
+				return records;
+			}
+		});
+	}
+
+	/**
+	 * Asks the writer to write all added games and close the file, without
+	 * waiting for it. Games added after this are lost.
+	 */
+	public void shutdown() {
+		if (writer.isShutdown()) {
+			return;
+		}
+		writer.execute(new Runnable() {
+			@Override
+			public void run() {
+				closeFile();
+			}
+		});
+		writer.shutdown();
+	}
+
+	/**
+	 * Writes all added games, closes the file and stops the writer.
+	 * 
+	 * @throws IOException If the history couldn't be read or written.
+	 */
+	@Override
+	public void close() throws IOException {
+		shutdown();
+		try {
+			writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Waits for the header to be read. A history that couldn't be read is
+	 * left empty.
+	 */
+	private void awaitLoaded() {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				loaded.get();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			} catch (ExecutionException e) {
+				break;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void open() throws IOException {
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+		if (channel.size() < HEADER_SIZE) {
+			synchronized (this) {
+				write(encodeHeader(), 0);
+			}
+			return;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(header, 0);
+		header.flip();
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+			throw new IOException("Not a history file - " + file);
+		}
+
+		synchronized (this) {
+			count = header.getLong(COUNT_OFFSET);
+			written = count;
+			for (int r = 0; r <= MAX_ROUNDS; r++) {
+				histogram[r] = header.getInt(HISTOGRAM_OFFSET + r * 4);
+			}
+			int games = Math.min(header.getInt(TOP_COUNT_OFFSET), TOP_SIZE);
+			header.position(TOP_OFFSET);
+			for (int i = 0; i < games; i++) {
+				top.add(getRecord(header));
+			}
+		}
+	}
+
+	private void closeFile() {
+		if (raf == null) {
+			return;
+		}
+		try {
+			raf.close();
+		} catch (IOException e) {
+			if (failure == null) {
+				failure = e;
+			}
+		}
+		raf = null;
+	}
+
+	/**
+	 * @return The header of the index as it is now. Must hold the lock.
+	 */
+	private ByteBuffer encodeHeader() {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(0, MAGIC);
+		header.putInt(4, VERSION);
+		header.putLong(COUNT_OFFSET, count);
+		header.putInt(TOP_COUNT_OFFSET, top.size());
+		for (int r = 0; r <= MAX_ROUNDS; r++) {
+			header.putInt(HISTOGRAM_OFFSET + r * 4, histogram[r]);
+		}
+		header.position(TOP_OFFSET);
+		for (GameRecord record : top) {
+			putRecord(header, record);
+		}
+		header.clear();
+		return header;
+	}
+
+	private void write(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("The history ends too soon - " + file);
+			}
+			position += read;
+		}
+	}
+
+	private static void putRecord(ByteBuffer buffer, GameRecord record) {
+		buffer.putLong(record.getFinished());
+		buffer.putLong(record.getSeed());
+		buffer.putInt((int) Math.min(record.getDuration(), Integer.MAX_VALUE));
+		buffer.putInt(record.getScore());
+		buffer.putInt(record.getRounds());
+		buffer.putInt(record.isWon() ? WON : 0);
+	}
+
+	private static GameRecord getRecord(ByteBuffer buffer) {
+		long finished = buffer.getLong();
+		long seed = buffer.getLong();
+		long duration = buffer.getInt() & 0xffffffffL;
+		int score = buffer.getInt();
+		int rounds = buffer.getInt();
+		int flags = buffer.getInt();
+		return new GameRecord(finished, seed, duration, score, rounds, (flags & WON) != 0);
+	}
+}
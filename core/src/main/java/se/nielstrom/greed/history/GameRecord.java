@@ -0,0 +1,82 @@
+package se.nielstrom.greed.history;
+
+import java.util.Comparator;
+
+/**
+ * A finished game, as kept by the {@link GameHistory}.
+ * 
+ * Games are ranked by the number of rounds it took to win them, fewer being
+ * better, then by the score, higher being better. Games that weren't won by
+ * the player, such as the ones a bot won first, are kept but never ranked.
+ */
+public class GameRecord {
+	/** Orders games from the best to the worst, see the class description. */
+	public static final Comparator<GameRecord> BEST_FIRST = new Comparator<GameRecord>() {
+		@Override
+		public int compare(GameRecord a, GameRecord b) {
+			if (a.won != b.won) {
+				return a.won ? -1 : 1;
+			} else if (a.rounds != b.rounds) {
+				return a.rounds < b.rounds ? -1 : 1;
+			} else if (a.score != b.score) {
+				return a.score > b.score ? -1 : 1;
+			} else {
+				return a.finished < b.finished ? -1 : (a.finished == b.finished ? 0 : 1);
+			}
+		}
+	};
+
+	private final long finished;
+	private final long seed;
+	private final long duration;
+	private final int score;
+	private final int rounds;
+	private final boolean won;
+
+	/**
+	 * @param finished	When the game ended, in milliseconds since the epoch.
+	 * @param seed		The seed of the dice the game was rolled from.
+	 * @param duration	How long the game went on, in milliseconds.
+	 * @param score		The total score of the player.
+	 * @param rounds	The number of rounds played.
+	 * @param won		True if the player won the game.
+	 */
+	public GameRecord(long finished, long seed, long duration, int score, int rounds, boolean won) {
+		this.finished = finished;
+		this.seed = seed;
+		this.duration = duration;
+		this.score = score;
+		this.rounds = rounds;
+		this.won = won;
+	}
+
+	public long getFinished() {
+		return finished;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public long getDuration() {
+		return duration;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public int getRounds() {
+		return rounds;
+	}
+
+	public boolean isWon() {
+		return won;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d points in %d rounds, %s, %d s", score, rounds,
+				won ? "won" : "lost", duration / 1000);
+	}
+}
@@ -0,0 +1,152 @@
+package se.nielstrom.greed.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import se.nielstrom.greed.models.GameChange;
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.Greed.State;
+
+/**
+ * Keeps the statistics of every game played, updated as the games go on
+ * rather than computed from the {@link GameHistory}.
+ * 
+ * The statistics listen to the games they are added to: every roll is
+ * counted by its outcome, every claim adds its size and every game won adds
+ * its final score and number of rounds. Each event costs a few additions,
+ * so the statistics are always up to date whatever the number of games
+ * played, and a {@link #snapshot()} of a few kilobytes keeps them between
+ * runs.
+ * 
+ * The statistics are not thread safe, they are meant to be updated and read
+ * on the thread playing the games.
+ */
+public class GameStatistics implements Greed.GameChangeListener {
+	static final int MAGIC = 0x47525354; // "GRST"
+	static final int VERSION = 1;
+
+	private static final double[] QUANTILES = { 0.5, 0.9 };
+
+	private final long[] outcomes;
+	private final Distribution claims;
+	private final Distribution scores;
+	private final Distribution rounds;
+
+	public GameStatistics() {
+		outcomes = new long[State.values().length];
+		claims = new Distribution(50, 60, QUANTILES);
+		scores = new Distribution(250, 60, QUANTILES);
+		rounds = new Distribution(1, 100, QUANTILES);
+	}
+
+	/**
+	 * Restores the statistics from a snapshot.
+	 * 
+	 * @throws IOException If the snapshot is damaged or of another version.
+	 */
+	public GameStatistics(byte[] snapshot) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot));
+		if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+			throw new IOException("Not a statistics snapshot");
+		}
+		outcomes = new long[State.values().length];
+		for (int i = 0; i < outcomes.length; i++) {
+			outcomes[i] = in.readLong();
+		}
+		claims = new Distribution(in);
+		scores = new Distribution(in);
+		rounds = new Distribution(in);
+	}
+
+	/**
+	 * @return Everything needed to restore the statistics as they are now.
+	 */
+	public byte[] snapshot() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			for (long outcome : outcomes) {
+				out.writeLong(outcome);
+			}
+			claims.writeTo(out);
+			scores.writeTo(out);
+			rounds.writeTo(out);
+			out.flush();
+		} catch (IOException e) {
+			throw new AssertionError(e); // Not from a byte array
+		}
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public void onGameChanged(Greed game, GameChange change) {
+		if ((change.getActions() & GameChange.ROLL) != 0) {
+			outcomes[game.getState().ordinal()]++;
+		}
+		if ((change.getActions() & GameChange.CLAIM) != 0 && change.has(GameChange.TOTAL_SCORE)) {
+			claims.add(change.getNewScoreTotal() - change.getOldScoreTotal());
+			if (game.getState() == State.WIN) {
+				scores.add(game.getScoreTotal());
+				rounds.add(game.getRound());
+			}
+		}
+	}
+
+	/**
+	 * @return The number of rolls that ended in a state: OK for a roll that
+	 * 			scored, BUST or LOW for one that ended the round.
+	 */
+	public long getRolls(State outcome) {
+		return outcomes[outcome.ordinal()];
+	}
+
+	public long getRolls() {
+		long rolls = 0;
+		for (long outcome : outcomes) {
+			rolls += outcome;
+		}
+		return rolls;
+	}
+
+	/**
+	 * @return The fraction of the rolls that bust or scored too low, or NaN
+	 * 			if nothing has been rolled.
+	 */
+	public double getBustRate() {
+		long rolls = getRolls();
+		return rolls == 0 ? Double.NaN
+				: (double) (outcomes[State.BUST.ordinal()] + outcomes[State.LOW.ordinal()]) / rolls;
+	}
+
+	/**
+	 * @return The points of the claimed rounds.
+	 */
+	public Distribution getClaims() {
+		return claims;
+	}
+
+	/**
+	 * @return The final scores of the games won.
+	 */
+	public Distribution getScores() {
+		return scores;
+	}
+
+	/**
+	 * @return The number of rounds of the games won.
+	 */
+	public Distribution getRounds() {
+		return rounds;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Rolls: %d, %.1f%% bust%nClaims: %s%nScores: %s%nRounds: %s",
+				getRolls(), getBustRate() * 100, claims, scores, rounds);
+	}
+}
@@ -0,0 +1,153 @@
+package se.nielstrom.greed.history;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Estimates a quantile of a stream of values without keeping them, using the
+ * P-square algorithm of Jain and Chlamtac.
+ * 
+ * Five markers follow the minimum, the maximum, the quantile and the points
+ * halfway to it. Each value moves the markers at most one position and bends
+ * their heights along a parabola through their neighbours, so adding a value
+ * takes constant time and the sketch is a few dozen bytes however many values
+ * it has seen. The estimate is exact for the first five values.
+ */
+public class QuantileSketch {
+	private static final int MARKERS = 5;
+
+	private final double quantile;
+	private final double[] heights = new double[MARKERS];
+	private final int[] positions = new int[MARKERS];
+	private final double[] desired = new double[MARKERS];
+	private final double[] increments = new double[MARKERS];
+	private long count;
+
+	/**
+	 * @param quantile From 0 to 1, such as 0.5 for the median.
+	 */
+	public QuantileSketch(double quantile) {
+		if (quantile < 0 || quantile > 1) {
+			throw new IllegalArgumentException("The quantile must be from 0 to 1 - "
+					+ quantile + " given.");
+		}
+		this.quantile = quantile;
+		increments[0] = 0;
+		increments[1] = quantile / 2;
+		increments[2] = quantile;
+		increments[3] = (1 + quantile) / 2;
+		increments[4] = 1;
+	}
+
+	/**
+	 * Reads a sketch written by {@link #writeTo(DataOutput)}.
+	 */
+	public QuantileSketch(DataInput in) throws IOException {
+		this(in.readDouble());
+		count = in.readLong();
+		for (int i = 0; i < MARKERS; i++) {
+			heights[i] = in.readDouble();
+			positions[i] = in.readInt();
+			desired[i] = in.readDouble();
+		}
+	}
+
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeDouble(quantile);
+		out.writeLong(count);
+		for (int i = 0; i < MARKERS; i++) {
+			out.writeDouble(heights[i]);
+			out.writeInt(positions[i]);
+			out.writeDouble(desired[i]);
+		}
+	}
+
+	public double getQuantile() {
+		return quantile;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void add(double value) {
+		if (count < MARKERS) {
+			heights[(int) count++] = value;
+			if (count == MARKERS) {
+				Arrays.sort(heights);
+				for (int i = 0; i < MARKERS; i++) {
+					positions[i] = i + 1;
+				}
+				desired[0] = 1;
+				desired[1] = 1 + 2 * quantile;
+				desired[2] = 1 + 4 * quantile;
+				desired[3] = 3 + 2 * quantile;
+				desired[4] = 5;
+			}
+			return;
+		}
+		count++;
+
+		// The cell of the value, stretching the ends if it's outside them
+		int cell;
+		if (value < heights[0]) {
+			heights[0] = value;
+			cell = 0;
+		} else if (value >= heights[4]) {
+			heights[4] = value;
+			cell = 3;
+		} else {
+			cell = 0;
+			while (value >= heights[cell + 1]) {
+				cell++;
+			}
+		}
+		for (int i = cell + 1; i < MARKERS; i++) {
+			positions[i]++;
+		}
+		for (int i = 0; i < MARKERS; i++) {
+			desired[i] += increments[i];
+		}
+
+		// Move the middle markers that have drifted a whole position
+		for (int i = 1; i < MARKERS - 1; i++) {
+			double drift = desired[i] - positions[i];
+			if ((drift >= 1 && positions[i + 1] - positions[i] > 1)
+					|| (drift <= -1 && positions[i - 1] - positions[i] < -1)) {
+				int step = drift > 0 ? 1 : -1;
+				double height = parabolic(i, step);
+				if (heights[i - 1] < height && height < heights[i + 1]) {
+					heights[i] = height;
+				} else {
+					heights[i] += step * (heights[i + step] - heights[i])
+							/ (positions[i + step] - positions[i]);
+				}
+				positions[i] += step;
+			}
+		}
+	}
+
+	/**
+	 * @return The estimate of the quantile, or NaN if nothing has been added.
+	 */
+	public double getEstimate() {
+		if (count == 0) {
+			return Double.NaN;
+		} else if (count < MARKERS) {
+			double[] values = Arrays.copyOf(heights, (int) count);
+			Arrays.sort(values);
+			return values[(int) Math.min(count - 1, Math.round(quantile * (count - 1)))];
+		}
+		return heights[2];
+	}
+
+	private double parabolic(int i, int step) {
+		double below = positions[i] - positions[i - 1];
+		double above = positions[i + 1] - positions[i];
+		return heights[i] + step / (double) (positions[i + 1] - positions[i - 1])
+				* ((below + step) * (heights[i + 1] - heights[i]) / above
+				+ (above - step) * (heights[i] - heights[i - 1]) / below);
+	}
+}
@@ -0,0 +1,24 @@
+package se.nielstrom.greed.host;
+
+/**
+ * Receives the outcome of an action submitted to a {@link GameHost}. Called
+ * on one of the threads of the host, so implementations should return
+ * quickly. An exception thrown by a callback goes to the uncaught exception
+ * handler of the thread, and the session carries on with its next action.
+ */
+public interface ActionCallback {
+	/**
+	 * Called after the action was performed.
+	 * 
+	 * @param session	The id of the session.
+	 * @param dice		The dice, state and round of the game afterwards, see
+	 * 					{@link se.nielstrom.greed.models.GameStateCodec}.
+	 * @param scores	The scores of the game afterwards.
+	 */
+	public void onDone(long session, long dice, long scores);
+
+	/**
+	 * Called if the action couldn't be performed.
+	 */
+	public void onFailed(long session, Exception cause);
+}
@@ -0,0 +1,314 @@
+package se.nielstrom.greed.host;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import se.nielstrom.greed.models.GameStateCodec;
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.random.SplitMixSource;
+
+/**
+ * Hosts many independent games of Greed in one process, for serving several
+ * tables at once.
+ * 
+ * Every game lives in a session with a mailbox of actions. A session runs on
+ * at most one thread at a time, picked from a small event loop, and performs
+ * the actions of its mailbox in order, so the games themselves never need to
+ * be thread safe. Submitting an action only enqueues it and, if the session
+ * was idle, schedules it on the event loop.
+ * 
+ * Sessions are found through a concurrent registry that doesn't lock on
+ * lookups. Sessions that haven't had an action for the idle timeout are
+ * evicted by a background sweep, after which their id is unknown.
+ */
+public class GameHost implements Closeable {
+	// Actions
+	public static final int ROLL = 1;
+	public static final int CLAIM = 2;
+	/** Toggles the lock of the die given as argument and updates the score. */
+	public static final int TOGGLE_LOCK = 3;
+	public static final int RESET = 4;
+
+	/** The most actions a session performs before giving up its thread. */
+	private static final int BATCH = 64;
+
+	private static final int IDLE = 0;
+	private static final int SCHEDULED = 1;
+	private static final int EVICTED = 2;
+
+	private final ConcurrentMap<Long, Session> sessions;
+	private final ForkJoinPool loop;
+	private final ScheduledExecutorService sweeper;
+	private final long idleTimeout;
+	private final AtomicLong ids = new AtomicLong();
+	private final AtomicLong actions = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Starts a host with one event loop thread per core.
+	 */
+	public GameHost(long idleTimeout, TimeUnit unit) {
+		this(Runtime.getRuntime().availableProcessors(), idleTimeout, unit);
+	}
+
+	/**
+	 * @param threads		The number of event loop threads.
+	 * @param idleTimeout	How long a session may go without actions before
+	 * 						it's evicted.
+	 */
+	public GameHost(int threads, long idleTimeout, TimeUnit unit) {
+		this.idleTimeout = unit.toNanos(idleTimeout);
+		sessions = new ConcurrentHashMap<>(1024, 0.75f, Math.max(16, threads * 4));
+		loop = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+
+		sweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "GameHost-sweeper");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		long period = Math.max(1, this.idleTimeout / 4);
+		sweeper.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				evictIdle(System.nanoTime());
+			}
+		}, period, period, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Opens a session with a new game.
+	 * 
+	 * @return The id of the session.
+	 */
+	public long open() {
+		return open(SplitMixSource.newSeed());
+	}
+
+	/**
+	 * Opens a session with a new game rolled from a seed.
+	 * 
+	 * @return The id of the session.
+	 */
+	public long open(long seed) {
+		long id = ids.incrementAndGet();
+		Greed game = new Greed(seed);
+		game.setState(Greed.State.BUST);
+		sessions.put(id, new Session(id, game));
+		return id;
+	}
+
+	/**
+	 * Ends a session. Actions already in its mailbox are still performed.
+	 * 
+	 * @return False if there was no such session.
+	 */
+	public boolean close(long session) {
+		return sessions.remove(session) != null;
+	}
+
+	/**
+	 * Queues an action for a session.
+	 * 
+	 * @param session	The id of the session.
+	 * @param action	One of the action constants.
+	 * @param argument	Action specific, such as the index of a die.
+	 * @param callback	Told about the outcome, may be null.
+	 * @return			False if the session doesn't exist or was evicted, in
+	 * 					which case the callback is never called.
+	 */
+	public boolean submit(long session, int action, int argument, ActionCallback callback) {
+		Session target = sessions.get(session);
+		if (target == null) {
+			return false;
+		}
+		return target.submit(new Command(action, argument, callback));
+	}
+
+	/**
+	 * @return The number of live sessions.
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+	/**
+	 * @return The number of actions performed since the host started.
+	 */
+	public long getActions() {
+		return actions.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Stops the event loop and the sweeper, waiting for queued actions to
+	 * finish.
+	 */
+	@Override
+	public void close() {
+		sweeper.shutdownNow();
+		loop.shutdown();
+		try {
+			loop.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Evicts the sessions that have been idle for longer than the timeout.
+	 */
+	void evictIdle(long now) {
+		for (Session session : sessions.values()) {
+			if (now - session.lastActive > idleTimeout && session.evict()) {
+				sessions.remove(session.id, session);
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Performs an action on a game. Only ever called from the thread the
+	 * session is running on.
+	 */
+	private static void perform(Greed game, int action, int argument) {
+		switch (action) {
+		case ROLL:
+			game.roll();
+			break;
+		case CLAIM:
+			game.claim();
+			break;
+		case TOGGLE_LOCK:
+			if (game.getState() == Greed.State.OK) {
+				game.getDice()[argument].toggleLocked();
+				game.updateScore();
+			}
+			break;
+		case RESET:
+			game.reset();
+			game.setState(Greed.State.BUST);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown action - " + action);
+		}
+	}
+
+	/**
+	 * Hands an exception thrown by a callback to the handler of the thread, so
+	 * that it's seen without stopping the session it was thrown in.
+	 */
+	private static void report(RuntimeException e) {
+		Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+	}
+
+	private static class Command {
+		final int action;
+		final int argument;
+		final ActionCallback callback;
+
+		Command(int action, int argument, ActionCallback callback) {
+			this.action = action;
+			this.argument = argument;
+			this.callback = callback;
+		}
+	}
+
+	/**
+	 * A game and its mailbox. Runs on the event loop whenever it has actions.
+	 */
+	private class Session implements Runnable {
+		final long id;
+		final Greed game;
+		final Queue<Command> mailbox = new ConcurrentLinkedQueue<>();
+		final AtomicInteger status = new AtomicInteger(IDLE);
+		volatile long lastActive = System.nanoTime();
+
+		Session(long id, Greed game) {
+			this.id = id;
+			this.game = game;
+		}
+
+		boolean submit(Command command) {
+			lastActive = System.nanoTime();
+			mailbox.offer(command);
+			if (status.compareAndSet(IDLE, SCHEDULED)) {
+				loop.execute(this);
+				return true;
+			}
+			return status.get() != EVICTED;
+		}
+
+		/**
+		 * @return True if the session was idle and is now evicted.
+		 */
+		boolean evict() {
+			// An action submitted after the check either schedules the session
+			// first, or sees it evicted and is refused
+			return mailbox.isEmpty() && status.compareAndSet(IDLE, EVICTED);
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < BATCH; i++) {
+					Command command = mailbox.poll();
+					if (command == null) {
+						break;
+					}
+					execute(command);
+				}
+			} finally {
+				// Whatever happened, the session must take actions again
+				status.set(IDLE);
+				if (!mailbox.isEmpty() && status.compareAndSet(IDLE, SCHEDULED)) {
+					loop.execute(this);
+				}
+			}
+		}
+
+		private void execute(Command command) {
+			long dice;
+			long scores;
+			try {
+				perform(game, command.action, command.argument);
+				dice = GameStateCodec.encodeDice(game);
+				scores = GameStateCodec.encodeScores(game);
+			} catch (RuntimeException e) {
+				if (command.callback != null) {
+					try {
+						command.callback.onFailed(id, e);
+					} catch (RuntimeException thrown) {
+						report(thrown);
+					}
+				}
+				return;
+			}
+
+			actions.incrementAndGet();
+			if (command.callback != null) {
+				try {
+					command.callback.onDone(id, dice, scores);
+				} catch (RuntimeException thrown) {
+					report(thrown);
+				}
+			}
+		}
+	}
+}
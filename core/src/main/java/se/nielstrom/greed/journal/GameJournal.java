@@ -0,0 +1,260 @@
+package se.nielstrom.greed.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import se.nielstrom.greed.models.GameStateCodec;
+import se.nielstrom.greed.models.Greed;
+
+/**
+ * An append-only journal of everything a {@link Greed} game does, kept in a
+ * memory-mapped file of fixed-width records.
+ * 
+ * Recording an event only copies the packed game state into a preallocated
+ * ring buffer, so it neither allocates nor touches the file. A background
+ * thread drains the ring into the mapped file in batches and publishes the
+ * record count in the header after each batch, so a reader never sees half
+ * a batch. The file is forced to storage every few batches and on close.
+ * 
+ * Each record is {@link #RECORD_SIZE} bytes: the event type and argument,
+ * the time, and the state of the game right after the event as encoded by
+ * {@link GameStateCodec}. Any game can therefore be rebuilt to any point by
+ * decoding a single record, see {@link JournalReader}.
+ * 
+ * Events are recorded from a single thread, the one playing the game. If the
+ * writer falls so far behind that the ring is full, events are dropped and
+ * counted rather than blocking that thread.
+ */
+public class GameJournal implements Closeable {
+	/** A new game was started, recorded by whoever started it. */
+	public static final int START = 1;
+	public static final int ROLL = 2;
+	public static final int CLAIM = 3;
+	/** A die was locked or unlocked, the argument is its index. */
+	public static final int LOCK = 4;
+	public static final int RESET = 5;
+	/** The game was put in an undone or redone state. */
+	public static final int RESTORE = 6;
+
+	static final int MAGIC = 0x47524a4c; // "GRJL"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final int COUNT_OFFSET = 8;
+	public static final int RECORD_SIZE = 32;
+
+	private static final int LONGS_PER_SLOT = 4;
+	private static final int DEFAULT_SLOTS = 4096;
+	private static final long BATCH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final int BATCHES_PER_FORCE = 10;
+	private static final int GROWTH = 1 << 20;
+
+	private final File file;
+	private final long[] ring;
+	private final int mask;
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final Thread writer;
+	private volatile boolean closed;
+	private volatile IOException failure;
+
+	private RandomAccessFile raf;
+	private FileChannel channel;
+	private MappedByteBuffer map;
+	private long count;
+
+	/**
+	 * Starts a journal that appends to a file, creating it if necessary. The
+	 * file is opened on the writer thread, so this is safe to call on the UI
+	 * thread.
+	 */
+	public GameJournal(File file) {
+		this(file, DEFAULT_SLOTS);
+	}
+
+	/**
+	 * @param slots	The number of events the ring buffer holds, a power of two.
+	 */
+	public GameJournal(File file, int slots) {
+		if (Integer.bitCount(slots) != 1) {
+			throw new IllegalArgumentException("The number of slots must be a power of two - "
+				+ slots + " given.");
+		}
+		this.file = file;
+		ring = new long[slots * LONGS_PER_SLOT];
+		mask = slots - 1;
+
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				write();
+			}
+		}, "GameJournal");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Records an event along with the state of the game after it.
+	 * 
+	 * @param type		One of the event constants.
+	 * @param argument	Event specific, such as the index of a locked die.
+	 */
+	public void record(int type, int argument, Greed game) {
+		long h = head.get();
+		int slots = mask + 1;
+		long used = h - tail.get();
+		if (used >= slots || closed) {
+			dropped.incrementAndGet();
+			return;
+		}
+
+		int i = (int) (h & mask) * LONGS_PER_SLOT;
+		ring[i] = (long) type << 32 | (argument & 0xffffffffL);
+		ring[i + 1] = System.currentTimeMillis();
+		ring[i + 2] = GameStateCodec.encodeDice(game);
+		ring[i + 3] = GameStateCodec.encodeScores(game);
+		head.lazySet(h + 1);
+
+		if (used == slots / 2) {
+			LockSupport.unpark(writer);
+		}
+	}
+
+	/**
+	 * @return The number of events lost because the writer couldn't keep up.
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Asks the writer to write all recorded events and close the file, without
+	 * waiting for it. Events recorded after this are dropped. The writer may
+	 * still be at work on the file afterwards, so the file must not be opened
+	 * by another journal until {@link #close()} has returned.
+	 */
+	public void shutdown() {
+		closed = true;
+		LockSupport.unpark(writer);
+	}
+
+	/**
+	 * Writes all recorded events, forces them to storage and stops the writer.
+	 * 
+	 * @throws IOException If the writer failed at any point.
+	 */
+	@Override
+	public void close() throws IOException {
+		shutdown();
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * The loop of the writer thread.
+	 */
+	private void write() {
+		try {
+			open();
+			int batches = 0;
+			while (true) {
+				boolean done = closed;
+				if (drain() && ++batches % BATCHES_PER_FORCE == 0) {
+					map.force();
+				}
+				if (done) {
+					break;
+				}
+				LockSupport.parkNanos(BATCH_INTERVAL);
+			}
+			map.force();
+			channel.truncate(HEADER_SIZE + count * RECORD_SIZE);
+		} catch (IOException e) {
+			failure = e;
+		} finally {
+			closed = true;
+			if (raf != null) {
+				try {
+					raf.close();
+				} catch (IOException e) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			}
+		}
+	}
+
+	private void open() throws IOException {
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+		boolean existing = channel.size() >= HEADER_SIZE;
+		map(Math.max(channel.size(), HEADER_SIZE + GROWTH));
+
+		if (existing) {
+			if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+				throw new IOException("Not a journal file - " + file);
+			}
+			count = map.getLong(COUNT_OFFSET);
+		} else {
+			map.putInt(0, MAGIC);
+			map.putInt(4, VERSION);
+			map.putLong(COUNT_OFFSET, 0);
+		}
+	}
+
+	private void map(long size) throws IOException {
+		map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		map.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Copies every event in the ring into the file.
+	 * 
+	 * @return True if there was anything to write.
+	 */
+	private boolean drain() throws IOException {
+		long t = tail.get();
+		long h = head.get();
+		if (t == h) {
+			return false;
+		}
+
+		long end = HEADER_SIZE + (count + h - t) * RECORD_SIZE;
+		if (end > map.capacity()) {
+			map(end + GROWTH);
+		}
+
+		for (; t < h; t++) {
+			int i = (int) (t & mask) * LONGS_PER_SLOT;
+			int position = (int) (HEADER_SIZE + count * RECORD_SIZE);
+			map.putLong(position, ring[i]);
+			map.putLong(position + 8, ring[i + 1]);
+			map.putLong(position + 16, ring[i + 2]);
+			map.putLong(position + 24, ring[i + 3]);
+			count++;
+		}
+		tail.lazySet(h);
+		map.putLong(COUNT_OFFSET, count);
+		return true;
+	}
+}
@@ -0,0 +1,241 @@
+package se.nielstrom.greed.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import se.nielstrom.greed.models.GameStateCodec;
+import se.nielstrom.greed.models.Greed;
+
+/**
+ * Mirrors a set of {@link Greed} games, such as the player and the bots of
+ * one game session, into a small memory-mapped file, so that the session can
+ * be resumed even if the process is killed without a chance to save it.
+ * 
+ * The file holds two slots, written in turns. Each slot holds a checksum, a
+ * sequence number and the state of every game as encoded by
+ * {@link GameStateCodec}, along with its seed and number of rolls. Saving
+ * writes the slot not holding the latest state, so a save cut short leaves
+ * the other slot intact, and the checksum tells the torn slot from a whole
+ * one. Opening the file picks the whole slot with the highest sequence.
+ * 
+ * A save only writes a few hundred bytes to the mapped memory, it doesn't
+ * wait for storage. Once written, the state survives the process being
+ * killed, since the pages belong to the file rather than the process; only
+ * an outage of the whole device can lose the latest saves, see
+ * {@link #force()}. Restoring decodes the games directly, without firing
+ * their events or replaying the session.
+ * 
+ * Besides the games, a slot keeps the index of the current game, the time
+ * the session started and an int of flags for the owner's own use.
+ */
+public class GameSnapshot implements Closeable {
+	/** The most games a slot holds. */
+	public static final int MAX_GAMES = 8;
+
+	static final int MAGIC = 0x4752534e; // "GRSN"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int GAME_SIZE = 32;
+	static final int SLOT_HEADER_SIZE = 40;
+	static final int SLOT_SIZE = SLOT_HEADER_SIZE + MAX_GAMES * GAME_SIZE;
+	static final int FILE_SIZE = HEADER_SIZE + 2 * SLOT_SIZE;
+
+	// Offsets within a slot, the checksum covering everything after it
+	private static final int CHECKSUM = 0;
+	private static final int SEQUENCE = 8;
+	private static final int GAMES = 16;
+	private static final int CURRENT = 20;
+	private static final int STARTED = 24;
+	private static final int FLAGS = 32;
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final MappedByteBuffer map;
+	private final ByteBuffer staging = ByteBuffer.allocate(SLOT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private final CRC32 crc = new CRC32();
+
+	// The latest slot, as read when opened or last saved
+	private long sequence;
+	private int slot = 1;
+	private int games;
+	private int current;
+	private long started;
+	private int flags;
+
+	/**
+	 * Opens the snapshot kept in a file, creating an empty one if the file
+	 * doesn't exist or isn't a snapshot.
+	 */
+	public GameSnapshot(File file) throws IOException {
+		this.file = file;
+		raf = new RandomAccessFile(file, "rw");
+		FileChannel channel = raf.getChannel();
+		boolean existing = channel.size() >= FILE_SIZE;
+		map = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+		map.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (!existing || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+			for (int i = 0; i < FILE_SIZE; i++) {
+				map.put(i, (byte) 0);
+			}
+			map.putInt(0, MAGIC);
+			map.putInt(4, VERSION);
+			return;
+		}
+
+		for (int i = 0; i < 2; i++) {
+			int offset = offset(i);
+			long candidate = map.getLong(offset + SEQUENCE);
+			if (candidate > sequence && isWhole(i)) {
+				sequence = candidate;
+				slot = i;
+			}
+		}
+		if (sequence > 0) {
+			int offset = offset(slot);
+			games = Math.min(map.getInt(offset + GAMES), MAX_GAMES);
+			current = map.getInt(offset + CURRENT);
+			started = map.getLong(offset + STARTED);
+			flags = map.getInt(offset + FLAGS);
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return The number of games saved, 0 if nothing has been saved.
+	 */
+	public int getGames() {
+		return games;
+	}
+
+	public int getCurrent() {
+		return current;
+	}
+
+	public long getStarted() {
+		return started;
+	}
+
+	public int getFlags() {
+		return flags;
+	}
+
+	/**
+	 * @return The number of saves made to the file, 0 if nothing has been
+	 * 			saved.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Restores the saved games into games using the same rules, seeded games
+	 * continuing their streams where they were left off.
+	 * 
+	 * @param into	At least {@link #getGames()} games.
+	 */
+	public void restore(Greed[] into) {
+		if (into.length < games) {
+			throw new IllegalArgumentException(games + " games needed - " + into.length
+					+ " given.");
+		}
+		int offset = offset(slot) + SLOT_HEADER_SIZE;
+		for (int i = 0; i < games; i++, offset += GAME_SIZE) {
+			GameStateCodec.decode(map.getLong(offset), map.getLong(offset + 8), into[i]);
+			if (map.getInt(offset + 28) != 0) {
+				into[i].resume(map.getLong(offset + 16), map.getInt(offset + 24));
+			}
+		}
+	}
+
+	/**
+	 * Saves the state of a number of games to the slot not holding the latest
+	 * state, and makes it the latest.
+	 * 
+	 * @param games		At most {@link #MAX_GAMES} games.
+	 * @param current	The index of the game being played.
+	 * @param started	When the session started.
+	 * @param flags		Anything else the owner wants to keep.
+	 */
+	public void save(Greed[] games, int current, long started, int flags) {
+		if (games.length > MAX_GAMES) {
+			throw new IllegalArgumentException("At most " + MAX_GAMES + " games - "
+					+ games.length + " given.");
+		}
+
+		staging.clear();
+		staging.putLong(CHECKSUM, 0);
+		staging.putLong(SEQUENCE, sequence + 1);
+		staging.putInt(GAMES, games.length);
+		staging.putInt(CURRENT, current);
+		staging.putLong(STARTED, started);
+		staging.putInt(FLAGS, flags);
+		staging.putInt(FLAGS + 4, 0);
+		int offset = SLOT_HEADER_SIZE;
+		for (Greed game : games) {
+			staging.putLong(offset, GameStateCodec.encodeDice(game));
+			staging.putLong(offset + 8, GameStateCodec.encodeScores(game));
+			staging.putLong(offset + 16, game.isSeeded() ? game.getSeed() : 0);
+			staging.putInt(offset + 24, game.getRolls());
+			staging.putInt(offset + 28, game.isSeeded() ? 1 : 0);
+			offset += GAME_SIZE;
+		}
+		for (; offset < SLOT_SIZE; offset += 4) {
+			staging.putInt(offset, 0);
+		}
+
+		crc.reset();
+		crc.update(staging.array(), SEQUENCE, SLOT_SIZE - SEQUENCE);
+		staging.putLong(CHECKSUM, crc.getValue());
+
+		int next = 1 - slot;
+		map.position(offset(next));
+		map.put(staging);
+
+		sequence++;
+		slot = next;
+		this.games = games.length;
+		this.current = current;
+		this.started = started;
+		this.flags = flags;
+	}
+
+	/**
+	 * Writes the mapped file to storage, for the rare moments worth waiting
+	 * for it, such as when the app is about to be left.
+	 */
+	public void force() {
+		map.force();
+	}
+
+	/**
+	 * Closes the file. The mapping stays valid until it's collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		raf.close();
+	}
+
+	private boolean isWhole(int i) {
+		int offset = offset(i);
+		crc.reset();
+		for (int j = SEQUENCE; j < SLOT_SIZE; j++) {
+			crc.update(map.get(offset + j));
+		}
+		return crc.getValue() == map.getLong(offset + CHECKSUM);
+	}
+
+	private static int offset(int slot) {
+		return HEADER_SIZE + slot * SLOT_SIZE;
+	}
+}
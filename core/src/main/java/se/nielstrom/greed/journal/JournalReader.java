@@ -0,0 +1,118 @@
+package se.nielstrom.greed.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import se.nielstrom.greed.models.GameStateCodec;
+import se.nielstrom.greed.models.Greed;
+
+/**
+ * Reads the records of a {@link GameJournal} file and rebuilds games from
+ * them. Only the records published when the reader was opened are visible.
+ */
+public class JournalReader implements Closeable {
+	private final RandomAccessFile raf;
+	private final MappedByteBuffer map;
+	private final int size;
+
+	public JournalReader(File file) throws IOException {
+		raf = new RandomAccessFile(file, "r");
+		FileChannel channel = raf.getChannel();
+		if (channel.size() < GameJournal.HEADER_SIZE) {
+			raf.close();
+			throw new IOException("Not a journal file - " + file);
+		}
+
+		map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		map.order(ByteOrder.LITTLE_ENDIAN);
+		if (map.getInt(0) != GameJournal.MAGIC || map.getInt(4) != GameJournal.VERSION) {
+			raf.close();
+			throw new IOException("Not a journal file - " + file);
+		}
+
+		long count = map.getLong(GameJournal.COUNT_OFFSET);
+		long available = (channel.size() - GameJournal.HEADER_SIZE) / GameJournal.RECORD_SIZE;
+		size = (int) Math.min(count, available);
+	}
+
+	/**
+	 * @return The number of records.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return One of the event constants of {@link GameJournal}.
+	 */
+	public int getType(int record) {
+		return (int) (map.getLong(position(record)) >>> 32);
+	}
+
+	public int getArgument(int record) {
+		return (int) map.getLong(position(record));
+	}
+
+	/**
+	 * @return The wall clock time of the event in milliseconds.
+	 */
+	public long getTime(int record) {
+		return map.getLong(position(record) + 8);
+	}
+
+	/**
+	 * @return The dice of the game after the event, see
+	 * 			{@link GameStateCodec#encodeDice(Greed)}.
+	 */
+	public long getDice(int record) {
+		return map.getLong(position(record) + 16);
+	}
+
+	/**
+	 * @return The scores of the game after the event, see
+	 * 			{@link GameStateCodec#encodeScores(Greed)}.
+	 */
+	public long getScores(int record) {
+		return map.getLong(position(record) + 24);
+	}
+
+	/**
+	 * Restores a game to its state right after an event, without firing any
+	 * events.
+	 */
+	public Greed replay(int record, Greed game) {
+		GameStateCodec.decode(getDice(record), getScores(record), game);
+		return game;
+	}
+
+	/**
+	 * @return The record where the game containing a record was started or
+	 * 			reset, or 0 if there is none.
+	 */
+	public int findGameStart(int record) {
+		for (int i = record; i > 0; i--) {
+			int type = getType(i);
+			if (type == GameJournal.START || type == GameJournal.RESET) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		raf.close();
+	}
+
+	private int position(int record) {
+		if (record < 0 || record >= size) {
+			throw new IndexOutOfBoundsException("Record " + record + " of " + size);
+		}
+		return GameJournal.HEADER_SIZE + record * GameJournal.RECORD_SIZE;
+	}
+}
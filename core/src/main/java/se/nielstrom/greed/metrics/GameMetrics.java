@@ -0,0 +1,185 @@
+package se.nielstrom.greed.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import se.nielstrom.greed.models.GameChange;
+import se.nielstrom.greed.models.Greed;
+
+/**
+ * A {@link GameProbe} which keeps counters and latency histograms of the
+ * updates of any number of games, cheap enough to leave on in a release build.
+ * Everything is counted with atomic increments, nothing is allocated or
+ * locked.
+ * 
+ * The updates are counted per {@link GameChange} action: roll, claim, update
+ * score and reset, plus the updates started from outside the game, such as a
+ * {@link se.nielstrom.greed.bot.Move Move}. An update that does several
+ * actions, like a claim made from within a score update, counts for each of
+ * them. For every action it counts the updates, their total time, and the
+ * events they fanned out to die, property and game change listeners.
+ */
+public class GameMetrics implements GameProbe {
+	/** The updates that did no action of their own. */
+	public static final int OTHER = 0;
+	private static final int[] ACTIONS = {
+		OTHER, GameChange.ROLL, GameChange.CLAIM, GameChange.UPDATE_SCORE, GameChange.RESET
+	};
+	private static final String[] NAMES = {"other", "roll", "claim", "updateScore", "reset"};
+
+	private static final int UPDATES = 0;
+	private static final int NANOS = 1;
+	private static final int DIE_EVENTS = 2;
+	private static final int PROPERTY_EVENTS = 3;
+	private static final int CHANGE_EVENTS = 4;
+	private static final int COUNTERS = 5;
+
+	private final AtomicLongArray counters = new AtomicLongArray(ACTIONS.length * COUNTERS);
+	private final LatencyHistogram[] latencies = new LatencyHistogram[ACTIONS.length];
+	private final AtomicLongArray dieChanges = new AtomicLongArray(2);
+
+	public GameMetrics() {
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i] = new LatencyHistogram();
+		}
+	}
+
+	@Override
+	public void onUpdate(Greed game, int actions, long nanos, int dieEvents, int propertyEvents,
+			int changeEvents) {
+		if (actions == 0) {
+			count(0, nanos, dieEvents, propertyEvents, changeEvents);
+			return;
+		}
+		for (int i = 1; i < ACTIONS.length; i++) {
+			if ((actions & ACTIONS[i]) != 0) {
+				count(i, nanos, dieEvents, propertyEvents, changeEvents);
+			}
+		}
+	}
+
+	@Override
+	public void onDieChange(Greed game, int die, int listeners) {
+		dieChanges.incrementAndGet(0);
+		dieChanges.addAndGet(1, listeners);
+	}
+
+	private void count(int i, long nanos, int dieEvents, int propertyEvents, int changeEvents) {
+		int base = i * COUNTERS;
+		counters.incrementAndGet(base + UPDATES);
+		counters.addAndGet(base + NANOS, nanos);
+		counters.addAndGet(base + DIE_EVENTS, dieEvents);
+		counters.addAndGet(base + PROPERTY_EVENTS, propertyEvents);
+		counters.addAndGet(base + CHANGE_EVENTS, changeEvents);
+		latencies[i].record(nanos);
+	}
+
+	/**
+	 * @param action	A {@link GameChange} action, or {@link #OTHER}.
+	 * @return			The number of updates that did the action.
+	 */
+	public long getUpdates(int action) {
+		return get(action, UPDATES);
+	}
+
+	/**
+	 * @return The total time of the updates that did the action.
+	 */
+	public long getTotalNanos(int action) {
+		return get(action, NANOS);
+	}
+
+	/**
+	 * @return The number of die listeners called by updates of the action.
+	 */
+	public long getDieEvents(int action) {
+		return get(action, DIE_EVENTS);
+	}
+
+	/**
+	 * @return The number of property change events fired by updates of the
+	 * 			action.
+	 */
+	public long getPropertyEvents(int action) {
+		return get(action, PROPERTY_EVENTS);
+	}
+
+	/**
+	 * @return The number of game change listeners called by updates of the
+	 * 			action.
+	 */
+	public long getChangeEvents(int action) {
+		return get(action, CHANGE_EVENTS);
+	}
+
+	public LatencyHistogram getLatencies(int action) {
+		return latencies[index(action)];
+	}
+
+	/**
+	 * @return The number of times a die changed outside of an update.
+	 */
+	public long getDieChanges() {
+		return dieChanges.get(0);
+	}
+
+	/**
+	 * @return The number of listeners called by dice changed outside of an
+	 * 			update.
+	 */
+	public long getDieChangeEvents() {
+		return dieChanges.get(1);
+	}
+
+	/**
+	 * Starts all counts over. Updates recorded meanwhile may be partly lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < counters.length(); i++) {
+			counters.set(i, 0);
+		}
+		for (LatencyHistogram latency : latencies) {
+			latency.reset();
+		}
+		dieChanges.set(0, 0);
+		dieChanges.set(1, 0);
+	}
+
+	private long get(int action, int counter) {
+		return counters.get(index(action) * COUNTERS + counter);
+	}
+
+	private static int index(int action) {
+		for (int i = 0; i < ACTIONS.length; i++) {
+			if (ACTIONS[i] == action) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Not a single action - " + action + " given.");
+	}
+
+	/**
+	 * @return One line per action that has been done, with its counts, mean
+	 * 			and percentile latencies and mean fan-out.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < ACTIONS.length; i++) {
+			long updates = getUpdates(ACTIONS[i]);
+			if (updates == 0) {
+				continue;
+			}
+			LatencyHistogram latency = latencies[i];
+			builder.append(String.format("%s: %d updates, mean %.1f us, p50 < %.1f us, p99 < %.1f us,"
+					+ " %.2f die / %.2f property / %.2f change events per update%n",
+					NAMES[i], updates, getTotalNanos(ACTIONS[i]) / 1000.0 / updates,
+					latency.getQuantile(0.5) / 1000.0, latency.getQuantile(0.99) / 1000.0,
+					(double) getDieEvents(ACTIONS[i]) / updates,
+					(double) getPropertyEvents(ACTIONS[i]) / updates,
+					(double) getChangeEvents(ACTIONS[i]) / updates));
+		}
+		builder.append(String.format("die changes: %d, %d events", getDieChanges(),
+				getDieChangeEvents()));
+		return builder.toString();
+	}
+}
@@ -0,0 +1,39 @@
+package se.nielstrom.greed.metrics;
+
+import se.nielstrom.greed.models.GameChange;
+import se.nielstrom.greed.models.Greed;
+
+/**
+ * Hears how much work a {@link Greed} game does, set on a game with
+ * {@link Greed#setProbe(GameProbe)}. A game without a probe only pays for a
+ * null check per update.
+ * 
+ * A probe is called on the thread that changed the game, after all listeners
+ * have been told, and may be shared by many games on many threads. It must be
+ * quick and must not change the game.
+ */
+public interface GameProbe {
+	/**
+	 * Called when an update has been delivered to the listeners of a game.
+	 * 
+	 * @param game				The game.
+	 * @param actions			The {@link GameChange} actions of the update, 0
+	 * 							if it was started from outside the game.
+	 * @param nanos				The time from the start of the update until it
+	 * 							was delivered.
+	 * @param dieEvents			The number of die listeners called.
+	 * @param propertyEvents	The number of property change events fired.
+	 * @param changeEvents		The number of game change listeners called.
+	 */
+	public void onUpdate(Greed game, int actions, long nanos, int dieEvents, int propertyEvents,
+			int changeEvents);
+
+	/**
+	 * Called when a die of a game told its listeners of a change directly,
+	 * outside of any update. That's when a player taps it to lock it.
+	 * 
+	 * @param die		The index of the die.
+	 * @param listeners	The number of listeners called.
+	 */
+	public void onDieChange(Greed game, int die, int listeners);
+}
@@ -0,0 +1,65 @@
+package se.nielstrom.greed.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in buckets of powers of two nanoseconds, from below 1 ns
+ * up to the longest a long holds. Recording is a leading zero count and one
+ * atomic increment, so it can be done from any number of threads on every
+ * update. Quantiles are read within a factor of two, which is plenty to tell
+ * a microsecond from a millisecond.
+ */
+public class LatencyHistogram {
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * Records a duration, in bucket 64 - numberOfLeadingZeros(nanos) so that
+	 * bucket i holds durations from 2^(i-1) up to 2^i - 1.
+	 */
+	public void record(long nanos) {
+		counts.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 0)));
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * @param quantile	From 0 to 1, such as 0.99 for the 99th percentile.
+	 * @return			The upper limit of the bucket holding the quantile, in
+	 * 					nanoseconds, or 0 if nothing has been recorded.
+	 */
+	public long getQuantile(double quantile) {
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(quantile * count);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= Math.max(rank, 1)) {
+				return (1L << i) - 1; // Long.MAX_VALUE for the last one
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+	}
+}
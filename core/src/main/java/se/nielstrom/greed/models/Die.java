@@ -0,0 +1,152 @@
+package se.nielstrom.greed.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import se.nielstrom.greed.random.RandomSource;
+import se.nielstrom.greed.random.XoshiroSource;
+
+/**
+ * Models a die with any number of sides and which value can be locked, disallowing
+ * any changes until it's unlocked again. Classes interested in the value of the
+ * die can implement the DieChangeListener interface and register themselves to
+ * get updates.
+ * 
+ * @author Daniel Strm
+ */
+public class Die {
+	private final int NR_OF_SIDES;
+	private final List<DieChangeListener> changeListeners;
+	private RandomSource random;
+	private Greed owner;
+	private int index;
+	
+	private int value;
+	private boolean locked;
+
+	public Die() {
+		this(6); // Default as 6-sided die
+	}
+
+	public Die(int nrOfSides) {
+		this(nrOfSides, new XoshiroSource());
+	}
+
+	/**
+	 * @param nrOfSides	The number of sides of the die.
+	 * @param random	The source of random numbers used when rolling.
+	 */
+	public Die(int nrOfSides, RandomSource random) {
+		NR_OF_SIDES = nrOfSides;
+		changeListeners = new ArrayList<>();
+		this.random = random;
+		setValue(NR_OF_SIDES);
+	}
+
+	/**
+	 * Rolls the die. A random number is drawn even if the die is locked, so
+	 * that a seeded game draws the same numbers regardless of which dice are
+	 * locked.
+	 */
+	public Die roll() {
+		return setValue( random.nextInt(NR_OF_SIDES) + 1 );
+	}
+
+	/**
+	 * Tells the die which game it belongs to, so that the game can record
+	 * when it's locked.
+	 */
+	void setOwner(Greed owner, int index) {
+		this.owner = owner;
+		this.index = index;
+	}
+
+	public Die setRandom(RandomSource random) {
+		this.random = random;
+		return this;
+	}
+
+	public int getValue() {
+		return value;
+	}
+
+	public Die setValue(int value) {
+		if (isLocked()) {
+			return this;
+		} else if (value < 1 || NR_OF_SIDES < value) {
+			throw new IllegalArgumentException("Can only set a number between 1 and "
+				+ NR_OF_SIDES
+				+ " - " + value + " attempted.");
+		}
+
+		this.value = value;
+		
+		// send update to listeners, unless the game is in the middle of an update
+		if (owner == null || !owner.deferValueChange(index)) {
+			notifyListeners();
+		}
+		
+		return this;
+	}
+
+	/**
+	 * Sets the value and locked flag without notifying any listeners, for
+	 * restoring a saved state.
+	 */
+	void restore(int value, boolean locked) {
+		if (value < 1 || NR_OF_SIDES < value) {
+			throw new IllegalArgumentException("Can only set a number between 1 and "
+				+ NR_OF_SIDES
+				+ " - " + value + " attempted.");
+		}
+		this.value = value;
+		this.locked = locked;
+	}
+
+	public boolean isLocked() {
+		return locked;
+	}
+
+	public Die setLocked(boolean locked) {
+		boolean changed = this.locked != locked;
+		this.locked = locked;
+		if (changed && owner != null) {
+			owner.onDieLocked(index);
+		}
+		if (owner == null || !owner.deferLockChange(index, changed)) {
+			notifyListeners();
+		}
+		return this;
+	}
+
+	public void toggleLocked() {
+		setLocked(!isLocked());
+	}
+
+	public void addChangeListener(DieChangeListener listener) {
+		changeListeners.add(listener);
+		listener.onDieChanged(this);
+	}
+
+	public void removeChangeListener(DieChangeListener listener) {
+		changeListeners.remove(listener);
+	}
+
+	/**
+	 * @return The number of listeners told.
+	 */
+	int notifyListeners() {
+		for(DieChangeListener listener : changeListeners) {
+			listener.onDieChanged(this);
+		}
+		return changeListeners.size();
+	}
+
+	int getListenerCount() {
+		return changeListeners.size();
+	}
+
+	public interface DieChangeListener {
+		public void onDieChanged(Die die);
+	}
+}
\ No newline at end of file
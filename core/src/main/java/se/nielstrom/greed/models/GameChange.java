@@ -0,0 +1,213 @@
+package se.nielstrom.greed.models;
+
+/**
+ * Everything that changed in a {@link Greed} game during one update, as
+ * delivered to a {@link Greed.GameChangeListener}. Each changed property is
+ * reported once, with its value from before the update and its value after.
+ * Properties that ended up where they started are not reported.
+ * 
+ * The game reuses its change sets, so a listener must not keep a reference
+ * to one after it returns.
+ */
+public final class GameChange {
+	// Properties
+	public static final int ROUND_SCORE = 1;
+	public static final int TOTAL_SCORE = 1 << 1;
+	public static final int ROUNDS = 1 << 2;
+	public static final int STATE = 1 << 3;
+	/** The value of at least one die was set. */
+	public static final int DICE = 1 << 4;
+	/** At least one die was locked or unlocked. */
+	public static final int LOCKS = 1 << 5;
+
+	// Actions
+	public static final int ROLL = 1;
+	public static final int CLAIM = 1 << 1;
+	public static final int UPDATE_SCORE = 1 << 2;
+	public static final int RESET = 1 << 3;
+
+	private int started;
+	private int actions;
+
+	private int oldScoreRound;
+	private int newScoreRound;
+	private int oldScoreTotal;
+	private int newScoreTotal;
+	private int oldRound;
+	private int newRound;
+	private Greed.State oldState;
+	private Greed.State newState;
+	private int values;
+	private int locks;
+
+	GameChange() {
+	}
+
+	/**
+	 * @return True if a property changed, given as one of the property
+	 * 			constants or several of them or:ed together.
+	 */
+	public boolean has(int properties) {
+		return (getChanged() & properties) != 0;
+	}
+
+	/**
+	 * @return The property constants of everything that changed, or:ed
+	 * 			together.
+	 */
+	public int getChanged() {
+		int changed = 0;
+		if (has(ROUND_SCORE, oldScoreRound != newScoreRound)) {
+			changed |= ROUND_SCORE;
+		}
+		if (has(TOTAL_SCORE, oldScoreTotal != newScoreTotal)) {
+			changed |= TOTAL_SCORE;
+		}
+		if (has(ROUNDS, oldRound != newRound)) {
+			changed |= ROUNDS;
+		}
+		if (has(STATE, oldState != newState)) {
+			changed |= STATE;
+		}
+		if (values != 0) {
+			changed |= DICE;
+		}
+		if (locks != 0) {
+			changed |= LOCKS;
+		}
+		return changed;
+	}
+
+	/**
+	 * @return True if nothing changed.
+	 */
+	public boolean isEmpty() {
+		return getChanged() == 0;
+	}
+
+	/**
+	 * @return The action constants of the game actions that caused the change,
+	 * 			or:ed together. Zero if only setters were called, such as when
+	 * 			the player locks a die.
+	 */
+	public int getActions() {
+		return actions;
+	}
+
+	public int getOldScoreRound() {
+		return oldScoreRound;
+	}
+
+	public int getNewScoreRound() {
+		return newScoreRound;
+	}
+
+	public int getOldScoreTotal() {
+		return oldScoreTotal;
+	}
+
+	public int getNewScoreTotal() {
+		return newScoreTotal;
+	}
+
+	public int getOldRound() {
+		return oldRound;
+	}
+
+	public int getNewRound() {
+		return newRound;
+	}
+
+	public Greed.State getOldState() {
+		return oldState;
+	}
+
+	public Greed.State getNewState() {
+		return newState;
+	}
+
+	/**
+	 * @return True if the value of a die was set.
+	 */
+	public boolean isValueChanged(int die) {
+		return (values & (1 << die)) != 0;
+	}
+
+	/**
+	 * @return True if a die was locked or unlocked.
+	 */
+	public boolean isLockChanged(int die) {
+		return (locks & (1 << die)) != 0;
+	}
+
+	/**
+	 * @return A bit per die whose value or locked flag changed.
+	 */
+	int getChangedDice() {
+		return values | locks;
+	}
+
+	void addAction(int action) {
+		actions |= action;
+	}
+
+	void setScoreRound(int oldValue, int newValue) {
+		if (start(ROUND_SCORE)) {
+			oldScoreRound = oldValue;
+		}
+		newScoreRound = newValue;
+	}
+
+	void setScoreTotal(int oldValue, int newValue) {
+		if (start(TOTAL_SCORE)) {
+			oldScoreTotal = oldValue;
+		}
+		newScoreTotal = newValue;
+	}
+
+	void setRound(int oldValue, int newValue) {
+		if (start(ROUNDS)) {
+			oldRound = oldValue;
+		}
+		newRound = newValue;
+	}
+
+	void setState(Greed.State oldValue, Greed.State newValue) {
+		if (start(STATE)) {
+			oldState = oldValue;
+		}
+		newState = newValue;
+	}
+
+	void setValueChanged(int die) {
+		values |= 1 << die;
+	}
+
+	void setLockChanged(int die) {
+		locks |= 1 << die;
+	}
+
+	void clear() {
+		started = 0;
+		actions = 0;
+		oldState = null;
+		newState = null;
+		values = 0;
+		locks = 0;
+	}
+
+	/**
+	 * Marks a property as touched.
+	 * 
+	 * @return True if it wasn't touched before during the update.
+	 */
+	private boolean start(int property) {
+		boolean first = (started & property) == 0;
+		started |= property;
+		return first;
+	}
+
+	private boolean has(int property, boolean differs) {
+		return (started & property) != 0 && differs;
+	}
+}
@@ -0,0 +1,280 @@
+package se.nielstrom.greed.models;
+
+import se.nielstrom.greed.models.Greed.State;
+
+/**
+ * The state of a {@link Greed} game as an immutable value: the dice, the game
+ * state, the round and the scores, packed into the two longs of the
+ * {@link GameStateCodec}.
+ * 
+ * The moves of the game are transitions that return a new state and leave
+ * this one as it is, following the same rules as the game itself. A state is
+ * two longs, so keeping one for every move of a game, comparing them and
+ * using them as keys costs next to nothing, and no state is ever shared with
+ * the dice or listeners of a game. A {@link Greed} game turns into a state
+ * and back with {@link Greed#getGameState()} and
+ * {@link Greed#setGameState(GameState)}, see {@link GameTimeline} for undo
+ * and redo.
+ * 
+ * The rules are not part of the state, the transitions take the
+ * {@link ScoreTable} of the rules instead. The dice are rolled by the caller,
+ * one face per die, locked or not, just like the dice of a game.
+ */
+public final class GameState {
+	private static final long LOCKS_MASK = ((1L << Greed.NR_OF_DICE) - 1)
+			<< GameStateCodec.LOCK_SHIFT;
+
+	private final long dice;
+	private final long scores;
+
+	private GameState(long dice, long scores) {
+		this.dice = dice;
+		this.scores = scores;
+	}
+
+	/**
+	 * @return The state of a game, as encoded by the {@link GameStateCodec}.
+	 */
+	public static GameState of(Greed game) {
+		return new GameState(GameStateCodec.encodeDice(game), GameStateCodec.encodeScores(game));
+	}
+
+	/**
+	 * @return The state encoded by the {@link GameStateCodec} as two longs.
+	 */
+	public static GameState valueOf(long dice, long scores) {
+		return new GameState(dice, scores);
+	}
+
+	/**
+	 * @return The state of a new game: all dice unlocked and showing their
+	 * 			highest side, no points and no rounds played.
+	 */
+	public static GameState start(RuleSet rules) {
+		return new GameState(allFaces(rules.getDice(), rules.getSides())
+				| (long) State.BUST.ordinal() << GameStateCodec.STATE_SHIFT, 0);
+	}
+
+	/**
+	 * @return The dice, state and round, as encoded by the codec.
+	 */
+	public long getDice() {
+		return dice;
+	}
+
+	/**
+	 * @return The scores, as encoded by the codec.
+	 */
+	public long getScores() {
+		return scores;
+	}
+
+	public int getFace(int die) {
+		return GameStateCodec.getFace(dice, die);
+	}
+
+	public boolean isLocked(int die) {
+		return GameStateCodec.isLocked(dice, die);
+	}
+
+	public State getState() {
+		return GameStateCodec.getState(dice);
+	}
+
+	public int getRound() {
+		return GameStateCodec.getRound(dice);
+	}
+
+	public int getScoreTotal() {
+		return GameStateCodec.getScoreTotal(scores);
+	}
+
+	public int getScoreRound() {
+		return GameStateCodec.getScoreRound(scores);
+	}
+
+	public int getScorePrevious() {
+		return GameStateCodec.getScorePrevious(scores);
+	}
+
+	public int getScoreRoundBonus() {
+		return GameStateCodec.getScoreRoundBonus(scores);
+	}
+
+	/**
+	 * Rolls the unlocked dice, as {@link Greed#roll()} does.
+	 * 
+	 * @param faces	One face per die of the rules. The faces of locked dice
+	 * 				are ignored.
+	 */
+	public GameState roll(ScoreTable table, int[] faces) {
+		RuleSet rules = table.getRules();
+		int count = rules.getDice();
+		long d = dice;
+		State state = getState();
+		int round = getRound();
+		int scoreRound = getScoreRound();
+		int bonus = getScoreRoundBonus();
+
+		if (lockedMask(d, count) == (1 << count) - 1 && table.allUsed(code(d, count, false))) {
+			bonus += scoreRound;
+			d &= ~LOCKS_MASK;
+		}
+		int previous = (state == State.OK) ? scoreRound : 0;
+
+		for (int i = 0; i < count; i++) {
+			if (!GameStateCodec.isLocked(d, i)) {
+				d = withFace(d, i, faces[i]);
+			}
+		}
+
+		int score = table.score(code(d, count, false)) + bonus;
+		if (state == State.OK && score <= scoreRound) { // Bust
+			round++;
+			d &= ~LOCKS_MASK;
+			bonus = 0;
+			state = State.BUST;
+		} else if (score < rules.getMinScore() - 1) { // Low score
+			round++;
+			d &= ~LOCKS_MASK;
+			bonus = 0;
+			state = State.LOW;
+		} else {
+			state = State.OK;
+		}
+		return new GameState(withRound(withState(d, state), round),
+				scores(getScoreTotal(), score, previous, bonus));
+	}
+
+	/**
+	 * @return The state with a die locked or unlocked.
+	 */
+	public GameState setLocked(int die, boolean locked) {
+		long bit = 1L << (GameStateCodec.LOCK_SHIFT + die);
+		return new GameState(locked ? dice | bit : dice & ~bit, scores);
+	}
+
+	public GameState toggleLocked(int die) {
+		return setLocked(die, !isLocked(die));
+	}
+
+	/**
+	 * Counts the locked dice as the round score, as
+	 * {@link Greed#updateScore()} does.
+	 */
+	public GameState updateScore(ScoreTable table) {
+		int score = lockedScore(table) + getScoreRoundBonus();
+		return new GameState(dice, scores(getScoreTotal(), score, getScorePrevious(),
+				getScoreRoundBonus()));
+	}
+
+	/**
+	 * @return	True if the dice may be rolled: the round hasn't started or
+	 * 			the locked dice beat the round score before the last roll.
+	 * 			The same as what {@link Greed#updateScore()} returns.
+	 */
+	public boolean canRoll(ScoreTable table) {
+		int score = lockedScore(table) + getScoreRoundBonus();
+		return getState() != State.OK
+				|| score > Math.max(table.getRules().getMinScore() - 1, getScorePrevious());
+	}
+
+	/**
+	 * Adds the score of all dice to the total, as {@link Greed#claim()} does.
+	 * Only a round underway can be claimed, otherwise the state is returned
+	 * as it is.
+	 */
+	public GameState claim(ScoreTable table) {
+		if (getState() != State.OK) {
+			return this;
+		}
+		int count = table.getRules().getDice();
+		int total = getScoreTotal() + table.score(code(dice, count, false)) + getScoreRoundBonus();
+		State state = total >= table.getRules().getWinningScore() ? State.WIN : State.BUST;
+		return new GameState(withRound(withState(dice & ~LOCKS_MASK, state), getRound() + 1),
+				scores(total, 0, getScorePrevious(), 0));
+	}
+
+	/**
+	 * Starts the game over, as {@link Greed#reset()} does. The game state
+	 * itself is kept.
+	 */
+	public GameState reset(RuleSet rules) {
+		return new GameState(withState(allFaces(rules.getDice(), rules.getSides()), getState()), 0);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof GameState)) {
+			return false;
+		}
+		GameState state = (GameState) other;
+		return dice == state.dice && scores == state.scores;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) GameStateCodec.hash(dice, scores);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < Greed.NR_OF_DICE && getFace(i) != 0; i++) {
+			builder.append(getFace(i)).append(isLocked(i) ? "* " : " ");
+		}
+		return builder.append(String.format("%s, round %d, %d + %d", getState(), getRound(),
+				getScoreTotal(), getScoreRound())).toString();
+	}
+
+	private int lockedScore(ScoreTable table) {
+		return table.score(code(dice, table.getRules().getDice(), true));
+	}
+
+	/**
+	 * @return The {@link ScoreTable} code of the dice.
+	 */
+	private static int code(long dice, int count, boolean lockedOnly) {
+		int code = ScoreTable.EMPTY;
+		for (int i = 0; i < count; i++) {
+			if (!lockedOnly || GameStateCodec.isLocked(dice, i)) {
+				code = ScoreTable.add(code, GameStateCodec.getFace(dice, i));
+			}
+		}
+		return code;
+	}
+
+	private static int lockedMask(long dice, int count) {
+		return (int) (dice >>> GameStateCodec.LOCK_SHIFT) & ((1 << count) - 1);
+	}
+
+	private static long allFaces(int count, int side) {
+		long dice = 0;
+		for (int i = 0; i < count; i++) {
+			dice = withFace(dice, i, side);
+		}
+		return dice;
+	}
+
+	private static long withFace(long dice, int die, int face) {
+		int shift = die * GameStateCodec.FACE_BITS;
+		return (dice & ~((long) GameStateCodec.FACE_MASK << shift)) | (long) face << shift;
+	}
+
+	private static long withState(long dice, State state) {
+		return (dice & ~((long) GameStateCodec.STATE_MASK << GameStateCodec.STATE_SHIFT))
+				| (long) state.ordinal() << GameStateCodec.STATE_SHIFT;
+	}
+
+	private static long withRound(long dice, int round) {
+		return (dice & ~(GameStateCodec.ROUND_MASK << GameStateCodec.ROUND_SHIFT))
+				| (round & GameStateCodec.ROUND_MASK) << GameStateCodec.ROUND_SHIFT;
+	}
+
+	private static long scores(int total, int round, int previous, int bonus) {
+		return GameStateCodec.packScore(total, GameStateCodec.TOTAL)
+				| GameStateCodec.packScore(round, GameStateCodec.ROUND_SCORE)
+				| GameStateCodec.packScore(previous, GameStateCodec.PREVIOUS)
+				| GameStateCodec.packScore(bonus, GameStateCodec.BONUS);
+	}
+}
@@ -0,0 +1,184 @@
+package se.nielstrom.greed.models;
+
+/**
+ * Packs the full state of a {@link Greed} game into two longs, for parcels,
+ * hashing, storage and anything else that wants a cheap fixed-size form.
+ * 
+ * The first long holds the dice, the game state and the round:
+ * <pre>
+ *  bits  0-17	the faces of the six dice, 3 bits each
+ *  bits 18-23	the locked flag of each die
+ *  bits 24-25	the ordinal of the {@link Greed.State}
+ *  bits 26-57	the round
+ * </pre>
+ * The second long holds the scores in units of {@link #SCORE_UNIT} points,
+ * 16 bits each: the total, the round score, the previous round score and the
+ * bonus, from the lowest bits up.
+ * 
+ * Decoding restores the game directly, without firing any property change
+ * or die change events. The layout fits variants of up to six dice with up
+ * to seven sides, and the {@link RuleSet} itself is not part of it.
+ */
+public final class GameStateCodec {
+	public static final int LONGS = 2;
+	public static final int SCORE_UNIT = 50;
+
+	// Package-private for the GameState, which shares the layout
+	static final int FACE_BITS = 3;
+	static final int FACE_MASK = (1 << FACE_BITS) - 1;
+	static final int LOCK_SHIFT = Greed.NR_OF_DICE * FACE_BITS;
+	static final int STATE_SHIFT = LOCK_SHIFT + Greed.NR_OF_DICE;
+	static final int STATE_MASK = 3;
+	static final int ROUND_SHIFT = STATE_SHIFT + 2;
+	static final long ROUND_MASK = 0xffffffffL;
+
+	static final int SCORE_BITS = 16;
+	static final int SCORE_MASK = (1 << SCORE_BITS) - 1;
+	static final int TOTAL = 0;
+	static final int ROUND_SCORE = 1;
+	static final int PREVIOUS = 2;
+	static final int BONUS = 3;
+
+	private static final Greed.State[] STATES = Greed.State.values();
+
+	private GameStateCodec() {
+	}
+
+	/**
+	 * @return	True if the games of a rule set can be encoded: its dice and
+	 * 			sides fit, and its ladder, minimum and winning scores are
+	 * 			multiples of SCORE_UNIT that fit a score field.
+	 */
+	public static boolean fits(RuleSet rules) {
+		return rules.getDice() <= Greed.NR_OF_DICE && rules.getSides() <= FACE_MASK
+				&& fitsScore(rules.getLadderScore()) && fitsScore(rules.getMinScore())
+				&& fitsScore(rules.getWinningScore());
+	}
+
+	private static boolean fitsScore(int score) {
+		return score >= 0 && score % SCORE_UNIT == 0 && score / SCORE_UNIT <= SCORE_MASK;
+	}
+
+	/**
+	 * @return The dice, state and round of a game.
+	 * @throws IllegalArgumentException If the rules of the game don't fit.
+	 */
+	public static long encodeDice(Greed game) {
+		Die[] dice = game.getDice();
+		if (!fits(game.getRules())) {
+			throw new IllegalArgumentException("Can only encode up to "
+				+ Greed.NR_OF_DICE + " dice with up to " + FACE_MASK
+				+ " sides and scores in multiples of " + SCORE_UNIT + " up to "
+				+ SCORE_MASK * SCORE_UNIT + " - " + game.getRules() + " attempted.");
+		}
+		long result = 0;
+		for (int i = 0; i < dice.length; i++) {
+			result |= (long) dice[i].getValue() << (i * FACE_BITS);
+			if (dice[i].isLocked()) {
+				result |= 1L << (LOCK_SHIFT + i);
+			}
+		}
+
+		result |= (long) game.getState().ordinal() << STATE_SHIFT;
+		result |= (game.getRound() & ROUND_MASK) << ROUND_SHIFT;
+		return result;
+	}
+
+	/**
+	 * @return The scores of a game.
+	 * @throws IllegalArgumentException If a score is not a multiple of
+	 * 			SCORE_UNIT or doesn't fit.
+	 */
+	public static long encodeScores(Greed game) {
+		return packScore(game.getScoreTotal(), TOTAL)
+				| packScore(game.getScoreRound(), ROUND_SCORE)
+				| packScore(game.getScorePrevious(), PREVIOUS)
+				| packScore(game.getScoreRoundBonus(), BONUS);
+	}
+
+	/**
+	 * Writes the state of a game as LONGS longs.
+	 */
+	public static void encode(Greed game, long[] out, int offset) {
+		out[offset] = encodeDice(game);
+		out[offset + 1] = encodeScores(game);
+	}
+
+	/**
+	 * Restores a game to an encoded state without firing any events. The
+	 * random source of the game is left as it is.
+	 */
+	public static void decode(long dice, long scores, Greed game) {
+		Die[] gameDice = game.getDice();
+		for (int i = 0; i < gameDice.length; i++) {
+			gameDice[i].restore(getFace(dice, i), isLocked(dice, i));
+		}
+		game.restore(getState(dice), getRound(dice),
+				getScore(scores, TOTAL), getScore(scores, ROUND_SCORE),
+				getScore(scores, PREVIOUS), getScore(scores, BONUS));
+	}
+
+	public static void decode(long[] in, int offset, Greed game) {
+		decode(in[offset], in[offset + 1], game);
+	}
+
+	/**
+	 * @return A well mixed hash of an encoded state, for hash tables keyed by
+	 * 			game state.
+	 */
+	public static long hash(long dice, long scores) {
+		long h = dice * 0x9e3779b97f4a7c15L + scores;
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		return h ^ (h >>> 31);
+	}
+
+	public static long hash(Greed game) {
+		return hash(encodeDice(game), encodeScores(game));
+	}
+
+	public static int getFace(long dice, int die) {
+		return (int) (dice >>> (die * FACE_BITS)) & FACE_MASK;
+	}
+
+	public static boolean isLocked(long dice, int die) {
+		return (dice & (1L << (LOCK_SHIFT + die))) != 0;
+	}
+
+	public static Greed.State getState(long dice) {
+		return STATES[(int) (dice >>> STATE_SHIFT) & STATE_MASK];
+	}
+
+	public static int getRound(long dice) {
+		return (int) ((dice >>> ROUND_SHIFT) & ROUND_MASK);
+	}
+
+	public static int getScoreTotal(long scores) {
+		return getScore(scores, TOTAL);
+	}
+
+	public static int getScoreRound(long scores) {
+		return getScore(scores, ROUND_SCORE);
+	}
+
+	public static int getScorePrevious(long scores) {
+		return getScore(scores, PREVIOUS);
+	}
+
+	public static int getScoreRoundBonus(long scores) {
+		return getScore(scores, BONUS);
+	}
+
+	static long packScore(int score, int field) {
+		if (!fitsScore(score)) {
+			throw new IllegalArgumentException("Can only encode multiples of "
+				+ SCORE_UNIT + " up to " + SCORE_MASK * SCORE_UNIT
+				+ " - " + score + " attempted.");
+		}
+		return (long) (score / SCORE_UNIT) << (field * SCORE_BITS);
+	}
+
+	static int getScore(long scores, int field) {
+		return (int) (scores >>> (field * SCORE_BITS) & SCORE_MASK) * SCORE_UNIT;
+	}
+}
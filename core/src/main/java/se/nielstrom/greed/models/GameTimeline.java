@@ -0,0 +1,153 @@
+package se.nielstrom.greed.models;
+
+import java.util.Arrays;
+
+/**
+ * The states a game has been in, for undo and redo.
+ * 
+ * The states are kept packed in one growing array, the two longs of the
+ * {@link GameStateCodec} and the number of times the dice had been rolled,
+ * and the timeline points at the current one. Undoing and redoing only move
+ * the pointer, and adding a state after undoing drops the states that could
+ * have been redone, like in any editor. Every step therefore takes constant
+ * time, and a whole game of a few hundred moves fits in a few kilobytes.
+ * 
+ * The number of rolls lets a seeded game that is put back in a state
+ * {@link Greed#resume(long, int) resume} its dice from there too, so rolling
+ * again after an undo shows the same faces as before rather than a fresh
+ * chance.
+ */
+public class GameTimeline {
+	private static final int INITIAL_STATES = 64;
+	/** The longs kept per state: the state and the number of rolls. */
+	private static final int STRIDE = GameStateCodec.LONGS + 1;
+
+	private long[] states;
+	private int size;
+	private int position = -1;
+
+	public GameTimeline() {
+		states = new long[INITIAL_STATES * STRIDE];
+	}
+
+	/**
+	 * Restores a timeline saved with {@link #toLongArray()}.
+	 * 
+	 * @param position	The index of the current state, from
+	 * 					{@link #getPosition()}.
+	 */
+	public GameTimeline(long[] packed, int position) {
+		size = packed.length / STRIDE;
+		states = Arrays.copyOf(packed, Math.max(packed.length, INITIAL_STATES * STRIDE));
+		this.position = Math.min(position, size - 1);
+	}
+
+	/**
+	 * Makes the state of a game the current one.
+	 * 
+	 * @see #add(GameState, int)
+	 */
+	public void add(Greed game) {
+		add(game.getGameState(), game.getRolls());
+	}
+
+	/**
+	 * Makes a state the current one, dropping any states after the current.
+	 * A state equal to the current one is ignored.
+	 * 
+	 * @param rolls	The number of times the dice had been rolled, from
+	 * 				{@link Greed#getRolls()}.
+	 */
+	public void add(GameState state, int rolls) {
+		if (position >= 0 && state.equals(getCurrent()) && rolls == getRolls()) {
+			return;
+		}
+		size = position + 1;
+		if ((size + 1) * STRIDE > states.length) {
+			states = Arrays.copyOf(states, states.length * 2);
+		}
+		states[size * STRIDE] = state.getDice();
+		states[size * STRIDE + 1] = state.getScores();
+		states[size * STRIDE + 2] = rolls;
+		position = size++;
+	}
+
+	/**
+	 * @return The current state, or null if the timeline is empty.
+	 */
+	public GameState getCurrent() {
+		return position < 0 ? null : get(position);
+	}
+
+	/**
+	 * @return	The number of times the dice had been rolled in the current
+	 * 			state, or 0 if the timeline is empty.
+	 */
+	public int getRolls() {
+		return position < 0 ? 0 : (int) states[position * STRIDE + 2];
+	}
+
+	public boolean canUndo() {
+		return position > 0;
+	}
+
+	public boolean canRedo() {
+		return position < size - 1;
+	}
+
+	/**
+	 * Steps back to the state before the current one.
+	 * 
+	 * @return The new current state.
+	 * @throws IllegalStateException If there is nothing to undo.
+	 */
+	public GameState undo() {
+		if (!canUndo()) {
+			throw new IllegalStateException("Nothing to undo");
+		}
+		return get(--position);
+	}
+
+	/**
+	 * Steps forward to the state that was undone last.
+	 * 
+	 * @return The new current state.
+	 * @throws IllegalStateException If there is nothing to redo.
+	 */
+	public GameState redo() {
+		if (!canRedo()) {
+			throw new IllegalStateException("Nothing to redo");
+		}
+		return get(++position);
+	}
+
+	/**
+	 * Forgets all states.
+	 */
+	public void clear() {
+		size = 0;
+		position = -1;
+	}
+
+	/**
+	 * @return The number of states, including the ones that may be redone.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return All states, packed three longs each.
+	 */
+	public long[] toLongArray() {
+		return Arrays.copyOf(states, size * STRIDE);
+	}
+
+	private GameState get(int index) {
+		return GameState.valueOf(states[index * STRIDE], states[index * STRIDE + 1]);
+	}
+}
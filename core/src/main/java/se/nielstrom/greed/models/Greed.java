@@ -0,0 +1,816 @@
+package se.nielstrom.greed.models;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.List;
+
+import se.nielstrom.greed.journal.GameJournal;
+import se.nielstrom.greed.metrics.GameProbe;
+import se.nielstrom.greed.random.BulkDice;
+import se.nielstrom.greed.random.RandomSource;
+import se.nielstrom.greed.random.SplitMixSource;
+import se.nielstrom.greed.random.XoshiroSource;
+
+/**
+ * The Greed class implements the rules and functionality of the game.
+ * 
+ * Changes are delivered in batches. Every action, such as a roll, runs as one
+ * update, and callers can group several calls into one with
+ * {@link #beginUpdate()} and {@link #commitUpdate()}. Listeners of the game and
+ * of its dice hear nothing until the outermost update is committed, and then
+ * get one notification per changed die, one property change event per
+ * changed property and one {@link GameChange} with all of it.
+ * 
+ * @author Daniel Strm
+ */
+public class Greed {
+	//Default game "settings", see RuleSet for other variants
+	public static final int NR_OF_DICE = 6;
+	public static final int NR_OF_SIDES = 6;
+	public static final int MIN_SCORE = 300;
+	public static final int WINNING_SCORE = 10000;
+	
+	// String constants for property change events
+	public static final String ROUND_SCORE = "scoreRound";
+	public static final String TOTAL_SCORE = "scoreTotal";
+	public static final String ROUNDS = "rounds";
+	public static final String STATE = "state";
+	public static final String WIN = "win";
+
+	private static final BulkDice BULK_DICE = new BulkDice(NR_OF_SIDES);
+
+	private final RuleSet rules;
+	private final ScoreTable table;
+	private final Die[] dice;
+	private final int[] sideMasks = new int[RuleSet.MAX_SIDES + 1];
+	private int totalScore;
+	private int roundScore;
+	private int scoreRoundBonus;
+	private int previousScore;
+	private int round;
+
+	private RandomSource random;
+	private boolean seeded;
+	private long seed;
+	private int rolls;
+
+	private GameJournal journal;
+	private boolean acting;
+	private GameProbe probe;
+	private long updateStart;
+	
+	private PropertyChangeSupport propertyListeners;
+	private List<GameChangeListener> changeListeners;
+	private int updates;
+	private GameChange pending = new GameChange();
+	private GameChange spare = new GameChange();
+	
+	public static enum State {
+		BUST, LOW, OK, WIN
+	};
+	
+	private State state;
+	
+	public Greed() {
+		this(RuleSet.DEFAULT);
+	}
+
+	/**
+	 * Starts a game of a variant with its own rules.
+	 * 
+	 * @param rules The rules of the game.
+	 */
+	public Greed(RuleSet rules) {
+		this(rules, SplitMixSource.newSeed());
+	}
+
+	/**
+	 * Starts a game where the dice are rolled from a seed, which makes the game
+	 * possible to replay exactly.
+	 * 
+	 * @param seed The seed of the dice.
+	 */
+	public Greed(long seed) {
+		this(RuleSet.DEFAULT, seed);
+	}
+
+	public Greed(RuleSet rules, long seed) {
+		this(rules, new XoshiroSource(seed));
+		this.seeded = true;
+		this.seed = seed;
+	}
+
+	/**
+	 * Starts a game where the dice are rolled from the given source, which the
+	 * game will use from a single thread.
+	 * 
+	 * @param random The source of random numbers for the dice.
+	 */
+	public Greed(RandomSource random) {
+		this(RuleSet.DEFAULT, random);
+	}
+
+	/**
+	 * Starts a game of a variant where the dice are rolled from the given
+	 * source. The scoring table of the rules is compiled the first time any
+	 * game uses them.
+	 * 
+	 * @param rules		The rules of the game.
+	 * @param random	The source of random numbers for the dice.
+	 */
+	public Greed(RuleSet rules, RandomSource random) {
+		propertyListeners = new PropertyChangeSupport(this);
+		changeListeners = new ArrayList<>();
+		this.rules = rules;
+		this.table = ScoreTable.forRules(rules);
+		this.random = random;
+		dice = new Die[rules.getDice()];
+		for (int i=0; i<dice.length; i++) {
+			dice[i] = new Die(rules.getSides(), random);
+			dice[i].setOwner(this, i);
+		}
+
+		totalScore = 0;
+		roundScore = 0;
+		scoreRoundBonus = 0;
+		round = 0;
+		previousScore = 0;
+		state = State.BUST;
+	}
+
+	/**
+	 * Rolls the dice, validates the result and starts a new round as necessary.  
+	 * @return The game instance for chaining.
+	 */
+	public Greed roll() {
+		beginUpdate(GameChange.ROLL);
+		try {
+			acting = true;
+			if (allDiceAreLocked() && allDiceAreUsed()) {
+				scoreRoundBonus += getScoreRound();
+				setAllDiceLocked(false);
+			}
+
+			previousScore = (getState() == State.OK) ? getScoreRound() : 0;
+		
+			rollDice();
+		
+			int score = calculateScore() + scoreRoundBonus;
+
+			if (getState() == State.OK && score <= getScoreRound()) { // Bust
+				setRound(getRound() + 1);
+				setAllDiceLocked(false);
+				scoreRoundBonus = 0;
+				setState(State.BUST);
+			} else if (score < rules.getMinScore()-1) { // Low score
+				setRound(getRound() + 1);
+				setAllDiceLocked(false);
+				scoreRoundBonus = 0;
+				setState(State.LOW);
+			} else {
+				setState(State.OK);
+			}
+
+			setScoreRound(score);
+
+			acting = false;
+			record(GameJournal.ROLL, 0);
+		} finally {
+			endAction();
+		}
+		return this;
+	}
+
+	/**
+	 * Transfers the round score to the total score and starts a new round. Also
+	 * checks if the game has been won.
+	 * 
+	 * @return The game instance for chaining.
+	 */
+	public Greed claim() {
+		if (getState() == State.OK) {
+			beginUpdate(GameChange.CLAIM);
+			try {
+				acting = true;
+				appendScoreTotal(calculateScore() + scoreRoundBonus);
+				setScoreRound(0);
+				scoreRoundBonus = 0;
+				setAllDiceLocked(false);
+				setRound( getRound() + 1 );
+				setState(State.BUST);
+				
+				if (getScoreTotal() >= rules.getWinningScore()) {
+					setState(State.WIN);
+				}
+				acting = false;
+				record(GameJournal.CLAIM, 0);
+			} finally {
+				endAction();
+			}
+		}
+		return this;
+	}
+
+	
+	/**
+	 * Can be called to update the score. Only counts locked dice.
+	 * 
+	 * @return True if the score is high enough to claim, False otherwise.
+	 */
+	public boolean updateScore() {
+		// Only care about locked dice
+		int score = table.score(packDice(true)) + scoreRoundBonus;
+	
+		beginUpdate(GameChange.UPDATE_SCORE);
+		try {
+			setScoreRound(score); // Update the score
+		} finally {
+			commitUpdate();
+		}
+		return getState() != State.OK || score > Math.max(rules.getMinScore()-1, previousScore);
+	}
+
+	/**
+	 * Finds every distinct set of rolled dice that may be locked, such that
+	 * all locked dice still score. Dice showing the same side are
+	 * interchangeable, so only one keep is given per combination of sides,
+	 * made of the first unlocked dice showing them. Nothing is allocated.
+	 * 
+	 * @param keeps		Receives the keeps, read with {@link Keeps}. Needs room
+	 * 					for {@link Keeps#MAX} of them after offset.
+	 * @param offset	The first index to fill.
+	 * @return			The number of keeps found, 0 if no rolled die scores.
+	 */
+	public int findKeeps(int[] keeps, int offset) {
+		for (int side = 1; side <= rules.getSides(); side++) {
+			sideMasks[side] = 0;
+		}
+		int locked = ScoreTable.EMPTY;
+		int rolled = 0;
+		for (int i=0; i<dice.length; i++) {
+			if (dice[i].isLocked()) {
+				locked = ScoreTable.add(locked, dice[i].getValue());
+			} else {
+				sideMasks[dice[i].getValue()] |= 1 << i;
+				rolled |= 1 << i;
+			}
+		}
+
+		return addKeeps(1, locked, table.score(locked), rolled, 0, keeps, offset, 0);
+	}
+
+	/**
+	 * Recursively chooses how many of the dice showing each side to keep.
+	 * 
+	 * @return The number of keeps found so far.
+	 */
+	private int addKeeps(int side, int code, int lockedScore, int rolled, int mask,
+			int[] keeps, int offset, int found) {
+		if (side > rules.getSides()) {
+			if (mask != 0 && table.allUsed(code)) {
+				keeps[offset + found] = Keeps.pack(mask, mask == rolled, table.score(code) - lockedScore);
+				found++;
+			}
+			return found;
+		}
+
+		int available = sideMasks[side];
+		while (true) {
+			found = addKeeps(side + 1, code, lockedScore, rolled, mask, keeps, offset, found);
+			if (available == 0) {
+				return found;
+			}
+			int die = available & -available; // the first die left showing the side
+			available &= ~die;
+			mask |= die;
+			code = ScoreTable.add(code, side);
+		}
+	}
+
+	/**
+	 * Resets the game instance in preparation for a new game
+	 * @return The game instance for chaining.
+	 */
+	public Greed reset() {
+		beginUpdate(GameChange.RESET);
+		try {
+			acting = true;
+			setRound(0);
+			setScoreTotal(0);
+			setScoreRound(0);
+			scoreRoundBonus = 0;
+			previousScore = 0;
+			for(Die die : dice) {
+				die.setValue(rules.getSides());
+				die.setLocked(false);
+			}
+			acting = false;
+			record(GameJournal.RESET, 0);
+		} finally {
+			endAction();
+		}
+		return this;
+	}
+
+	public Die[] getDice() {
+		return dice;
+	}
+
+	public RuleSet getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return The compiled scoring table of the rules, for strategies that
+	 * 			score combinations of their own.
+	 */
+	public ScoreTable getScoreTable() {
+		return table;
+	}
+
+	public int getRound() {
+		return round;
+	}
+
+	public Greed setRound(int round) {
+		beginUpdate();
+		pending.setRound(this.round, round);
+		this.round = round;
+		return commitUpdate();
+	}
+	
+	public State getState() {
+		return state;
+	}
+
+	public Greed setState(State state) {
+		if (this.state != state) {			
+			beginUpdate();
+			pending.setState(this.state, state);
+			this.state = state;
+			commitUpdate();
+		}
+		return this;
+	}
+
+	public int getScoreRound() {
+		return roundScore;
+	}
+
+	public Greed setScoreRound(int roundScore) {
+		beginUpdate();
+		pending.setScoreRound(this.roundScore, roundScore);
+		this.roundScore = roundScore;
+		return commitUpdate();
+	}
+
+	/**
+	 * @return The points carried over within the round from earlier rolls where
+	 * 			all dice were used.
+	 */
+	public int getScoreRoundBonus() {
+		return scoreRoundBonus;
+	}
+
+	/**
+	 * @return The round score before the last roll, which the locked dice have
+	 * 			to beat for the round to go on.
+	 */
+	public int getScorePrevious() {
+		return previousScore;
+	}
+
+	public int getScoreTotal() {
+		return totalScore;
+	}
+
+	public Greed setScoreTotal(int totalScore) {
+		beginUpdate();
+		pending.setScoreTotal(this.totalScore, totalScore);
+		this.totalScore = totalScore;
+		return commitUpdate();
+	}
+
+	public Greed appendScoreTotal(int score) {
+		setScoreTotal(getScoreTotal() + score);
+		return this;
+	}
+
+	/**
+	 * @return The state of the game as an immutable value, which costs two
+	 * 			longs rather than a copy of the game.
+	 */
+	public GameState getGameState() {
+		return GameState.of(this);
+	}
+
+	/**
+	 * Puts the game in a state, such as one that was undone, as one update
+	 * that tells the listeners about everything that differs. Nothing is
+	 * rolled, and the dice keep rolling from the same source. The journal
+	 * records it as a {@link GameJournal#RESTORE RESTORE}.
+	 * 
+	 * @return The game instance for chaining.
+	 */
+	public Greed setGameState(GameState state) {
+		beginUpdate();
+		try {
+			acting = true;
+			for (int i=0; i<dice.length; i++) {
+				if (dice[i].getValue() != state.getFace(i)) {
+					dice[i].setLocked(false); // Locked dice keep their value
+					dice[i].setValue(state.getFace(i));
+				}
+				dice[i].setLocked(state.isLocked(i));
+			}
+			setRound(state.getRound());
+			setScoreTotal(state.getScoreTotal());
+			setScoreRound(state.getScoreRound());
+			previousScore = state.getScorePrevious();
+			scoreRoundBonus = state.getScoreRoundBonus();
+			setState(state.getState());
+			acting = false;
+			record(GameJournal.RESTORE, 0);
+		} finally {
+			endAction();
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the whole state of the game at once without firing any events, for
+	 * the {@link GameStateCodec}.
+	 */
+	void restore(State state, int round, int totalScore, int roundScore,
+			int previousScore, int scoreRoundBonus) {
+		this.state = state;
+		this.round = round;
+		this.totalScore = totalScore;
+		this.roundScore = roundScore;
+		this.previousScore = previousScore;
+		this.scoreRoundBonus = scoreRoundBonus;
+	}
+
+	/**
+	 * Starts an update. Nothing is delivered to any listener until every
+	 * started update has been committed.
+	 * 
+	 * @return The game instance for chaining.
+	 */
+	public Greed beginUpdate() {
+		if (updates++ == 0 && probe != null) {
+			updateStart = System.nanoTime();
+		}
+		return this;
+	}
+
+	/**
+	 * Ends an update. Ending the outermost one delivers everything that
+	 * changed since it began.
+	 * 
+	 * @return The game instance for chaining.
+	 */
+	public Greed commitUpdate() {
+		if (updates == 0) {
+			throw new IllegalStateException("No update to commit");
+		} else if (--updates > 0) {
+			return this;
+		}
+
+		// Listeners may start updates of their own while this one is delivered
+		GameChange change = pending;
+		pending = (spare != null) ? spare : new GameChange();
+		spare = null;
+
+		long start = updateStart;
+		int dieEvents = 0;
+		int changedDice = change.getChangedDice();
+		for (int i=0; i<dice.length; i++) {
+			if ((changedDice & (1 << i)) != 0) {
+				dieEvents += dice[i].notifyListeners();
+			}
+		}
+
+		int propertyEvents = 0;
+		int changeEvents = 0;
+		int changed = change.getChanged();
+		if (changed != 0) {
+			propertyEvents = firePropertyChanges(change, changed);
+			for (GameChangeListener listener : changeListeners) {
+				listener.onGameChanged(this, change);
+				changeEvents++;
+			}
+		}
+
+		if (probe != null) {
+			probe.onUpdate(this, change.getActions(), System.nanoTime() - start, dieEvents,
+					propertyEvents, changeEvents);
+		}
+
+		change.clear();
+		spare = change;
+		return this;
+	}
+
+	private void beginUpdate(int action) {
+		beginUpdate();
+		pending.addAction(action);
+	}
+
+	/**
+	 * Ends an action of the game, also when it failed, so that a failed
+	 * action doesn't hold back every later update.
+	 */
+	private void endAction() {
+		acting = false;
+		commitUpdate();
+	}
+
+	/**
+	 * Fires the string keyed events, unless nobody listens to them.
+	 * 
+	 * @return The number of events fired.
+	 */
+	private int firePropertyChanges(GameChange change, int changed) {
+		if (!propertyListeners.hasListeners(null)) {
+			return 0;
+		}
+		if ((changed & GameChange.ROUND_SCORE) != 0) {
+			propertyListeners.firePropertyChange(ROUND_SCORE, change.getOldScoreRound(), change.getNewScoreRound());
+		}
+		if ((changed & GameChange.TOTAL_SCORE) != 0) {
+			propertyListeners.firePropertyChange(TOTAL_SCORE, change.getOldScoreTotal(), change.getNewScoreTotal());
+		}
+		if ((changed & GameChange.ROUNDS) != 0) {
+			propertyListeners.firePropertyChange(ROUNDS, change.getOldRound(), change.getNewRound());
+		}
+		if ((changed & GameChange.STATE) != 0) {
+			propertyListeners.firePropertyChange(STATE, change.getOldState(), change.getNewState());
+		}
+		return Integer.bitCount(changed & (GameChange.ROUND_SCORE | GameChange.TOTAL_SCORE
+				| GameChange.ROUNDS | GameChange.STATE));
+	}
+
+	/**
+	 * Called by a die when its value is set.
+	 * 
+	 * @return True if its listeners should be told later, when the update is
+	 * 			committed.
+	 */
+	boolean deferValueChange(int index) {
+		if (updates == 0) {
+			probeDieChange(index);
+			return false;
+		}
+		pending.setValueChanged(index);
+		return true;
+	}
+
+	/**
+	 * Called by a die when it's locked or unlocked.
+	 * 
+	 * @return True if its listeners should be told later, when the update is
+	 * 			committed.
+	 */
+	boolean deferLockChange(int index, boolean changed) {
+		if (updates == 0) {
+			probeDieChange(index);
+			return false;
+		} else if (changed) {
+			pending.setLockChanged(index);
+		}
+		return true;
+	}
+
+	private void probeDieChange(int index) {
+		if (probe != null) {
+			probe.onDieChange(this, index, dice[index].getListenerCount());
+		}
+	}
+
+	/**
+	 * Reports the work done by every update from now on to a probe, such as
+	 * {@link se.nielstrom.greed.metrics.GameMetrics GameMetrics}.
+	 * 
+	 * @param probe The probe, or null to stop reporting.
+	 */
+	public Greed setProbe(GameProbe probe) {
+		this.probe = probe;
+		updateStart = System.nanoTime(); // In case an update is underway
+		return this;
+	}
+
+	public GameProbe getProbe() {
+		return probe;
+	}
+
+	/**
+	 * Records everything the game does from now on in a journal. Attaching
+	 * records nothing, so a game attached again, such as after a rotation,
+	 * goes on as the same game in the journal. Whoever starts a new game
+	 * records {@link GameJournal#START}, a reset is recorded by the game.
+	 * 
+	 * @param journal The journal, or null to stop recording.
+	 * @throws IllegalArgumentException If the rules of the game don't fit the
+	 * 			{@link GameStateCodec} that the journal records states with.
+	 */
+	public Greed setJournal(GameJournal journal) {
+		if (journal != null && !GameStateCodec.fits(rules)) {
+			throw new IllegalArgumentException("Can't record games of " + rules);
+		}
+		this.journal = journal;
+		return this;
+	}
+
+	/**
+	 * Called by the dice when the player locks or unlocks one.
+	 */
+	void onDieLocked(int index) {
+		if (!acting) {
+			record(GameJournal.LOCK, index);
+		}
+	}
+
+	private void record(int type, int argument) {
+		if (journal != null) {
+			journal.record(type, argument, this);
+		}
+	}
+
+	/**
+	 * @return True if the dice are rolled from a seed, which
+	 * 			{@link #getSeed()} returns.
+	 */
+	public boolean isSeeded() {
+		return seeded;
+	}
+
+	/**
+	 * @return The seed the dice are rolled from. Replaying the same actions on
+	 * 			a new Greed(seed) gives the same game.
+	 */
+	public long getSeed() {
+		if (!seeded) {
+			throw new IllegalStateException("The game is not seeded");
+		}
+		return seed;
+	}
+
+	/**
+	 * @return The number of times the dice have been rolled, which together
+	 * 			with the seed tells where in its stream a seeded game is.
+	 */
+	public int getRolls() {
+		return rolls;
+	}
+
+	/**
+	 * Continues a seeded game where it was left off, after its state has been
+	 * restored with the {@link GameStateCodec}.
+	 * 
+	 * @param seed	The seed the game was started with.
+	 * @param rolls	The number of times the dice had been rolled.
+	 * @return		The game instance for chaining.
+	 */
+	public Greed resume(long seed, int rolls) {
+		setRandom(new XoshiroSource(seed));
+		for (int i=0; i<rolls*dice.length; i++) {
+			random.nextInt(rules.getSides());
+		}
+		this.seeded = true;
+		this.seed = seed;
+		this.rolls = rolls;
+		return this;
+	}
+
+	/**
+	 * @return The source of random numbers for the dice.
+	 */
+	public RandomSource getRandom() {
+		return random;
+	}
+
+	/**
+	 * Changes the source of random numbers for the dice. The game is no longer
+	 * seeded afterwards.
+	 */
+	public Greed setRandom(RandomSource random) {
+		this.random = random;
+		seeded = false;
+		for (Die die : dice) {
+			die.setRandom(random);
+		}
+		return this;
+	}
+
+	public Greed setAllDiceLocked(boolean locked) {
+		for (Die die : dice) {
+			die.setLocked(locked);
+		}
+		return this;
+	}
+
+	private Greed rollDice() {
+		for (Die die : dice) {
+			die.roll();
+		}
+		rolls++;
+		return this;
+	}
+
+	/**
+	 * Rolls many dice of the default rules at once, for simulations and odds
+	 * calculations. Takes its own source rather than the one of a game, so
+	 * that seeded games draw the same numbers whether this is used or not.
+	 * 
+	 * @param random	The source to roll from.
+	 * @param faces		Receives faces from 1 to NR_OF_SIDES.
+	 * @param offset	The first index to fill.
+	 * @param length	The number of faces to roll.
+	 */
+	public static void rollFaces(RandomSource random, int[] faces, int offset, int length) {
+		BULK_DICE.roll(random, faces, offset, length);
+	}
+
+	/**
+	 * Like {@link #rollFaces(RandomSource, int[], int, int)}, into a more
+	 * compact buffer.
+	 */
+	public static void rollFaces(RandomSource random, byte[] faces, int offset, int length) {
+		BULK_DICE.roll(random, faces, offset, length);
+	}
+
+	private boolean allDiceAreLocked() {
+		for (Die die : dice) {
+			if (!die.isLocked()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return True if all dice contribute points to the total score, False
+	 * 			otherwise
+	 */
+	private boolean allDiceAreUsed() {
+		return table.allUsed(packDice(false));
+	}
+
+	/**
+	 * Calculates the score of all the instance dice.
+	 * 
+	 * Package-private so the benchmarks can reach it.
+	 * 
+	 * @return		The total score for all dice.
+	 */
+	int calculateScore() {
+		return table.score(packDice(false));
+	}
+
+	/**
+	 * Packs the sides of the instance dice into a {@link ScoreTable} code.
+	 * 
+	 * @param lockedOnly	True to only include locked dice.
+	 */
+	private int packDice(boolean lockedOnly) {
+		int code = ScoreTable.EMPTY;
+		for (Die die : dice) {
+			if (!lockedOnly || die.isLocked()) {
+				code = ScoreTable.add(code, die.getValue());
+			}
+		}
+		return code;
+	}
+	
+	/**
+	 * Adds a listener that gets one {@link GameChange} per update instead of
+	 * an event per property.
+	 */
+	public void addGameChangeListener(GameChangeListener listener) {
+		changeListeners.add(listener);
+	}
+
+	public void removeGameChangeListener(GameChangeListener listener) {
+		changeListeners.remove(listener);
+	}
+
+	public void addPropertyChangeListener(PropertyChangeListener listener) {
+        propertyListeners.addPropertyChangeListener(listener);
+    }
+    
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        propertyListeners.removePropertyChangeListener(listener);
+    }
+
+	/**
+	 * Listener interface for typed, batched changes of a game.
+	 */
+	public interface GameChangeListener {
+		/**
+		 * @param change Only valid during the call.
+		 */
+		public void onGameChanged(Greed game, GameChange change);
+	}
+}
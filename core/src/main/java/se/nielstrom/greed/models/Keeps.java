@@ -0,0 +1,49 @@
+package se.nielstrom.greed.models;
+
+/**
+ * Reads the keeps written by {@link Greed#findKeeps(int[], int)}. A keep is a
+ * set of rolled dice that may be locked, packed into an int:
+ * <pre>
+ *  bits  0-7	a bit per die of the game, set for the dice to lock
+ *  bit     8	set if locking the dice leaves every die locked and scoring,
+ *  		which means the next roll is of all dice again
+ *  bits 16-31	the points the keep adds to the round score
+ * </pre>
+ */
+public final class Keeps {
+	/** The most keeps a roll can have, and so the room a buffer needs. */
+	public static final int MAX = 1 << RuleSet.MAX_DICE;
+
+	private static final int MASK_BITS = 0xff;
+	private static final int ALL_DICE = 1 << 8;
+	private static final int SCORE_SHIFT = 16;
+
+	private Keeps() {
+	}
+
+	static int pack(int mask, boolean allDice, int score) {
+		return mask | (allDice ? ALL_DICE : 0) | (score << SCORE_SHIFT);
+	}
+
+	/**
+	 * @return The dice of a keep, bit i standing for getDice()[i].
+	 */
+	public static int getMask(int keep) {
+		return keep & MASK_BITS;
+	}
+
+	/**
+	 * @return The points the keep adds to the round score.
+	 */
+	public static int getScore(int keep) {
+		return keep >> SCORE_SHIFT;
+	}
+
+	/**
+	 * @return True if the keep uses all dice, so that they are all rolled
+	 * 			again.
+	 */
+	public static boolean usesAllDice(int keep) {
+		return (keep & ALL_DICE) != 0;
+	}
+}
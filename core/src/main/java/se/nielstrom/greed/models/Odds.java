@@ -0,0 +1,161 @@
+package se.nielstrom.greed.models;
+
+/**
+ * Exact odds of the next roll, for every number of dice that can be rolled.
+ * 
+ * Every combination of each number of dice is scored once with a
+ * {@link ScoreTable} and weighted by the number of ordered rolls that make it
+ * up, which gives the probability of rolling nothing that scores (a bust) and
+ * the distribution of the best gain, the points of all scoring dice rolled.
+ * Afterwards every lookup is a plain array access, cheap enough to do on
+ * every tap.
+ * 
+ * The odds are those of the rolled dice on their own. Dice locked earlier in
+ * the round can occasionally add to a roll, such as a third one to a pair of
+ * locked ones, which is not taken into account.
+ */
+public final class Odds {
+	private final ScoreTable table;
+	private final int unit;
+	private final double[] bust;
+	private final double[] expected;
+	private final double[][] gains;
+	private final double[][] atLeast;
+
+	/**
+	 * Calculates the odds of every number of dice of the rules of a table.
+	 */
+	public Odds(ScoreTable table) {
+		this.table = table;
+		RuleSet rules = table.getRules();
+		int dice = rules.getDice();
+		int sides = rules.getSides();
+
+		// Points are counted in the largest unit that all scores are made of
+		int[] scores = new int[2]; // the unit and the highest score
+		scan(scores, 1, dice, ScoreTable.EMPTY);
+		this.unit = Math.max(scores[0], 1);
+		int maxScore = scores[1];
+
+		bust = new double[dice + 1];
+		expected = new double[dice + 1];
+		gains = new double[dice + 1][];
+		atLeast = new double[dice + 1][];
+		for (int n = 1; n <= dice; n++) {
+			gains[n] = new double[maxScore / this.unit + 1];
+			fill(gains[n], 1, n, ScoreTable.EMPTY, Math.pow(sides, -n) * factorial(n));
+
+			bust[n] = gains[n][0];
+			atLeast[n] = new double[gains[n].length + 1];
+			for (int i = gains[n].length - 1; i >= 0; i--) {
+				atLeast[n][i] = atLeast[n][i + 1] + gains[n][i];
+				expected[n] += gains[n][i] * i * this.unit;
+			}
+		}
+	}
+
+	public ScoreTable getTable() {
+		return table;
+	}
+
+	/**
+	 * @param dice	The number of dice rolled, 1 through the dice of the rules.
+	 * @return		The probability that no rolled die scores.
+	 */
+	public double getBustProbability(int dice) {
+		return bust[dice];
+	}
+
+	/**
+	 * @return The average points of all scoring dice of a roll, busts
+	 * 			included as 0.
+	 */
+	public double getExpectedGain(int dice) {
+		return expected[dice];
+	}
+
+	/**
+	 * @return The highest number of points a roll can give.
+	 */
+	public int getMaxGain(int dice) {
+		double[] distribution = gains[dice];
+		int i = distribution.length - 1;
+		while (i > 0 && distribution[i] == 0) {
+			i--;
+		}
+		return i * unit;
+	}
+
+	/**
+	 * @return The probability that a roll gives exactly the given points.
+	 */
+	public double getGainProbability(int dice, int gain) {
+		int i = gain / unit;
+		if (gain < 0 || gain % unit != 0 || i >= gains[dice].length) {
+			return 0;
+		}
+		return gains[dice][i];
+	}
+
+	/**
+	 * @return The probability that a roll gives at least the given points.
+	 */
+	public double getProbabilityAtLeast(int dice, int gain) {
+		if (gain <= 0) {
+			return 1;
+		}
+		int i = (gain + unit - 1) / unit;
+		return i < atLeast[dice].length ? atLeast[dice][i] : 0;
+	}
+
+	/**
+	 * Recursively finds the greatest common divisor and the highest of the
+	 * scores of all combinations.
+	 */
+	private void scan(int[] scores, int side, int remaining, int code) {
+		if (side > table.getRules().getSides()) {
+			int score = table.score(code);
+			scores[0] = gcd(scores[0], score);
+			scores[1] = Math.max(scores[1], score);
+			return;
+		}
+
+		for (int count = 0; count <= remaining; count++) {
+			scan(scores, side + 1, remaining - count, code);
+			code = ScoreTable.add(code, side);
+		}
+	}
+
+	/**
+	 * Recursively enumerates the combinations of a number of dice and adds
+	 * their probabilities to the gain they give.
+	 * 
+	 * @param weight	The probability of one ordered roll times the number of
+	 * 					orders of the dice chosen so far.
+	 */
+	private void fill(double[] distribution, int side, int remaining, int code, double weight) {
+		if (side > table.getRules().getSides()) {
+			if (remaining == 0) {
+				distribution[table.score(code) / unit] += weight;
+			}
+			return;
+		}
+
+		for (int count = 0; count <= remaining; count++) {
+			fill(distribution, side + 1, remaining - count, code, weight / factorial(count));
+			code = ScoreTable.add(code, side);
+		}
+	}
+
+	private static double factorial(int n) {
+		double result = 1;
+		for (int i = 2; i <= n; i++) {
+			result *= i;
+		}
+		return result;
+	}
+
+	private static int gcd(int a, int b) {
+		return b == 0 ? a : gcd(b, a % b);
+	}
+}
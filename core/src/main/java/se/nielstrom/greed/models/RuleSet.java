@@ -0,0 +1,214 @@
+package se.nielstrom.greed.models;
+
+/**
+ * The rules of a variant of Greed: how many dice there are, how many sides
+ * they have, the score needed to get going and to win, and what a ladder is
+ * worth.
+ * 
+ * The scoring itself follows the same pattern in every variant. Three dice of
+ * a kind score 1000 for ones and 100 times the side for the others, single
+ * ones score 100 and single fives 50. A ladder is one die of each side in a
+ * run, using every die, and scores {@link #getLadderScore()}.
+ * 
+ * The methods here calculate scores from scratch and are only meant to be
+ * called once per combination, when a {@link ScoreTable} is compiled for the
+ * rules. Rule sets are immutable and equal when their rules are, so they can
+ * key the tables.
+ */
+public final class RuleSet {
+	/** The rules of the original game. */
+	public static final RuleSet DEFAULT = new RuleSet(Greed.NR_OF_DICE,
+			Greed.NR_OF_SIDES, Greed.MIN_SCORE, Greed.WINNING_SCORE, 1000);
+
+	/** The most sides that fit in a {@link ScoreTable} code. */
+	public static final int MAX_SIDES = 8;
+
+	/** The most dice whose count of a side fits in a ScoreTable code. */
+	public static final int MAX_DICE = 7;
+
+	private final int dice;
+	private final int sides;
+	private final int minScore;
+	private final int winningScore;
+	private final int ladderScore;
+
+	/**
+	 * @param dice			The number of dice, 1 through MAX_DICE.
+	 * @param sides			The number of sides of each die, 1 through
+	 * 						MAX_SIDES.
+	 * @param minScore		The round score needed to keep rolling.
+	 * @param winningScore	The total score that wins the game.
+	 * @param ladderScore	The score of a ladder.
+	 */
+	public RuleSet(int dice, int sides, int minScore, int winningScore, int ladderScore) {
+		if (dice < 1 || dice > MAX_DICE) {
+			throw new IllegalArgumentException("Need 1 to " + MAX_DICE
+					+ " dice - " + dice + " attempted.");
+		} else if (sides < 1 || sides > MAX_SIDES) {
+			throw new IllegalArgumentException("Need 1 to " + MAX_SIDES
+					+ " sides - " + sides + " attempted.");
+		}
+		this.dice = dice;
+		this.sides = sides;
+		this.minScore = minScore;
+		this.winningScore = winningScore;
+		this.ladderScore = ladderScore;
+	}
+
+	public int getDice() {
+		return dice;
+	}
+
+	public int getSides() {
+		return sides;
+	}
+
+	public int getMinScore() {
+		return minScore;
+	}
+
+	public int getWinningScore() {
+		return winningScore;
+	}
+
+	public int getLadderScore() {
+		return ladderScore;
+	}
+
+	/**
+	 * @return A copy of these rules with a different number of dice.
+	 */
+	public RuleSet withDice(int dice) {
+		return new RuleSet(dice, sides, minScore, winningScore, ladderScore);
+	}
+
+	/**
+	 * @return A copy of these rules with a different number of sides.
+	 */
+	public RuleSet withSides(int sides) {
+		return new RuleSet(dice, sides, minScore, winningScore, ladderScore);
+	}
+
+	/**
+	 * @return A copy of these rules with a different score to get going.
+	 */
+	public RuleSet withMinScore(int minScore) {
+		return new RuleSet(dice, sides, minScore, winningScore, ladderScore);
+	}
+
+	/**
+	 * @return A copy of these rules with a different score to win.
+	 */
+	public RuleSet withWinningScore(int winningScore) {
+		return new RuleSet(dice, sides, minScore, winningScore, ladderScore);
+	}
+
+	/**
+	 * @return A copy of these rules with a different score for a ladder.
+	 */
+	public RuleSet withLadderScore(int ladderScore) {
+		return new RuleSet(dice, sides, minScore, winningScore, ladderScore);
+	}
+
+	/**
+	 * Calculates the score of a combination from scratch.
+	 * 
+	 * @param counts	The number of dice showing each side, counts[side - 1].
+	 */
+	int score(int[] counts) {
+		if (isLadder(counts)) {
+			return ladderScore;
+		}
+
+		// Calculate the score for each kind of side
+		int score = 0;
+		for (int side = 1; side <= sides; side++) {
+			score += scoreHelper(side, counts[side - 1]);
+		}
+		return score;
+	}
+
+	/**
+	 * Decides from scratch if all dice of a combination contribute points.
+	 */
+	boolean allUsed(int[] counts) {
+		if (!isLadder(counts)) {
+			for (int side = 1; side <= sides; side++) { // for each kind of die
+				if ((side != 1 && side != 5) // if the side is not 1 or 5
+						&& counts[side - 1] % 3 != 0) { // and the number of dice is not a multiple of 3
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return True if every die shows a different side and the sides form a
+	 * 			run.
+	 */
+	private boolean isLadder(int[] counts) {
+		int distinct = 0;
+		for (int side = 1; side <= sides; side++) {
+			if (counts[side - 1] > 1) {
+				return false;
+			} else if (counts[side - 1] == 1) {
+				if (distinct > 0 && counts[side - 2] == 0) { // a gap in the run
+					return false;
+				}
+				distinct++;
+			}
+		}
+		return dice > 1 && distinct == dice;
+	}
+
+	/**
+	 * Recursive method which returns the score for a number of dice showing
+	 * the same side.
+	 * 
+	 * @param side		The side shown by each dice.
+	 * @param number	The number of dice showing said side.
+	 * @return			The calculated score
+	 */
+	private static int scoreHelper(int side, int number) {
+		if (number >= 3) {
+			int score = (side == 1) ? 1000 : 100 * side;
+			return score + scoreHelper(side, number - 3);
+		} else if (side == 1) {
+			return number * 100;
+		} else if (side == 5) {
+			return number * 50;
+		} else {
+			return 0;
+		}
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof RuleSet)) {
+			return false;
+		}
+		RuleSet rules = (RuleSet) other;
+		return dice == rules.dice && sides == rules.sides
+				&& minScore == rules.minScore
+				&& winningScore == rules.winningScore
+				&& ladderScore == rules.ladderScore;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = dice;
+		hash = 31 * hash + sides;
+		hash = 31 * hash + minScore;
+		hash = 31 * hash + winningScore;
+		hash = 31 * hash + ladderScore;
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return dice + "d" + sides + " min " + minScore + " win " + winningScore
+				+ " ladder " + ladderScore;
+	}
+}
@@ -0,0 +1,233 @@
+package se.nielstrom.greed.models;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Precomputed scores for every combination of dice that can occur in a game
+ * with a given {@link RuleSet}.
+ * 
+ * A combination is described by a packed code which holds the number of dice
+ * showing each side, three bits per side. Since the order of the dice doesn't
+ * matter there are only 924 such combinations of zero through six six-sided
+ * dice, and each one is given a dense index into the score tables. Building a
+ * code and looking up its score or whether all of its dice are used is
+ * allocation free and takes constant time, whatever the rules.
+ * 
+ * The tables of a rule set are compiled the first time they are asked for and
+ * kept in a small cache shared by all games, so that games of the same
+ * variant share one table. The table of the default rules is always kept.
+ */
+public final class ScoreTable {
+	public static final int EMPTY = 0;
+	public static final int BITS_PER_SIDE = 3;
+	private static final int COUNT_MASK = (1 << BITS_PER_SIDE) - 1;
+
+	/** The number of tables of other rules than the default ones to keep. */
+	private static final int CACHE_SIZE = 8;
+
+	private static final Map<RuleSet, ScoreTable> CACHE =
+			new LinkedHashMap<RuleSet, ScoreTable>(CACHE_SIZE * 2, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<RuleSet, ScoreTable> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/** The table of the default rules. */
+	public static final ScoreTable DEFAULT = new ScoreTable(RuleSet.DEFAULT);
+
+	private final RuleSet rules;
+	private final int dice;
+	private final int sides;
+
+	/**
+	 * offsets[side][remaining][count] is the number of combinations that sort
+	 * before a combination with count dice showing side, given that remaining
+	 * dice are left to distribute among side and the sides after it.
+	 */
+	private final int[][][] offsets;
+	private final short[] scores;
+	private final boolean[] allUsed;
+
+	/** The number of distinct combinations of 0 through all dice. */
+	private final int combinations;
+
+	private ScoreTable(RuleSet rules) {
+		this.rules = rules;
+		dice = rules.getDice();
+		sides = rules.getSides();
+
+		offsets = new int[sides + 1][dice + 1][dice + 1];
+		for (int side = 1; side <= sides; side++) {
+			// The sides after this one plus an extra "blank" side which takes
+			// the dice not rolled, so that every combination has all dice.
+			int symbolsLeft = sides - side + 1;
+			for (int remaining = 0; remaining <= dice; remaining++) {
+				for (int count = 1; count <= remaining; count++) {
+					offsets[side][remaining][count] = offsets[side][remaining][count - 1]
+							+ combinations(remaining - count + 1, symbolsLeft);
+				}
+			}
+		}
+
+		combinations = combinations(dice, sides + 1);
+		scores = new short[combinations];
+		allUsed = new boolean[combinations];
+		fill(1, dice, EMPTY, new int[sides]);
+	}
+
+	/**
+	 * Returns the table of a rule set, compiling it unless it's cached.
+	 */
+	public static ScoreTable forRules(RuleSet rules) {
+		if (rules.equals(RuleSet.DEFAULT)) {
+			return DEFAULT;
+		}
+
+		synchronized (CACHE) {
+			ScoreTable table = CACHE.get(rules);
+			if (table == null) {
+				table = new ScoreTable(rules);
+				CACHE.put(rules, table);
+			}
+			return table;
+		}
+	}
+
+	public RuleSet getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return The number of distinct combinations of 0 through all dice, which
+	 * 			is one more than the highest {@link #index(int)}.
+	 */
+	public int getCombinations() {
+		return combinations;
+	}
+
+	/**
+	 * @param code	The packed code of a combination.
+	 * @param side	The side of the die to add (1 through
+	 * 				{@link RuleSet#MAX_SIDES}).
+	 * @return		The code of the combination with the die added.
+	 */
+	public static int add(int code, int side) {
+		return code + (1 << shift(side));
+	}
+
+	/**
+	 * @param code	The packed code of a combination.
+	 * @param side	The side of the die to remove, must be part of the code.
+	 * @return		The code of the combination with the die removed.
+	 */
+	public static int remove(int code, int side) {
+		return code - (1 << shift(side));
+	}
+
+	/**
+	 * @return The number of dice in the combination showing the given side.
+	 */
+	public static int count(int code, int side) {
+		return (code >>> shift(side)) & COUNT_MASK;
+	}
+
+	/**
+	 * @return The total number of dice in the combination.
+	 */
+	public static int size(int code) {
+		int size = 0;
+		for (int side = 1; side <= RuleSet.MAX_SIDES; side++) {
+			size += count(code, side);
+		}
+		return size;
+	}
+
+	/**
+	 * Packs a number of sides into a combination code.
+	 * 
+	 * @param sides	The sides shown by each die.
+	 */
+	public static int pack(int... sides) {
+		int code = EMPTY;
+		for (int side : sides) {
+			code = add(code, side);
+		}
+		return code;
+	}
+
+	/**
+	 * Maps a combination code to its dense index, ranging from 0 through
+	 * {@link #getCombinations()} - 1.
+	 */
+	public int index(int code) {
+		int index = 0;
+		int remaining = dice;
+		for (int side = 1; side <= sides; side++) {
+			int count = (code >>> shift(side)) & COUNT_MASK;
+			index += offsets[side][remaining][count];
+			remaining -= count;
+		}
+		return index;
+	}
+
+	/**
+	 * @return The total score for all dice in the combination.
+	 */
+	public int score(int code) {
+		return scores[index(code)];
+	}
+
+	/**
+	 * @return True if all dice in the combination contribute points to the
+	 * 			score, False otherwise.
+	 */
+	public boolean allUsed(int code) {
+		return allUsed[index(code)];
+	}
+
+	private static int shift(int side) {
+		return (side - 1) * BITS_PER_SIDE;
+	}
+
+	/**
+	 * Recursively enumerates every combination and stores its score.
+	 * 
+	 * @param side		The next side to choose a count for.
+	 * @param remaining	The number of dice that can still be added.
+	 * @param code		The combination built so far.
+	 * @param counts	The same combination as a count per side.
+	 */
+	private void fill(int side, int remaining, int code, int[] counts) {
+		if (side > sides) {
+			int score = rules.score(counts);
+			if (score > Short.MAX_VALUE) {
+				throw new IllegalArgumentException("Scores up to "
+						+ Short.MAX_VALUE + " supported - " + score + " attempted.");
+			}
+			int index = index(code);
+			scores[index] = (short) score;
+			allUsed[index] = rules.allUsed(counts);
+			return;
+		}
+
+		for (int count = 0; count <= remaining; count++) {
+			counts[side - 1] = count;
+			fill(side + 1, remaining - count, code + (count << shift(side)), counts);
+		}
+		counts[side - 1] = 0;
+	}
+
+	/**
+	 * @return The number of ways to distribute n dice among k sides.
+	 */
+	private static int combinations(int n, int k) {
+		// binomial(n + k - 1, k - 1)
+		long result = 1;
+		for (int i = 1; i < k; i++) {
+			result = result * (n + i) / i;
+		}
+		return (int) result;
+	}
+}
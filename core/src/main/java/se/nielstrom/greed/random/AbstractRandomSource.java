@@ -0,0 +1,29 @@
+package se.nielstrom.greed.random;
+
+/**
+ * Implements {@link #nextInt(int)} on top of {@link #nextLong()}.
+ */
+public abstract class AbstractRandomSource implements RandomSource {
+	private static final long MASK = 0xffffffffL;
+
+	/**
+	 * Maps 32 random bits onto the range with a multiplication instead of a
+	 * division, rejecting the few values that would make some results more
+	 * likely than others.
+	 */
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("The bound must be positive - " + bound + " given.");
+		}
+
+		long product = (nextLong() >>> 32) * bound;
+		if ((product & MASK) < bound) {
+			long threshold = (-bound & MASK) % bound;
+			while ((product & MASK) < threshold) {
+				product = (nextLong() >>> 32) * bound;
+			}
+		}
+		return (int) (product >>> 32);
+	}
+}
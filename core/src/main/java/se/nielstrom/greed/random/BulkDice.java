@@ -0,0 +1,109 @@
+package se.nielstrom.greed.random;
+
+/**
+ * Rolls many dice at once into primitive buffers, for simulations and other
+ * batch work where rolling {@link se.nielstrom.greed.models.Die Die} objects
+ * one at a time would cost far more than the rolls themselves.
+ * 
+ * Every 64-bit word drawn is cut into eight bytes, and each byte gives as many
+ * faces as its 256 values can hold. A byte that is too large to map onto those
+ * faces evenly is thrown away, which keeps every face equally likely. The
+ * faces of every byte value are looked up in a table. For six
+ * sided dice a byte holds three faces and is kept 216 times out of 256, so a
+ * word gives just over 20 faces on average, without any division.
+ */
+public final class BulkDice {
+	private static final int BYTE_VALUES = 256;
+	private static final int BYTES_PER_WORD = 8;
+
+	private final int sides;
+	private final int facesPerByte;
+	private final int limit;
+	private final byte[] table;
+
+	/**
+	 * @param sides The number of sides of the dice, from 2 up to 127.
+	 */
+	public BulkDice(int sides) {
+		if (sides < 2 || sides > Byte.MAX_VALUE) {
+			throw new IllegalArgumentException("Can only roll dice with 2 to "
+				+ Byte.MAX_VALUE + " sides - " + sides + " attempted.");
+		}
+		this.sides = sides;
+
+		int faces = 0;
+		int values = 1;
+		while (values * sides <= BYTE_VALUES) {
+			values *= sides;
+			faces++;
+		}
+		facesPerByte = faces;
+		limit = BYTE_VALUES / values * values;
+
+		// The faces of every byte value below the limit, one to sides
+		table = new byte[limit * facesPerByte];
+		for (int value = 0; value < limit; value++) {
+			int digits = value % values;
+			for (int i = 0; i < facesPerByte; i++) {
+				table[value * facesPerByte + i] = (byte) (digits % sides + 1);
+				digits /= sides;
+			}
+		}
+	}
+
+	public int getSides() {
+		return sides;
+	}
+
+	/**
+	 * Fills part of a buffer with faces from 1 to the number of sides.
+	 */
+	public void roll(RandomSource random, byte[] faces, int offset, int length) {
+		int end = offset + length;
+		int i = offset;
+		while (i < end) {
+			long word = random.nextLong();
+			for (int b = 0; b < BYTES_PER_WORD && i < end; b++) {
+				int value = (int) word & 0xff;
+				word >>>= 8;
+				if (value < limit) {
+					int from = value * facesPerByte;
+					int count = Math.min(facesPerByte, end - i);
+					for (int j = 0; j < count; j++) {
+						faces[i++] = table[from + j];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fills part of a buffer with faces from 1 to the number of sides.
+	 */
+	public void roll(RandomSource random, int[] faces, int offset, int length) {
+		int end = offset + length;
+		int i = offset;
+		while (i < end) {
+			long word = random.nextLong();
+			for (int b = 0; b < BYTES_PER_WORD && i < end; b++) {
+				int value = (int) word & 0xff;
+				word >>>= 8;
+				if (value < limit) {
+					int from = value * facesPerByte;
+					int count = Math.min(facesPerByte, end - i);
+					for (int j = 0; j < count; j++) {
+						faces[i++] = table[from + j];
+					}
+				}
+			}
+		}
+	}
+
+	public void roll(RandomSource random, byte[] faces) {
+		roll(random, faces, 0, faces.length);
+	}
+
+	public void roll(RandomSource random, int[] faces) {
+		roll(random, faces, 0, faces.length);
+	}
+}
@@ -0,0 +1,26 @@
+package se.nielstrom.greed.random;
+
+/**
+ * A source of random numbers for rolling dice. Unlike {@link java.util.Random}
+ * implementations make no promise of being thread safe, so every thread should
+ * use its own source, which {@link #split()} provides.
+ */
+public interface RandomSource {
+	/**
+	 * @return A uniformly distributed number from 0 (inclusive) up to bound
+	 * 			(exclusive).
+	 */
+	public int nextInt(int bound);
+
+	/**
+	 * @return 64 uniformly distributed bits.
+	 */
+	public long nextLong();
+
+	/**
+	 * Creates a new source whose numbers are independent of this one. A seeded
+	 * source splits deterministically, so that a simulation can hand each
+	 * thread its own stream and still be reproduced.
+	 */
+	public RandomSource split();
+}
@@ -0,0 +1,52 @@
+package se.nielstrom.greed.random;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The SplitMix64 generator, which is what {@code java.util.SplittableRandom}
+ * uses. The whole state is a single counter, so it's cheap to create and
+ * mostly used to seed other generators.
+ */
+public class SplitMixSource extends AbstractRandomSource {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final AtomicLong SEEDS = new AtomicLong(System.nanoTime());
+
+	private long state;
+
+	public SplitMixSource() {
+		this(newSeed());
+	}
+
+	public SplitMixSource(long seed) {
+		state = seed;
+	}
+
+	/**
+	 * @return A seed that differs from all others handed out by this process.
+	 */
+	public static long newSeed() {
+		return mix(SEEDS.addAndGet(GOLDEN_GAMMA) ^ System.nanoTime());
+	}
+
+	/**
+	 * Scrambles the bits of a value. Values next to each other give results
+	 * that look unrelated, which makes mix(seed + i) a stream seed for the i:th
+	 * part of some work.
+	 */
+	public static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+
+	@Override
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix(state);
+	}
+
+	@Override
+	public RandomSource split() {
+		return new SplitMixSource(nextLong());
+	}
+}
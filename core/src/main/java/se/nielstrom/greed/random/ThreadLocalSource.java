@@ -0,0 +1,35 @@
+package se.nielstrom.greed.random;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws from the {@link ThreadLocalRandom} of the calling thread. It can't be
+ * seeded, but it's safe to share between threads and costs nothing to create.
+ * 
+ * ThreadLocalRandom is only on Android from API level 21, so this source is
+ * for the simulator and the other desktop parts and is left out of the app.
+ */
+public final class ThreadLocalSource implements RandomSource {
+	public static final ThreadLocalSource INSTANCE = new ThreadLocalSource();
+
+	private ThreadLocalSource() {
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		return ThreadLocalRandom.current().nextInt(bound);
+	}
+
+	@Override
+	public long nextLong() {
+		return ThreadLocalRandom.current().nextLong();
+	}
+
+	/**
+	 * @return This source, since every thread already has a stream of its own.
+	 */
+	@Override
+	public RandomSource split() {
+		return this;
+	}
+}
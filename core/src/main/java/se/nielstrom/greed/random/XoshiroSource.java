@@ -0,0 +1,87 @@
+package se.nielstrom.greed.random;
+
+/**
+ * The xoshiro256** generator. It's fast, has a period of 2^256 - 1 and can
+ * jump 2^128 steps ahead, which gives every split a stream of its own that is
+ * guaranteed not to overlap any other.
+ */
+public class XoshiroSource extends AbstractRandomSource {
+	private static final long[] JUMP = {
+		0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL, 0x39abdc4529b1661cL
+	};
+
+	private long s0;
+	private long s1;
+	private long s2;
+	private long s3;
+
+	public XoshiroSource() {
+		this(SplitMixSource.newSeed());
+	}
+
+	/**
+	 * Expands a seed into the full state, so that similar seeds still give
+	 * unrelated streams.
+	 */
+	public XoshiroSource(long seed) {
+		SplitMixSource seeder = new SplitMixSource(seed);
+		s0 = seeder.nextLong();
+		s1 = seeder.nextLong();
+		s2 = seeder.nextLong();
+		s3 = seeder.nextLong();
+	}
+
+	private XoshiroSource(XoshiroSource other) {
+		s0 = other.s0;
+		s1 = other.s1;
+		s2 = other.s2;
+		s3 = other.s3;
+	}
+
+	@Override
+	public long nextLong() {
+		long result = Long.rotateLeft(s1 * 5, 7) * 9;
+		long t = s1 << 17;
+
+		s2 ^= s0;
+		s3 ^= s1;
+		s1 ^= s2;
+		s0 ^= s3;
+		s2 ^= t;
+		s3 = Long.rotateLeft(s3, 45);
+
+		return result;
+	}
+
+	/**
+	 * Returns a copy of this source and moves this one 2^128 steps ahead.
+	 */
+	@Override
+	public RandomSource split() {
+		XoshiroSource result = new XoshiroSource(this);
+		jump();
+		return result;
+	}
+
+	private void jump() {
+		long t0 = 0;
+		long t1 = 0;
+		long t2 = 0;
+		long t3 = 0;
+		for (long jump : JUMP) {
+			for (int bit = 0; bit < 64; bit++) {
+				if ((jump & (1L << bit)) != 0) {
+					t0 ^= s0;
+					t1 ^= s1;
+					t2 ^= s2;
+					t3 ^= s3;
+				}
+				nextLong();
+			}
+		}
+		s0 = t0;
+		s1 = t1;
+		s2 = t2;
+		s3 = t3;
+	}
+}
@@ -0,0 +1,28 @@
+package se.nielstrom.greed.simulation;
+
+/**
+ * The data parallel part of a {@link GameBatch} step, the same few operations
+ * done for every die of every game. Implementations must give identical
+ * results, they may only differ in how fast they get there.
+ * 
+ * The dice are stored die by die, so that die d of game g is found at
+ * d * games + g and the same die of neighbouring games lies side by side.
+ */
+public interface BatchKernel {
+	/**
+	 * Rolls the dice of every game: each die that is not locked takes its
+	 * fresh face, a locked die keeps the one it has. Then packs the dice of
+	 * each game into two {@link se.nielstrom.greed.models.ScoreTable
+	 * ScoreTable} codes, one of the locked dice and one of the rolled ones.
+	 * 
+	 * @param faces			The faces of all dice, updated in place.
+	 * @param fresh			A freshly rolled face for every die.
+	 * @param locked		A bit per die of every game, set if it's locked.
+	 * @param dice			The number of dice of each game.
+	 * @param games			The number of games.
+	 * @param lockedCodes	Receives the code of the locked dice of each game.
+	 * @param rolledCodes	Receives the code of the rolled dice of each game.
+	 */
+	public void roll(int[] faces, int[] fresh, int[] locked, int dice, int games,
+			int[] lockedCodes, int[] rolledCodes);
+}
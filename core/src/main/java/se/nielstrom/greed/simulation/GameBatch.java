@@ -0,0 +1,341 @@
+package se.nielstrom.greed.simulation;
+
+import java.util.Arrays;
+
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.Greed.State;
+import se.nielstrom.greed.models.RuleSet;
+import se.nielstrom.greed.models.ScoreTable;
+import se.nielstrom.greed.random.BulkDice;
+import se.nielstrom.greed.random.RandomSource;
+
+/**
+ * Plays thousands of single-player games at once, each one the way the
+ * {@link Simulator} plays a {@link Greed} game with a
+ * {@link ThresholdStrategy}, without any game or die objects.
+ * 
+ * The state of the games is kept in parallel primitive arrays, one entry per
+ * game, and the dice die by die as laid out by {@link BatchKernel}. Every
+ * {@link #step(RandomSource)} rolls all games once: the kernel rolls the dice
+ * and packs them into codes, after which the scoring, the locking of the
+ * scoring dice and the claiming follow {@link Greed#roll()},
+ * {@link ThresholdStrategy} and {@link Greed#claim()} game by game. Like a
+ * {@link se.nielstrom.greed.models.Die Die}, every die draws a face on every
+ * roll, locked or not, so the dice drawn only depend on the number of steps.
+ * 
+ * The default kernel is the vectorized one of the greed-vector module when it
+ * is on the class path and the JVM supports it, and the {@link ScalarKernel}
+ * otherwise.
+ */
+public class GameBatch {
+	private static final String VECTOR_KERNEL = "se.nielstrom.greed.vector.VectorKernel";
+
+	private final RuleSet rules;
+	private final ScoreTable table;
+	private final BulkDice bulkDice;
+	private final BatchKernel kernel;
+	private final int threshold;
+	private final int dice;
+	private final int games;
+	private final int allLocked;
+
+	private final int[] faces;
+	private final int[] fresh;
+	private final int[] locked;
+	private final int[] lockedCodes;
+	private final int[] rolledCodes;
+	private final byte[] states;
+	private final int[] scoreRound;
+	private final int[] bonus;
+	private final int[] previous;
+	private final int[] scoreTotal;
+	private final int[] rounds;
+	private final int[] busts;
+	private final int[] rolls;
+
+	public GameBatch(RuleSet rules, int games, int threshold) {
+		this(rules, games, threshold, getDefaultKernel());
+	}
+
+	/**
+	 * @param rules		The rules of the games.
+	 * @param games		The number of games played at once.
+	 * @param threshold	The round score at which the games claim, as the
+	 * 					threshold of a {@link ThresholdStrategy}.
+	 * @param kernel	Rolls and packs the dice.
+	 */
+	public GameBatch(RuleSet rules, int games, int threshold, BatchKernel kernel) {
+		this.rules = rules;
+		this.table = ScoreTable.forRules(rules);
+		this.bulkDice = new BulkDice(rules.getSides());
+		this.kernel = kernel;
+		this.threshold = threshold;
+		this.dice = rules.getDice();
+		this.games = games;
+		this.allLocked = (1 << dice) - 1;
+
+		faces = new int[dice * games];
+		fresh = new int[dice * games];
+		locked = new int[games];
+		lockedCodes = new int[games];
+		rolledCodes = new int[games];
+		states = new byte[games];
+		scoreRound = new int[games];
+		bonus = new int[games];
+		previous = new int[games];
+		scoreTotal = new int[games];
+		rounds = new int[games];
+		busts = new int[games];
+		rolls = new int[games];
+		reset();
+	}
+
+	/**
+	 * @return The vectorized kernel if it's available, the scalar one
+	 * 			otherwise.
+	 */
+	public static BatchKernel getDefaultKernel() {
+		try {
+			return (BatchKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return ScalarKernel.INSTANCE;
+		}
+	}
+
+	/**
+	 * Starts all games over, with every die showing its highest side just
+	 * like a reset {@link Greed} game.
+	 * 
+	 * @return The batch instance for chaining.
+	 */
+	public GameBatch reset() {
+		Arrays.fill(faces, rules.getSides());
+		Arrays.fill(locked, 0);
+		Arrays.fill(states, (byte) State.BUST.ordinal());
+		Arrays.fill(scoreRound, 0);
+		Arrays.fill(bonus, 0);
+		Arrays.fill(previous, 0);
+		Arrays.fill(scoreTotal, 0);
+		Arrays.fill(rounds, 0);
+		Arrays.fill(busts, 0);
+		Arrays.fill(rolls, 0);
+		return this;
+	}
+
+	/**
+	 * Resets the batch and plays every game until it's won or has gone on
+	 * for the given number of rounds.
+	 * 
+	 * @return The batch instance for chaining.
+	 */
+	public GameBatch play(RandomSource random, int maxRounds) {
+		reset();
+		while (!isDone(maxRounds)) {
+			step(random, maxRounds);
+		}
+		return this;
+	}
+
+	/**
+	 * @return True if every game is won or has gone on for maxRounds rounds.
+	 */
+	public boolean isDone(int maxRounds) {
+		for (int g = 0; g < games; g++) {
+			if (states[g] != State.WIN.ordinal() && rounds[g] < maxRounds) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the statistics of every game to a simulation result, the same ones
+	 * the {@link Simulator} records.
+	 */
+	public void addTo(SimulationResult result) {
+		for (int g = 0; g < games; g++) {
+			result.addGame(states[g] == State.WIN.ordinal(), rounds[g], busts[g], rolls[g],
+					scoreTotal[g]);
+		}
+	}
+
+	public int getGames() {
+		return games;
+	}
+
+	public RuleSet getRules() {
+		return rules;
+	}
+
+	public BatchKernel getKernel() {
+		return kernel;
+	}
+
+	public State getState(int game) {
+		return State.values()[states[game]];
+	}
+
+	public int getScoreRound(int game) {
+		return scoreRound[game];
+	}
+
+	public int getScoreTotal(int game) {
+		return scoreTotal[game];
+	}
+
+	public int getRound(int game) {
+		return rounds[game];
+	}
+
+	public int getFace(int game, int die) {
+		return faces[die * games + game];
+	}
+
+	public boolean isLocked(int game, int die) {
+		return (locked[game] >>> die & 1) != 0;
+	}
+
+	/**
+	 * @return True if every game of both batches is in the same state, down to
+	 * 			the faces of the dice.
+	 */
+	public boolean sameState(GameBatch other) {
+		return games == other.games && rules.equals(other.rules)
+				&& Arrays.equals(faces, other.faces)
+				&& Arrays.equals(locked, other.locked)
+				&& Arrays.equals(states, other.states)
+				&& Arrays.equals(scoreRound, other.scoreRound)
+				&& Arrays.equals(bonus, other.bonus)
+				&& Arrays.equals(scoreTotal, other.scoreTotal)
+				&& Arrays.equals(rounds, other.rounds)
+				&& Arrays.equals(busts, other.busts)
+				&& Arrays.equals(rolls, other.rolls);
+	}
+
+	/**
+	 * Rolls every game once. Games that are already won keep their state,
+	 * only their dice are rolled.
+	 * 
+	 * @return The batch instance for chaining.
+	 */
+	public GameBatch step(RandomSource random) {
+		return step(random, Integer.MAX_VALUE);
+	}
+
+	private GameBatch step(RandomSource random, int maxRounds) {
+		for (int g = 0; g < games; g++) {
+			if (locked[g] == allLocked && table.allUsed(packAll(g))) {
+				// All dice score, this roll is of all dice again
+				bonus[g] += scoreRound[g];
+				locked[g] = 0;
+			}
+		}
+
+		bulkDice.roll(random, fresh);
+		kernel.roll(faces, fresh, locked, dice, games, lockedCodes, rolledCodes);
+
+		byte ok = (byte) State.OK.ordinal();
+		for (int g = 0; g < games; g++) {
+			if (states[g] == State.WIN.ordinal() || rounds[g] >= maxRounds) {
+				continue;
+			}
+			rolls[g]++;
+			previous[g] = (states[g] == ok) ? scoreRound[g] : 0;
+
+			int score = table.score(lockedCodes[g] + rolledCodes[g]) + bonus[g];
+			if (states[g] == ok && score <= scoreRound[g]) { // Bust
+				endRound(g, State.BUST);
+			} else if (score < rules.getMinScore() - 1) { // Low score
+				endRound(g, State.LOW);
+			} else {
+				states[g] = ok;
+			}
+			scoreRound[g] = score;
+
+			if (states[g] == ok) {
+				play(g);
+			} else {
+				busts[g]++;
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * @return The code of all dice of a game.
+	 */
+	private int packAll(int g) {
+		int code = ScoreTable.EMPTY;
+		for (int d = 0; d < dice; d++) {
+			code = ScoreTable.add(code, faces[d * games + g]);
+		}
+		return code;
+	}
+
+	private void endRound(int g, State state) {
+		rounds[g]++;
+		locked[g] = 0;
+		bonus[g] = 0;
+		states[g] = (byte) state.ordinal();
+	}
+
+	/**
+	 * Keeps the scoring dice of a game and decides whether to claim, like a
+	 * {@link ThresholdStrategy}.
+	 */
+	private void play(int g) {
+		int rolled = rolledCodes[g];
+		int code = lockedCodes[g];
+		int unlocked = 0;
+		if (table.allUsed(rolled)) {
+			// Every rolled die scores, keep them all
+			locked[g] = allLocked;
+			code += rolled;
+		} else {
+			// Ones and fives plus every complete set of three equal sides,
+			// taken from the first dice showing them
+			int keep = ScoreTable.EMPTY;
+			for (int side = 1; side <= rules.getSides(); side++) {
+				int count = ScoreTable.count(rolled, side);
+				int kept = (side == 1 || side == 5) ? count : count - count % 3;
+				for (int i = 0; i < kept; i++) {
+					keep = ScoreTable.add(keep, side);
+				}
+			}
+			for (int d = 0; d < dice; d++) {
+				if ((locked[g] >>> d & 1) != 0) {
+					continue;
+				}
+				int side = faces[d * games + g];
+				if (ScoreTable.count(keep, side) > 0) {
+					keep = ScoreTable.remove(keep, side);
+					locked[g] |= 1 << d;
+					code = ScoreTable.add(code, side);
+				} else {
+					unlocked++;
+				}
+			}
+		}
+
+		// Greed.updateScore()
+		int score = table.score(code) + bonus[g];
+		scoreRound[g] = score;
+		boolean enough = score > Math.max(rules.getMinScore() - 1, previous[g]);
+
+		if ((unlocked > 0 && score >= threshold) || !enough) {
+			claim(g);
+		}
+	}
+
+	/**
+	 * Scores all dice of a game, locked or not, and adds them to its total.
+	 */
+	private void claim(int g) {
+		scoreTotal[g] += table.score(packAll(g)) + bonus[g];
+		endRound(g, State.BUST);
+		scoreRound[g] = 0;
+		if (scoreTotal[g] >= rules.getWinningScore()) {
+			states[g] = (byte) State.WIN.ordinal();
+		}
+	}
+}
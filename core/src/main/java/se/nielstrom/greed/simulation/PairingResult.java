@@ -0,0 +1,143 @@
+package se.nielstrom.greed.simulation;
+
+/**
+ * The games between two strategies of a {@link Tournament}, counted from the
+ * point of view of the first one. Batches of games are combined using
+ * {@link #merge(PairingResult)}.
+ * 
+ * Each game is won by one of the strategies or, if neither reaches the
+ * winning score in time, drawn. A draw counts as half a win when the win rate
+ * and its confidence interval are calculated.
+ */
+public class PairingResult {
+	private final int first;
+	private final int second;
+	private long games;
+	private long wins;
+	private long losses;
+
+	/**
+	 * @param first		The index of the first strategy in the tournament.
+	 * @param second	The index of the second strategy.
+	 */
+	public PairingResult(int first, int second) {
+		this.first = first;
+		this.second = second;
+	}
+
+	/**
+	 * Records a single game.
+	 * 
+	 * @param winner 0 if the first strategy won, 1 if the second did and -1
+	 * 			for a draw.
+	 */
+	void addGame(int winner) {
+		games++;
+		if (winner == 0) {
+			wins++;
+		} else if (winner == 1) {
+			losses++;
+		}
+	}
+
+	/**
+	 * Adds the games of another result of the same pairing to this one.
+	 * 
+	 * @return The result instance for chaining.
+	 */
+	public PairingResult merge(PairingResult other) {
+		games += other.games;
+		wins += other.wins;
+		losses += other.losses;
+		return this;
+	}
+
+	public int getFirst() {
+		return first;
+	}
+
+	public int getSecond() {
+		return second;
+	}
+
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * @return The number of games won by the first strategy.
+	 */
+	public long getWins() {
+		return wins;
+	}
+
+	/**
+	 * @return The number of games won by the second strategy.
+	 */
+	public long getLosses() {
+		return losses;
+	}
+
+	public long getDraws() {
+		return games - wins - losses;
+	}
+
+	/**
+	 * @return The fraction of the games won by the first strategy, draws
+	 * 			counting as half.
+	 */
+	public double getWinRate() {
+		return games == 0 ? Double.NaN : (wins + 0.5 * getDraws()) / games;
+	}
+
+	/**
+	 * @param z	The number of standard deviations of the interval, such as
+	 * 			1.96 for 95% confidence.
+	 * @return	The lower end of the Wilson score interval of the win rate.
+	 */
+	public double getLowerBound(double z) {
+		return games == 0 ? 0 : center(z) - halfWidth(z);
+	}
+
+	/**
+	 * @return The upper end of the Wilson score interval of the win rate.
+	 */
+	public double getUpperBound(double z) {
+		return games == 0 ? 1 : center(z) + halfWidth(z);
+	}
+
+	/**
+	 * Decides if more games could change the outcome of the pairing: either
+	 * the interval lies on one side of 0.5, so one strategy is better, or it's
+	 * so narrow that they are even for all practical purposes.
+	 * 
+	 * @param z			The width of the interval in standard deviations.
+	 * @param tolerance	The half-width below which the strategies are even.
+	 */
+	public boolean isSettled(double z, double tolerance) {
+		if (games == 0) {
+			return false;
+		}
+		double lower = getLowerBound(z);
+		double upper = getUpperBound(z);
+		return lower > 0.5 || upper < 0.5 || (upper - lower) / 2 < tolerance;
+	}
+
+	private double center(double z) {
+		double z2 = z * z;
+		return (getWinRate() + z2 / (2 * games)) / (1 + z2 / games);
+	}
+
+	private double halfWidth(double z) {
+		double p = getWinRate();
+		double z2 = z * z;
+		return z * Math.sqrt(p * (1 - p) / games + z2 / (4.0 * games * games)) / (1 + z2 / games);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d vs %d: %d games, %d-%d-%d, win rate %.4f (%.4f - %.4f)",
+				first, second, games, wins, losses, getDraws(), getWinRate(),
+				getLowerBound(Tournament.DEFAULT_Z), getUpperBound(Tournament.DEFAULT_Z));
+	}
+}
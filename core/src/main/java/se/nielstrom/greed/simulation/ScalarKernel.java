@@ -0,0 +1,36 @@
+package se.nielstrom.greed.simulation;
+
+import se.nielstrom.greed.models.ScoreTable;
+
+/**
+ * The plain Java {@link BatchKernel}, which runs everywhere. Its loops are
+ * simple enough for the JIT to unroll and, where the CPU allows it, vectorize.
+ */
+public final class ScalarKernel implements BatchKernel {
+	public static final ScalarKernel INSTANCE = new ScalarKernel();
+
+	private ScalarKernel() {
+	}
+
+	@Override
+	public void roll(int[] faces, int[] fresh, int[] locked, int dice, int games,
+			int[] lockedCodes, int[] rolledCodes) {
+		for (int g = 0; g < games; g++) {
+			lockedCodes[g] = ScoreTable.EMPTY;
+			rolledCodes[g] = ScoreTable.EMPTY;
+		}
+
+		for (int d = 0; d < dice; d++) {
+			int base = d * games;
+			for (int g = 0; g < games; g++) {
+				int i = base + g;
+				if ((locked[g] >>> d & 1) != 0) {
+					lockedCodes[g] += 1 << (faces[i] - 1) * ScoreTable.BITS_PER_SIDE;
+				} else {
+					faces[i] = fresh[i];
+					rolledCodes[g] += 1 << (fresh[i] - 1) * ScoreTable.BITS_PER_SIDE;
+				}
+			}
+		}
+	}
+}
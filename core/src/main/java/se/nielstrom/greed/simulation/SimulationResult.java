@@ -0,0 +1,142 @@
+package se.nielstrom.greed.simulation;
+
+/**
+ * Aggregated statistics over a batch of simulated games. Results from
+ * separate batches are combined using {@link #merge(SimulationResult)}.
+ */
+public class SimulationResult {
+	private final long[] roundsToWin;
+	private long games;
+	private long unfinished;
+	private long rounds;
+	private long busts;
+	private long rolls;
+	private long claimedPoints;
+
+	/**
+	 * @param maxRounds The number of rounds after which a game is given up.
+	 */
+	public SimulationResult(int maxRounds) {
+		roundsToWin = new long[maxRounds + 1];
+	}
+
+	/**
+	 * Records a single game.
+	 * 
+	 * @param won			True if the game reached the winning score.
+	 * @param rounds		The number of rounds played.
+	 * @param busts			The number of rounds which ended without a claim.
+	 * @param rolls			The number of times the dice were rolled.
+	 * @param claimedPoints	The total score at the end of the game.
+	 */
+	void addGame(boolean won, int rounds, int busts, int rolls, int claimedPoints) {
+		games++;
+		if (won) {
+			roundsToWin[rounds]++;
+		} else {
+			unfinished++;
+		}
+		this.rounds += rounds;
+		this.busts += busts;
+		this.rolls += rolls;
+		this.claimedPoints += claimedPoints;
+	}
+
+	/**
+	 * Adds the statistics of another result to this one.
+	 * 
+	 * @return The result instance for chaining.
+	 */
+	public SimulationResult merge(SimulationResult other) {
+		for (int i = 0; i < roundsToWin.length && i < other.roundsToWin.length; i++) {
+			roundsToWin[i] += other.roundsToWin[i];
+		}
+		games += other.games;
+		unfinished += other.unfinished;
+		rounds += other.rounds;
+		busts += other.busts;
+		rolls += other.rolls;
+		claimedPoints += other.claimedPoints;
+		return this;
+	}
+
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * @return The number of games given up before reaching the winning score.
+	 */
+	public long getUnfinished() {
+		return unfinished;
+	}
+
+	public long getRounds() {
+		return rounds;
+	}
+
+	public long getRolls() {
+		return rolls;
+	}
+
+	/**
+	 * @return The number of won games which took exactly the given number of
+	 * 			rounds.
+	 */
+	public long getRoundsToWin(int rounds) {
+		return (0 <= rounds && rounds < roundsToWin.length) ? roundsToWin[rounds] : 0;
+	}
+
+	public int getMaxRounds() {
+		return roundsToWin.length - 1;
+	}
+
+	public double getMeanRoundsToWin() {
+		long won = games - unfinished;
+		long sum = 0;
+		for (int i = 0; i < roundsToWin.length; i++) {
+			sum += i * roundsToWin[i];
+		}
+		return won == 0 ? Double.NaN : (double) sum / won;
+	}
+
+	/**
+	 * @param fraction	A number between 0 and 1, such as 0.5 for the median.
+	 * @return			The smallest number of rounds within which at least the
+	 * 					given fraction of the won games were won.
+	 */
+	public int getRoundsToWinPercentile(double fraction) {
+		long won = games - unfinished;
+		long target = (long) Math.ceil(fraction * won);
+		long seen = 0;
+		for (int i = 0; i < roundsToWin.length; i++) {
+			seen += roundsToWin[i];
+			if (seen >= target && seen > 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The fraction of rounds that ended in a bust or a low score.
+	 */
+	public double getBustRate() {
+		return rounds == 0 ? Double.NaN : (double) busts / rounds;
+	}
+
+	/**
+	 * @return The mean number of points claimed per round, busted rounds
+	 * 			included.
+	 */
+	public double getMeanTurnScore() {
+		return rounds == 0 ? Double.NaN : (double) claimedPoints / rounds;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d games, %.2f rounds to win (median %d), %.1f%% busts, %.1f points per round",
+				games, getMeanRoundsToWin(), getRoundsToWinPercentile(0.5),
+				100 * getBustRate(), getMeanTurnScore());
+	}
+}
@@ -0,0 +1,148 @@
+package se.nielstrom.greed.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.Greed.State;
+import se.nielstrom.greed.random.SplitMixSource;
+import se.nielstrom.greed.random.ThreadLocalSource;
+import se.nielstrom.greed.random.XoshiroSource;
+
+/**
+ * Plays complete games of Greed without any user interface, driving the real
+ * {@link Greed} rules with a {@link Strategy} instead of button presses.
+ * 
+ * Batches of games are split over all cores using fork-join. Each worker
+ * thread keeps a single Greed instance which is reset between games, so a
+ * simulation allocates next to nothing beyond one result per batch.
+ * 
+ * Every batch rolls its dice from a stream of its own, derived from the seed
+ * of the simulator and the index of the first game of the batch. Running the
+ * same number of games with the same seed therefore gives the same result, no
+ * matter how the batches are spread over the threads.
+ */
+public class Simulator {
+	public static final int DEFAULT_MAX_ROUNDS = 1000;
+	private static final long GAMES_PER_TASK = 10000;
+
+	private final Strategy strategy;
+	private final ForkJoinPool pool;
+	private final int maxRounds;
+	private final long seed;
+	private final ThreadLocal<Greed> games = new ThreadLocal<Greed>() {
+		@Override
+		protected Greed initialValue() {
+			return new Greed(ThreadLocalSource.INSTANCE);
+		}
+	};
+
+	public Simulator(Strategy strategy) {
+		this(strategy, new ForkJoinPool(), DEFAULT_MAX_ROUNDS);
+	}
+
+	public Simulator(Strategy strategy, ForkJoinPool pool, int maxRounds) {
+		this(strategy, pool, maxRounds, SplitMixSource.newSeed());
+	}
+
+	/**
+	 * @param strategy	The strategy used by the simulated player.
+	 * @param pool		The pool to run the simulation in.
+	 * @param maxRounds	The number of rounds after which a game is given up.
+	 * @param seed		The seed all dice are rolled from.
+	 */
+	public Simulator(Strategy strategy, ForkJoinPool pool, int maxRounds, long seed) {
+		this.strategy = strategy;
+		this.pool = pool;
+		this.maxRounds = maxRounds;
+		this.seed = seed;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Plays a number of games in parallel and blocks until all are done.
+	 * 
+	 * @param games	The number of games to play.
+	 * @return		The combined statistics of all games.
+	 */
+	public SimulationResult run(long games) {
+		return pool.invoke(new Batch(0, games));
+	}
+
+	/**
+	 * Plays a number of games on the calling thread.
+	 */
+	public SimulationResult runSequential(long games) {
+		SimulationResult result = new SimulationResult(maxRounds);
+		play(0, games, result);
+		return result;
+	}
+
+	/**
+	 * Plays the games from index first and on, rolling the dice from the
+	 * stream of that index.
+	 */
+	private void play(long first, long count, SimulationResult result) {
+		Greed game = games.get();
+		game.setRandom(new XoshiroSource(SplitMixSource.mix(seed + first)));
+		for (long i = 0; i < count; i++) {
+			playGame(game, result);
+		}
+	}
+
+	/**
+	 * Plays a single game from start to finish.
+	 */
+	private void playGame(Greed game, SimulationResult result) {
+		game.reset();
+		game.setState(State.BUST);
+
+		int busts = 0;
+		int rolls = 0;
+		while (game.getState() != State.WIN && game.getRound() < maxRounds) {
+			game.roll();
+			rolls++;
+
+			if (game.getState() != State.OK) {
+				busts++;
+			} else if (strategy.play(game) || !game.updateScore()) {
+				game.claim();
+			}
+		}
+
+		result.addGame(game.getState() == State.WIN, game.getRound(), busts, rolls,
+				game.getScoreTotal());
+	}
+
+	/**
+	 * Splits a batch of games in halves until it's small enough to be played
+	 * by a single worker.
+	 */
+	private class Batch extends RecursiveTask<SimulationResult> {
+		private static final long serialVersionUID = 1L;
+		private final long first;
+		private final long games;
+
+		public Batch(long first, long games) {
+			this.first = first;
+			this.games = games;
+		}
+
+		@Override
+		protected SimulationResult compute() {
+			if (games <= GAMES_PER_TASK) {
+				SimulationResult result = new SimulationResult(maxRounds);
+				play(first, games, result);
+				return result;
+			}
+
+			Batch left = new Batch(first, games / 2);
+			Batch right = new Batch(first + games / 2, games - games / 2);
+			left.fork();
+			return right.compute().merge(left.join());
+		}
+	}
+}
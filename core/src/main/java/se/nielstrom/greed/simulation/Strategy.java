@@ -0,0 +1,21 @@
+package se.nielstrom.greed.simulation;
+
+import se.nielstrom.greed.models.Greed;
+
+/**
+ * Decides what a simulated player does after each successful roll. A strategy
+ * is shared between all simulation threads and must therefore not keep any
+ * mutable state of its own.
+ */
+public interface Strategy {
+	/**
+	 * Called whenever the game is in the {@link Greed.State#OK OK} state after
+	 * a roll. The strategy keeps dice by locking them through
+	 * {@link Greed#getDice()}, just like a player tapping the die buttons.
+	 * 
+	 * @param game	The game being played.
+	 * @return		True to claim the round, False to roll the unlocked dice
+	 * 				again. A round that can't be continued is claimed anyway.
+	 */
+	public boolean play(Greed game);
+}
@@ -0,0 +1,70 @@
+package se.nielstrom.greed.simulation;
+
+import se.nielstrom.greed.models.Die;
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.ScoreTable;
+
+/**
+ * A simple reference strategy which keeps every scoring die it rolls and
+ * claims the round as soon as the round score reaches a fixed threshold. When
+ * all dice have been used it always rolls on, since that means all fresh dice.
+ */
+public class ThresholdStrategy implements Strategy {
+	private final int threshold;
+
+	public ThresholdStrategy(int threshold) {
+		this.threshold = threshold;
+	}
+
+	@Override
+	public boolean play(Greed game) {
+		Die[] dice = game.getDice();
+		int rolled = ScoreTable.EMPTY;
+		for (Die die : dice) {
+			if (!die.isLocked()) {
+				rolled = ScoreTable.add(rolled, die.getValue());
+			}
+		}
+
+		int unlocked;
+		if (game.getScoreTable().allUsed(rolled)) {
+			// Every rolled die scores (a ladder for example), keep them all
+			game.setAllDiceLocked(true);
+			unlocked = 0;
+		} else {
+			unlocked = lockScoringDice(dice, rolled, game.getRules().getSides());
+		}
+
+		game.updateScore();
+		return unlocked > 0 && game.getScoreRound() >= threshold;
+	}
+
+	/**
+	 * Locks all ones and fives plus every complete set of three equal sides
+	 * among the unlocked dice.
+	 * 
+	 * @return The number of dice left unlocked.
+	 */
+	private int lockScoringDice(Die[] dice, int rolled, int sides) {
+		int unlocked = 0;
+		for (int side = 1; side <= sides; side++) {
+			int count = ScoreTable.count(rolled, side);
+			int keep = (side == 1 || side == 5) ? count : count - count % 3;
+			for (Die die : dice) {
+				if (!die.isLocked() && die.getValue() == side) {
+					if (keep > 0) {
+						die.setLocked(true);
+						keep--;
+					} else {
+						unlocked++;
+					}
+				}
+			}
+		}
+		return unlocked;
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+}
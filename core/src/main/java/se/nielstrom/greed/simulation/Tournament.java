@@ -0,0 +1,272 @@
+package se.nielstrom.greed.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.Greed.State;
+import se.nielstrom.greed.models.RuleSet;
+import se.nielstrom.greed.random.SplitMixSource;
+import se.nielstrom.greed.random.ThreadLocalSource;
+import se.nielstrom.greed.random.XoshiroSource;
+
+/**
+ * Plays every pair of a number of strategies against each other, two-player
+ * games under the real {@link Greed} rules, and tells which strategy of each
+ * pair is the better one.
+ * 
+ * The players take turns playing a round each and the first one to reach the
+ * winning score wins. Which strategy starts alternates from game to game, and
+ * a game that goes on for too long is a draw. A pairing is played in batches
+ * until it's settled: when the confidence interval of its win rate lies on
+ * one side of 50%, when the interval is narrower than the tolerance so that
+ * the strategies are even, or when the most games allowed have been played.
+ * Clear differences are therefore settled after a few thousand games,
+ * leaving the time for the close ones.
+ * 
+ * The batches are played in waves, spread over the pool. Each batch plays on a
+ * pair of games of its worker thread and rolls its dice from a stream of its
+ * own, derived from the seed of the tournament, the pairing and the index of
+ * the batch. The results are merged and the pairings checked between the
+ * waves, so a tournament with the same strategies, settings and seed gives
+ * the same result however the batches are spread over the threads.
+ * 
+ * Since the intervals are looked at after every wave, the default confidence
+ * is set high to keep the chance of settling on a fluke small.
+ */
+public class Tournament {
+	/** 3.29 standard deviations, a confidence of 99.9%. */
+	public static final double DEFAULT_Z = 3.29;
+	public static final double DEFAULT_TOLERANCE = 0.005;
+	public static final long DEFAULT_MAX_GAMES = 1000000;
+	public static final int DEFAULT_GAMES_PER_BATCH = 1000;
+
+	/** The number of batches of a wave, shared among the unsettled pairings. */
+	private static final int BATCHES_PER_WAVE = 64;
+
+	private final Strategy[] strategies;
+	private final ForkJoinPool pool;
+	private final long seed;
+	private RuleSet rules = RuleSet.DEFAULT;
+	private int maxRounds = Simulator.DEFAULT_MAX_ROUNDS;
+	private long maxGames = DEFAULT_MAX_GAMES;
+	private int gamesPerBatch = DEFAULT_GAMES_PER_BATCH;
+	private double z = DEFAULT_Z;
+	private double tolerance = DEFAULT_TOLERANCE;
+
+	private final ThreadLocal<Greed[]> games = new ThreadLocal<Greed[]>() {
+		@Override
+		protected Greed[] initialValue() {
+			return new Greed[] {
+				new Greed(rules, ThreadLocalSource.INSTANCE),
+				new Greed(rules, ThreadLocalSource.INSTANCE)
+			};
+		}
+	};
+
+	public Tournament(Strategy... strategies) {
+		this(strategies, new ForkJoinPool(), SplitMixSource.newSeed());
+	}
+
+	/**
+	 * @param strategies	The strategies to play against each other, at least
+	 * 						two.
+	 * @param pool			The pool to play the games in.
+	 * @param seed			The seed all dice are rolled from.
+	 */
+	public Tournament(Strategy[] strategies, ForkJoinPool pool, long seed) {
+		if (strategies.length < 2) {
+			throw new IllegalArgumentException("At least 2 strategies needed - "
+					+ strategies.length + " given.");
+		}
+		this.strategies = strategies.clone();
+		this.pool = pool;
+		this.seed = seed;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public Tournament setRules(RuleSet rules) {
+		this.rules = rules;
+		return this;
+	}
+
+	/**
+	 * @param maxRounds	The number of rounds per player after which a game is
+	 * 					given up as a draw.
+	 */
+	public Tournament setMaxRounds(int maxRounds) {
+		this.maxRounds = maxRounds;
+		return this;
+	}
+
+	/**
+	 * @param maxGames The most games to play in one pairing.
+	 */
+	public Tournament setMaxGames(long maxGames) {
+		this.maxGames = maxGames;
+		return this;
+	}
+
+	public Tournament setGamesPerBatch(int gamesPerBatch) {
+		this.gamesPerBatch = gamesPerBatch;
+		return this;
+	}
+
+	/**
+	 * @param z			The width of the confidence intervals in standard
+	 * 					deviations.
+	 * @param tolerance	The half-width of an interval below which the two
+	 * 					strategies are considered even.
+	 */
+	public Tournament setConfidence(double z, double tolerance) {
+		this.z = z;
+		this.tolerance = tolerance;
+		return this;
+	}
+
+	/**
+	 * Plays all pairings until they are settled and blocks until done.
+	 * 
+	 * @return	The result of every pairing of two strategies i &lt; j, in the
+	 * 			order 0-1, 0-2, ..., 1-2, ...
+	 */
+	public PairingResult[] run() {
+		int n = strategies.length;
+		PairingResult[] results = new PairingResult[n * (n - 1) / 2];
+		long[] batches = new long[results.length];
+		for (int i = 0, pairing = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++, pairing++) {
+				results[pairing] = new PairingResult(i, j);
+			}
+		}
+
+		List<Batch> wave = new ArrayList<Batch>();
+		while (true) {
+			wave.clear();
+			int active = 0;
+			for (PairingResult result : results) {
+				if (!isSettled(result)) {
+					active++;
+				}
+			}
+			if (active == 0) {
+				return results;
+			}
+
+			int perPairing = Math.max(1, BATCHES_PER_WAVE / active);
+			for (int pairing = 0; pairing < results.length; pairing++) {
+				PairingResult result = results[pairing];
+				long planned = result.getGames();
+				for (int i = 0; i < perPairing && planned < maxGames && !isSettled(result); i++) {
+					int size = (int) Math.min(gamesPerBatch, maxGames - planned);
+					wave.add(new Batch(pairing, result.getFirst(), result.getSecond(),
+							batches[pairing]++, size));
+					planned += size;
+				}
+			}
+
+			for (Batch batch : wave) {
+				pool.execute(batch);
+			}
+			for (Batch batch : wave) {
+				results[batch.pairing].merge(batch.join());
+			}
+		}
+	}
+
+	private boolean isSettled(PairingResult result) {
+		return result.getGames() >= maxGames || result.isSettled(z, tolerance);
+	}
+
+	/**
+	 * Plays a batch of games between two strategies.
+	 */
+	private void play(Batch batch, PairingResult result) {
+		Greed[] players = games.get();
+		if (!players[0].getRules().equals(rules)) {
+			games.remove();
+			players = games.get();
+		}
+		XoshiroSource random = new XoshiroSource(SplitMixSource.mix(
+				SplitMixSource.mix(seed + batch.pairing) + batch.index));
+		players[0].setRandom(random);
+		players[1].setRandom(random);
+
+		Strategy[] playing = { strategies[batch.first], strategies[batch.second] };
+		long firstGame = batch.index * gamesPerBatch;
+		for (int i = 0; i < batch.games; i++) {
+			result.addGame(playGame(players, playing, (int) ((firstGame + i) & 1)));
+		}
+	}
+
+	/**
+	 * Plays a single game from start to finish.
+	 * 
+	 * @param starting	The player to play the first round.
+	 * @return			The player who won, or -1 for a draw.
+	 */
+	private int playGame(Greed[] players, Strategy[] playing, int starting) {
+		for (Greed game : players) {
+			game.reset();
+			game.setState(State.BUST);
+		}
+
+		for (int round = 0; round < maxRounds; round++) {
+			for (int turn = 0; turn < 2; turn++) {
+				int player = starting ^ turn;
+				if (playRound(players[player], playing[player])) {
+					return player;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Plays one round of a game, until it's claimed or bust.
+	 * 
+	 * @return True if the round won the game.
+	 */
+	private boolean playRound(Greed game, Strategy strategy) {
+		int round = game.getRound();
+		while (game.getRound() == round) {
+			game.roll();
+			if (game.getState() == State.OK && (strategy.play(game) || !game.updateScore())) {
+				game.claim();
+			}
+		}
+		return game.getState() == State.WIN;
+	}
+
+	/**
+	 * A batch of games of one pairing, played by a single worker.
+	 */
+	private class Batch extends RecursiveTask<PairingResult> {
+		private static final long serialVersionUID = 1L;
+		private final int pairing;
+		private final int first;
+		private final int second;
+		private final long index;
+		private final int games;
+
+		public Batch(int pairing, int first, int second, long index, int games) {
+			this.pairing = pairing;
+			this.first = first;
+			this.second = second;
+			this.index = index;
+			this.games = games;
+		}
+
+		@Override
+		protected PairingResult compute() {
+			PairingResult result = new PairingResult(first, second);
+			play(this, result);
+			return result;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package se.nielstrom.greed.solver;
+
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.ScoreTable;
+
+/**
+ * The points gained and the possible keeps for every outcome of a roll, given
+ * which dice are already locked, under the default rules.
+ * 
+ * Only combinations of locked dice in which every die scores are considered,
+ * since those are the only ones that can be rolled again once all dice are
+ * locked. There are 45 such combinations of up to five dice, each of which is
+ * given an index.
+ */
+final class Moves {
+	/** The number of distinct combinations of locked dice. */
+	static final int LOCKED;
+	/** The index of having no dice locked. */
+	static final int EMPTY = 0;
+	/** The next locked index of a keep which locks all dice. */
+	static final int ALL_LOCKED = -1;
+
+	private static final ScoreTable TABLE = ScoreTable.DEFAULT;
+	private static final int[] INDEX_OF = new int[TABLE.getCombinations()];
+	private static final Moves[] BY_INDEX;
+
+	static {
+		int[] codes = new int[TABLE.getCombinations()];
+		int count = 0;
+		codes[count++] = ScoreTable.EMPTY;
+		for (int dice = 1; dice < Greed.NR_OF_DICE; dice++) {
+			Outcomes outcomes = Outcomes.forDice(dice);
+			for (int i = 0; i < outcomes.size(); i++) {
+				if (TABLE.allUsed(outcomes.getCode(i))) {
+					codes[count++] = outcomes.getCode(i);
+				}
+			}
+		}
+
+		LOCKED = count;
+		for (int i = 0; i < INDEX_OF.length; i++) {
+			INDEX_OF[i] = -1;
+		}
+		for (int i = 0; i < LOCKED; i++) {
+			INDEX_OF[TABLE.index(codes[i])] = i;
+		}
+
+		BY_INDEX = new Moves[LOCKED];
+		for (int i = 0; i < LOCKED; i++) {
+			BY_INDEX[i] = new Moves(codes[i]);
+		}
+	}
+
+	private final int locked;
+	private final int score;
+	private final Outcomes outcomes;
+	private final int[] gains;
+	private final int[] keepStart;
+	private int[] keepGains;
+	private int[] keepNext;
+	private int[] keepCodes;
+	private int keeps;
+
+	private Moves(int locked) {
+		this.locked = locked;
+		this.score = TABLE.score(locked);
+		this.outcomes = Outcomes.forDice(Greed.NR_OF_DICE - ScoreTable.size(locked));
+
+		int size = outcomes.size();
+		gains = new int[size];
+		keepStart = new int[size + 1];
+		keepGains = new int[size * 4];
+		keepNext = new int[size * 4];
+		keepCodes = new int[size * 4];
+
+		for (int i = 0; i < size; i++) {
+			int code = outcomes.getCode(i);
+			gains[i] = TABLE.score(locked + code) - score;
+			keepStart[i] = keeps;
+			addKeeps(code, 1, ScoreTable.EMPTY);
+		}
+		keepStart[size] = keeps;
+	}
+
+	/**
+	 * @return The index of a combination of locked dice, or -1 if some of the
+	 * 			dice don't score or all dice are locked.
+	 */
+	static int indexOf(int locked) {
+		return INDEX_OF[TABLE.index(locked)];
+	}
+
+	static Moves forLocked(int index) {
+		return BY_INDEX[index];
+	}
+
+	/**
+	 * @return The {@link ScoreTable} code of the locked dice.
+	 */
+	int getLocked() {
+		return locked;
+	}
+
+	/**
+	 * @return The score of the locked dice.
+	 */
+	int getScore() {
+		return score;
+	}
+
+	Outcomes getOutcomes() {
+		return outcomes;
+	}
+
+	/**
+	 * @return The points added to the locked dice by all dice of an outcome.
+	 */
+	int getGain(int outcome) {
+		return gains[outcome];
+	}
+
+	/**
+	 * @return The first keep of an outcome. Keeps of an outcome are numbered
+	 * 			from getKeepStart(outcome) up to getKeepStart(outcome + 1).
+	 */
+	int getKeepStart(int outcome) {
+		return keepStart[outcome];
+	}
+
+	/**
+	 * @return The points added to the locked dice by the keep.
+	 */
+	int getKeepGain(int keep) {
+		return keepGains[keep];
+	}
+
+	/**
+	 * @return The locked index after the keep, or {@link #ALL_LOCKED}.
+	 */
+	int getKeepNext(int keep) {
+		return keepNext[keep];
+	}
+
+	/**
+	 * @return The {@link ScoreTable} code of the dice kept.
+	 */
+	int getKeepCode(int keep) {
+		return keepCodes[keep];
+	}
+
+	/**
+	 * Recursively tries every sub-combination of an outcome as a keep, keeping
+	 * those after which all locked dice still score.
+	 */
+	private void addKeeps(int code, int side, int keep) {
+		if (side > Greed.NR_OF_SIDES) {
+			int next = locked + keep;
+			if (keep != ScoreTable.EMPTY && TABLE.allUsed(next)) {
+				addKeep(keep, ScoreTable.size(next) == Greed.NR_OF_DICE ? ALL_LOCKED : indexOf(next));
+			}
+			return;
+		}
+
+		for (int count = 0; count <= ScoreTable.count(code, side); count++) {
+			addKeeps(code, side + 1, keep);
+			keep = ScoreTable.add(keep, side);
+		}
+	}
+
+	private void addKeep(int code, int next) {
+		if (keeps == keepGains.length) {
+			keepGains = grow(keepGains);
+			keepNext = grow(keepNext);
+			keepCodes = grow(keepCodes);
+		}
+		keepGains[keeps] = TABLE.score(locked + code) - score;
+		keepNext[keeps] = next;
+		keepCodes[keeps] = code;
+		keeps++;
+	}
+
+	private static int[] grow(int[] array) {
+		int[] result = new int[array.length * 2];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+}
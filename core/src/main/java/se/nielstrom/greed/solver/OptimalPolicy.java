@@ -0,0 +1,281 @@
+package se.nielstrom.greed.solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.ScoreTable;
+
+/**
+ * The solved optimal policy for reaching {@link Greed#WINNING_SCORE} in as few
+ * rounds as possible, as computed by the {@link Solver}.
+ * 
+ * The policy is stored as the expected number of rounds left before every
+ * roll. A roll is described by the total score, the bonus carried over from
+ * earlier rolls where all dice were used, and the dice that are locked (see
+ * {@link Moves}). The first roll after all dice were used a second time in a
+ * round can't bust, since the bonus alone beats the previous score, and is
+ * kept as a separate state. Scores are counted in units of 50 points. The best
+ * action after a roll is found by comparing claiming against every keep of
+ * the roll.
+ * 
+ * Only keeps in which all dice score are considered, just as only such dice
+ * can be rolled again once all dice are locked.
+ */
+public class OptimalPolicy {
+	public static final int UNIT = 50;
+	public static final int CLAIM = -1;
+
+	static final int TARGET = Greed.WINNING_SCORE / UNIT;
+	static final int MIN = Greed.MIN_SCORE / UNIT;
+
+	/** The state of the roll that can't bust, after the locked ones. */
+	static final int FREE = Moves.LOCKED;
+	static final int STATES = Moves.LOCKED + 1;
+
+	/** Returned by best() for keeping nothing and rolling all dice again. */
+	static final int REROLL = -2;
+
+	/** The first row of bonus scores for each total score. */
+	private static final int[] ROW_OFFSETS = new int[TARGET + 1];
+	static final int SIZE;
+
+	static {
+		for (int total = 0; total < TARGET; total++) {
+			ROW_OFFSETS[total + 1] = ROW_OFFSETS[total] + cap(total) - MIN + 2;
+		}
+		SIZE = ROW_OFFSETS[TARGET] * STATES;
+	}
+
+	private static final int MAGIC = 0x47524450; // "GRDP"
+	private static final int VERSION = 2;
+
+	private final float[] rounds;
+	private final float[] rolls;
+
+	/**
+	 * @param rounds	Expected rounds left at the start of a round, indexed by
+	 * 					total score (TARGET + 1 entries).
+	 * @param rolls		Expected rounds left before a roll, indexed by
+	 * 					{@link #index(int, int, int)}.
+	 */
+	OptimalPolicy(float[] rounds, float[] rolls) {
+		this.rounds = rounds;
+		this.rolls = rolls;
+	}
+
+	/**
+	 * @return The expected number of rounds left to win with optimal play,
+	 * 			from the start of a round.
+	 */
+	public double getExpectedRounds(int totalScore) {
+		return rounds[Math.min(TARGET, totalScore / UNIT)];
+	}
+
+	/**
+	 * @param totalScore	The total score of the player.
+	 * @param bonusScore	The bonus carried over within the round.
+	 * @param locked		The {@link ScoreTable} code of the locked dice, all
+	 * 						of which must score.
+	 * @return				The expected number of rounds left to win with
+	 * 						optimal play before rolling the unlocked dice, the
+	 * 						current round included.
+	 */
+	public double getExpectedRounds(int totalScore, int bonusScore, int locked) {
+		int t = totalScore / UNIT;
+		if (t >= TARGET) {
+			return 0;
+		}
+
+		int state = Moves.indexOf(locked);
+		if (state < 0) {
+			throw new IllegalArgumentException("All locked dice must score");
+		}
+		return rolls[index(t, bonus(t, bonusScore), state)];
+	}
+
+	/**
+	 * Decides what to do after a successful roll.
+	 * 
+	 * @param totalScore	The total score of the player.
+	 * @param bonusScore	The bonus carried over within the round.
+	 * @param previousScore	The round score before the roll.
+	 * @param locked		The {@link ScoreTable} code of the dice locked before
+	 * 						the roll.
+	 * @param rolled		The {@link ScoreTable} code of the dice that were
+	 * 						just rolled.
+	 * @return				{@link #CLAIM}, or the ScoreTable code of the rolled
+	 * 						dice to keep before rolling again, which may be
+	 * 						{@link ScoreTable#EMPTY} right after all dice were
+	 * 						used. Always CLAIM if some locked die doesn't score.
+	 */
+	public int decide(int totalScore, int bonusScore, int previousScore, int locked, int rolled) {
+		int state = Moves.indexOf(locked);
+		if (state < 0) {
+			return CLAIM;
+		}
+
+		int t = Math.min(TARGET - 1, totalScore / UNIT);
+		int c = bonus(t, bonusScore);
+		Moves moves = Moves.forLocked(state);
+		int outcome = moves.getOutcomes().getOutcome(rolled);
+		if (outcome < 0) {
+			return CLAIM;
+		}
+
+		boolean free = locked == ScoreTable.EMPTY && bonusScore > 0 && previousScore < bonusScore;
+		if (!free && moves.getGain(outcome) == 0) {
+			return CLAIM;
+		}
+
+		int keep = best(rounds, rolls, t, c, moves, outcome, free);
+		if (keep == REROLL) {
+			return ScoreTable.EMPTY;
+		}
+		return keep < 0 ? CLAIM : moves.getKeepCode(keep);
+	}
+
+	/**
+	 * Writes the policy tables in a compact binary form.
+	 */
+	public void save(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(UNIT);
+		data.writeInt(TARGET);
+		data.writeInt(MIN);
+		data.writeInt(SIZE);
+		for (float value : rounds) {
+			data.writeFloat(value);
+		}
+		for (float value : rolls) {
+			data.writeFloat(value);
+		}
+		data.flush();
+	}
+
+	public void save(File file) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			save(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads a policy written by {@link #save(OutputStream)}.
+	 * 
+	 * @throws IOException If the data is not a policy for the current rules.
+	 */
+	public static OptimalPolicy load(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+			throw new IOException("Not a policy file");
+		} else if (data.readInt() != UNIT || data.readInt() != TARGET
+				|| data.readInt() != MIN || data.readInt() != SIZE) {
+			throw new IOException("The policy was solved for different rules");
+		}
+
+		float[] rounds = new float[TARGET + 1];
+		float[] rolls = new float[SIZE];
+		for (int i = 0; i < rounds.length; i++) {
+			rounds[i] = data.readFloat();
+		}
+		for (int i = 0; i < rolls.length; i++) {
+			rolls[i] = data.readFloat();
+		}
+		return new OptimalPolicy(rounds, rolls);
+	}
+
+	public static OptimalPolicy load(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return load(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @return The index of a state in the rolls table. Bonus scores are either
+	 * 			zero or at least MIN, since nothing less can be carried over.
+	 */
+	static int index(int total, int bonus, int state) {
+		int row = bonus == 0 ? 0 : bonus - MIN + 1;
+		return (ROW_OFFSETS[total] + row) * STATES + state;
+	}
+
+	/**
+	 * @return The highest bonus that needs to be told apart at a total score.
+	 * 			Anything above it wins on the next claim just the same.
+	 */
+	static int cap(int total) {
+		return Math.max(TARGET - total, MIN);
+	}
+
+	/**
+	 * @return The bonus in units, limited to the cap of the total.
+	 */
+	private static int bonus(int total, int bonusScore) {
+		return bonusScore == 0 ? 0 : Math.min(Math.max(bonusScore / UNIT, MIN), cap(total));
+	}
+
+	/**
+	 * Finds the best action after a successful roll.
+	 * 
+	 * @param free	True if the roll couldn't bust, in which case keeping
+	 * 				nothing is allowed.
+	 * @return		The keep to make, {@link #REROLL} or -1 to claim.
+	 */
+	static int best(float[] rounds, float[] rolls, int total, int bonus,
+			Moves moves, int outcome, boolean free) {
+		int claimed = bonus + (moves.getScore() + moves.getGain(outcome)) / UNIT;
+		if (total + claimed >= TARGET) {
+			return -1; // Nothing beats winning right away
+		}
+
+		float min = 1 + rounds[total + claimed];
+		int best = -1;
+
+		if (free && rolls[index(total, bonus, Moves.EMPTY)] < min) {
+			min = rolls[index(total, bonus, Moves.EMPTY)];
+			best = REROLL;
+		}
+
+		for (int keep = moves.getKeepStart(outcome); keep < moves.getKeepStart(outcome + 1); keep++) {
+			if (bonus + (moves.getScore() + moves.getKeepGain(keep)) / UNIT >= MIN) {
+				float cost = rolls[next(total, bonus, moves, keep)];
+				if (cost < min) {
+					min = cost;
+					best = keep;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return The index of the state reached by a keep. Locking the last dice
+	 * 			adds the round score to the bonus, and unless the bonus was
+	 * 			empty the roll after that can't bust.
+	 */
+	static int next(int total, int bonus, Moves moves, int keep) {
+		int locked = moves.getKeepNext(keep);
+		if (locked != Moves.ALL_LOCKED) {
+			return index(total, bonus, locked);
+		}
+
+		int round = bonus + (moves.getScore() + moves.getKeepGain(keep)) / UNIT;
+		return index(total, Math.min(bonus + round, cap(total)), bonus > 0 ? FREE : Moves.EMPTY);
+	}
+}
@@ -0,0 +1,53 @@
+package se.nielstrom.greed.solver;
+
+import se.nielstrom.greed.models.Die;
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.ScoreTable;
+import se.nielstrom.greed.simulation.Strategy;
+
+/**
+ * Plays according to an {@link OptimalPolicy}, which makes it possible to
+ * measure other strategies against optimal play in the
+ * {@link se.nielstrom.greed.simulation.Simulator Simulator}.
+ */
+public class OptimalStrategy implements Strategy {
+	private final OptimalPolicy policy;
+
+	public OptimalStrategy(OptimalPolicy policy) {
+		this.policy = policy;
+	}
+
+	@Override
+	public boolean play(Greed game) {
+		Die[] dice = game.getDice();
+		int locked = ScoreTable.EMPTY;
+		int rolled = ScoreTable.EMPTY;
+		for (Die die : dice) {
+			if (die.isLocked()) {
+				locked = ScoreTable.add(locked, die.getValue());
+			} else {
+				rolled = ScoreTable.add(rolled, die.getValue());
+			}
+		}
+
+		int keep = policy.decide(game.getScoreTotal(), game.getScoreRoundBonus(),
+				game.getScorePrevious(), locked, rolled);
+		if (keep == OptimalPolicy.CLAIM) {
+			return true;
+		}
+
+		for (Die die : dice) {
+			int side = die.getValue();
+			if (!die.isLocked() && ScoreTable.count(keep, side) > 0) {
+				die.setLocked(true);
+				keep = ScoreTable.remove(keep, side);
+			}
+		}
+		game.updateScore();
+		return false;
+	}
+
+	public OptimalPolicy getPolicy() {
+		return policy;
+	}
+}
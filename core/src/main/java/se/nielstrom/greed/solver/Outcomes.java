@@ -0,0 +1,140 @@
+package se.nielstrom.greed.solver;
+
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.ScoreTable;
+
+/**
+ * Every distinct outcome of rolling a given number of dice, together with its
+ * probability and its score, under the default rules.
+ */
+public final class Outcomes {
+	private static final ScoreTable TABLE = ScoreTable.DEFAULT;
+	private static final Outcomes[] BY_DICE = new Outcomes[Greed.NR_OF_DICE + 1];
+
+	static {
+		for (int dice = 1; dice <= Greed.NR_OF_DICE; dice++) {
+			BY_DICE[dice] = new Outcomes(dice);
+		}
+	}
+
+	private final int dice;
+	private final int[] codes;
+	private final double[] probabilities;
+	private final int[] scores;
+	private final int[] outcomeOf; // ScoreTable index -> outcome
+	private final int size;
+
+	private Outcomes(int dice) {
+		this.dice = dice;
+
+		codes = enumerate(dice);
+		size = codes.length;
+		probabilities = new double[size];
+		scores = new int[size];
+		outcomeOf = new int[TABLE.getCombinations()];
+		for (int i = 0; i < outcomeOf.length; i++) {
+			outcomeOf[i] = -1;
+		}
+
+		double total = Math.pow(Greed.NR_OF_SIDES, dice);
+		for (int i = 0; i < size; i++) {
+			int code = codes[i];
+			probabilities[i] = permutations(code) / total;
+			scores[i] = TABLE.score(code);
+			outcomeOf[TABLE.index(code)] = i;
+		}
+	}
+
+	/**
+	 * @param dice	The number of dice rolled, 1 through NR_OF_DICE.
+	 */
+	public static Outcomes forDice(int dice) {
+		return BY_DICE[dice];
+	}
+
+	public int getDice() {
+		return dice;
+	}
+
+	/**
+	 * @return The number of distinct outcomes.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The {@link ScoreTable} code of an outcome.
+	 */
+	public int getCode(int outcome) {
+		return codes[outcome];
+	}
+
+	/**
+	 * @return The outcome with the given {@link ScoreTable} code, or -1 if the
+	 * 			code doesn't hold the right number of dice.
+	 */
+	public int getOutcome(int code) {
+		return outcomeOf[TABLE.index(code)];
+	}
+
+	public double getProbability(int outcome) {
+		return probabilities[outcome];
+	}
+
+	public int getScore(int outcome) {
+		return scores[outcome];
+	}
+
+	/**
+	 * @return The codes of all combinations of exactly the given number of dice.
+	 */
+	private static int[] enumerate(int dice) {
+		int[] result = new int[TABLE.getCombinations()];
+		int n = 0;
+		int[] sides = new int[dice];
+		for (int i = 0; i < dice; i++) {
+			sides[i] = 1;
+		}
+
+		// Sides in non-decreasing order visit every combination once
+		while (true) {
+			result[n++] = ScoreTable.pack(sides);
+
+			int i = dice - 1;
+			while (i >= 0 && sides[i] == Greed.NR_OF_SIDES) {
+				i--;
+			}
+			if (i < 0) {
+				break;
+			}
+			sides[i]++;
+			for (int j = i + 1; j < dice; j++) {
+				sides[j] = sides[i];
+			}
+		}
+
+		int[] codes = new int[n];
+		System.arraycopy(result, 0, codes, 0, n);
+		return codes;
+	}
+
+	/**
+	 * @return The number of ordered rolls that make up a combination.
+	 */
+	private static double permutations(int code) {
+		double result = factorial(ScoreTable.size(code));
+		for (int side = 1; side <= Greed.NR_OF_SIDES; side++) {
+			result /= factorial(ScoreTable.count(code, side));
+		}
+		return result;
+	}
+
+	private static double factorial(int n) {
+		double result = 1;
+		for (int i = 2; i <= n; i++) {
+			result *= i;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,212 @@
+package se.nielstrom.greed.solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the {@link OptimalPolicy} using value iteration.
+ * 
+ * A claim always adds at least {@link se.nielstrom.greed.models.Greed#MIN_SCORE
+ * MIN_SCORE} points, so the states of a total score only depend on each other,
+ * on the expected rounds from the start of the round at that same total and on
+ * totals at least MIN_SCORE higher. Totals are therefore solved from the top
+ * down in blocks of MIN_SCORE points, with the totals of a block solved in
+ * parallel using fork-join.
+ * 
+ * Within a total, every iteration recomputes all states from the current
+ * estimate of the expected rounds from the start of the round. Along with the
+ * values the probability of busting under the current policy is tracked,
+ * which is the derivative of the values with respect to that estimate and lets
+ * each iteration take a Newton step towards the fixed point.
+ */
+public class Solver {
+	public static final double DEFAULT_TOLERANCE = 1e-6;
+	public static final int MAX_ITERATIONS = 1000;
+
+	/** Locked states by descending score, since keeps only add to the score. */
+	private static final int[] ORDER = new int[Moves.LOCKED];
+
+	static {
+		for (int i = 0; i < ORDER.length; i++) {
+			ORDER[i] = i;
+		}
+		for (int i = 1; i < ORDER.length; i++) {
+			int state = ORDER[i];
+			int score = Moves.forLocked(state).getScore();
+			int j = i;
+			while (j > 0 && Moves.forLocked(ORDER[j - 1]).getScore() < score) {
+				ORDER[j] = ORDER[j - 1];
+				j--;
+			}
+			ORDER[j] = state;
+		}
+	}
+
+	private final ForkJoinPool pool;
+	private final double tolerance;
+
+	private final float[] rounds = new float[OptimalPolicy.TARGET + 1];
+	private final float[] rolls = new float[OptimalPolicy.SIZE];
+	private final float[] slopes = new float[OptimalPolicy.SIZE];
+
+	public Solver() {
+		this(new ForkJoinPool(), DEFAULT_TOLERANCE);
+	}
+
+	public Solver(ForkJoinPool pool, double tolerance) {
+		this.pool = pool;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Solves the game. Takes a few seconds on a desktop machine.
+	 */
+	public OptimalPolicy solve() {
+		for (int top = OptimalPolicy.TARGET; top > 0; top -= OptimalPolicy.MIN) {
+			pool.invoke(new Block(Math.max(0, top - OptimalPolicy.MIN), top));
+		}
+		return new OptimalPolicy(rounds.clone(), rolls.clone());
+	}
+
+	/**
+	 * Finds the expected rounds left from the start of a round at the given
+	 * total, along with all states at that total.
+	 */
+	private void solve(int total) {
+		double[] first = new double[2];
+		double estimate = rounds[Math.min(OptimalPolicy.TARGET, total + OptimalPolicy.MIN)];
+
+		for (int i = 0; i < MAX_ITERATIONS; i++) {
+			evaluate(total, estimate, first);
+			double value = first[0];
+			double slope = first[1];
+
+			double next = (slope < 1 - 1e-9) ? (value - slope * estimate) / (1 - slope) : value;
+			boolean done = Math.abs(next - estimate) < tolerance;
+			estimate = next;
+			if (done) {
+				break;
+			}
+		}
+
+		evaluate(total, estimate, first);
+		rounds[total] = (float) estimate;
+	}
+
+	/**
+	 * Recomputes all states of a total from an estimate of the expected rounds
+	 * from the start of the round.
+	 * 
+	 * @param first	Receives the value of the first roll of the round and its
+	 * 				derivative with respect to the estimate.
+	 */
+	private void evaluate(int total, double estimate, double[] first) {
+		// Keeps never lower the bonus, and using all dice raises it
+		for (int bonus = OptimalPolicy.cap(total); bonus >= OptimalPolicy.MIN; bonus--) {
+			for (int state : ORDER) {
+				store(total, bonus, state, estimate, first);
+			}
+			store(total, bonus, OptimalPolicy.FREE, estimate, first);
+		}
+
+		// Without a bonus only locked dice worth the minimum can be reached
+		for (int state : ORDER) {
+			if (state != Moves.EMPTY && Moves.forLocked(state).getScore() >= OptimalPolicy.MIN * OptimalPolicy.UNIT) {
+				store(total, 0, state, estimate, first);
+			}
+		}
+		store(total, 0, Moves.EMPTY, estimate, first);
+	}
+
+	private void store(int total, int bonus, int state, double estimate, double[] result) {
+		roll(total, bonus, state, estimate, result);
+		int index = OptimalPolicy.index(total, bonus, state);
+		rolls[index] = (float) result[0];
+		slopes[index] = (float) result[1];
+	}
+
+	/**
+	 * Computes the expected rounds left before a roll.
+	 * 
+	 * @param result Receives the value and its derivative.
+	 */
+	private void roll(int total, int bonus, int state, double estimate, double[] result) {
+		boolean free = state == OptimalPolicy.FREE;
+		Moves moves = Moves.forLocked(free ? Moves.EMPTY : state);
+		Outcomes outcomes = moves.getOutcomes();
+
+		// The first roll must reach the minimum score, later ones just score
+		int least;
+		if (free) {
+			least = 0;
+		} else if (bonus == 0 && state == Moves.EMPTY) {
+			least = OptimalPolicy.MIN * OptimalPolicy.UNIT;
+		} else {
+			least = 1;
+		}
+
+		double value = 0;
+		double slope = 0;
+		for (int i = 0; i < outcomes.size(); i++) {
+			double probability = outcomes.getProbability(i);
+			if (moves.getGain(i) < least) {
+				value += probability * (1 + estimate);
+				slope += probability;
+				continue;
+			}
+
+			int keep = OptimalPolicy.best(rounds, rolls, total, bonus, moves, i, free);
+			if (keep == OptimalPolicy.REROLL) {
+				int next = OptimalPolicy.index(total, bonus, Moves.EMPTY);
+				value += probability * rolls[next];
+				slope += probability * slopes[next];
+			} else if (keep < 0) {
+				int claimed = bonus + (moves.getScore() + moves.getGain(i)) / OptimalPolicy.UNIT;
+				value += probability * (1 + rounds[Math.min(OptimalPolicy.TARGET, total + claimed)]);
+			} else {
+				int next = OptimalPolicy.next(total, bonus, moves, keep);
+				value += probability * rolls[next];
+				slope += probability * slopes[next];
+			}
+		}
+
+		result[0] = value;
+		result[1] = slope;
+	}
+
+	/**
+	 * Solves a block of totals in parallel, one task per total.
+	 */
+	private class Block extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+
+		public Block(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				solve(from);
+			} else {
+				int middle = (from + to) / 2;
+				invokeAll(new Block(from, middle), new Block(middle, to));
+			}
+		}
+	}
+
+	/**
+	 * Solves the game and saves the policy to the file given as the only
+	 * argument.
+	 */
+	public static void main(String[] args) throws IOException {
+		OptimalPolicy policy = new Solver().solve();
+		policy.save(new File(args[0]));
+		System.out.printf("Expected rounds to win: %.4f%n", policy.getExpectedRounds(0));
+	}
+}
@@ -0,0 +1,189 @@
+package se.nielstrom.greed.hint;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import se.nielstrom.greed.models.GameState;
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.models.ScoreTable;
+
+public class HintEngineTest {
+	private static final ScoreTable TABLE = ScoreTable.DEFAULT;
+	private static final int DICE = TABLE.getRules().getDice();
+	private static final int SIDES = TABLE.getRules().getSides();
+	/** Settled values may still grow by less than this. */
+	private static final double DELTA = 0.05;
+
+	@Test
+	public void matchesTheGameAfterAScoringRoll() {
+		for (int total : new int[] { 9500, 9000 }) {
+			GameState state = rolled(total, 2, 2, 2, 1, 5, 3);
+			Hint hint = search(state);
+			Assert.assertTrue(hint.isSettled());
+			Assert.assertEquals(new Reference(total).decide(state), hint.getValue(), DELTA);
+		}
+	}
+
+	@Test
+	public void matchesTheGameRollingTheLockedDice() {
+		GameState state = lock(rolled(9000, 2, 2, 2, 1, 5, 3), 0, 1, 2, 3);
+		Hint hint = search(state);
+		Assert.assertEquals(new Reference(9000).roll(state), hint.getRollValue(), DELTA);
+	}
+
+	@Test
+	public void matchesTheGameOnHotDice() {
+		GameState state = lock(rolled(9000, 2, 2, 2, 3, 3, 3), 0, 1, 2, 3, 4, 5);
+		Hint hint = search(state);
+		Assert.assertEquals(new Reference(9000).roll(state), hint.getRollValue(), DELTA);
+	}
+
+	@Test
+	public void neverBustsOnHotDiceWithABonus() {
+		// 1500 points of hot dice twice over, so the bonus alone beats the round
+		GameState state = lock(rolled(6000, 1, 1, 1, 5, 5, 5), 0, 1, 2, 3, 4, 5);
+		state = lock(state.roll(TABLE, new int[] { 1, 1, 1, 5, 5, 5 }), 0, 1, 2, 3, 4, 5);
+		Assert.assertEquals(3000, state.getScoreRound());
+
+		// Any roll brings the 4000 points needed to win
+		Hint hint = search(state);
+		Assert.assertEquals(4000, new Reference(6000).roll(state), 1e-9);
+		Assert.assertEquals(4000, hint.getRollValue(), 1e-9);
+		Assert.assertEquals(4000, hint.getValue(), 1e-9);
+		Assert.assertFalse(hint.isClaim());
+	}
+
+	private static Hint search(GameState state) {
+		return new HintEngine(TABLE).search(state, System.nanoTime() + TimeUnit.SECONDS.toNanos(30));
+	}
+
+	/**
+	 * @return The state after the first roll of a round at a total score.
+	 */
+	private static GameState rolled(int total, int... faces) {
+		GameState start = new Greed().setScoreTotal(total).getGameState();
+		GameState state = start.roll(TABLE, faces);
+		Assert.assertEquals(Greed.State.OK, state.getState());
+		return state;
+	}
+
+	private static GameState lock(GameState state, int... dice) {
+		for (int die : dice) {
+			state = state.setLocked(die, true);
+		}
+		return state.updateScore(TABLE);
+	}
+
+	/**
+	 * Searches the expected points of a round the slow way, through the moves
+	 * of a GameState and without a horizon. A roll that scores gains at least
+	 * a die's worth, so the search ends as long as few points are needed.
+	 */
+	private static class Reference {
+		private final int need;
+		private final Map<GameState, Double> values = new HashMap<>();
+
+		Reference(int total) {
+			need = TABLE.getRules().getWinningScore() - total;
+		}
+
+		/**
+		 * @return The points of the best of claiming and rolling any keep.
+		 */
+		double decide(GameState rolled) {
+			Double known = values.get(rolled);
+			if (known != null) {
+				return known;
+			}
+			double value = Math.min(rolled.claim(TABLE).getScoreTotal() - rolled.getScoreTotal(), need);
+			if (value < need) {
+				Set<Integer> keeps = new HashSet<>();
+				for (int mask = 1; mask < 1 << DICE; mask++) {
+					GameState state = rolled;
+					int code = ScoreTable.EMPTY;
+					for (int i = 0; i < DICE; i++) {
+						state = state.setLocked(i, (mask & (1 << i)) != 0);
+						if ((mask & (1 << i)) != 0) {
+							code = ScoreTable.add(code, state.getFace(i));
+						}
+					}
+					state = state.updateScore(TABLE);
+					if (TABLE.allUsed(code) && keeps.add(code) && state.canRoll(TABLE)) {
+						value = Math.max(value, roll(state));
+					}
+				}
+			}
+			values.put(rolled, value);
+			return value;
+		}
+
+		/**
+		 * @return The expected points of rolling, a roll that doesn't score
+		 * 			being worth nothing.
+		 */
+		double roll(GameState state) {
+			int[] free = new int[DICE];
+			int code = ScoreTable.EMPTY;
+			int count = 0;
+			for (int i = 0; i < DICE; i++) {
+				if (!state.isLocked(i)) {
+					free[count++] = i;
+				} else {
+					code = ScoreTable.add(code, state.getFace(i));
+				}
+			}
+			if (count == 0 && TABLE.allUsed(code)) { // Hot dice
+				for (int i = 0; i < DICE; i++) {
+					free[count++] = i;
+				}
+			}
+
+			int[] faces = new int[DICE];
+			int[] sides = new int[count];
+			Arrays.fill(sides, 1);
+			double value = 0;
+			while (true) {
+				for (int i = 0; i < DICE; i++) {
+					faces[i] = state.getFace(i);
+				}
+				double orders = factorial(count);
+				int[] counts = new int[SIDES + 1];
+				for (int i = 0; i < count; i++) {
+					faces[free[i]] = sides[i];
+					orders /= ++counts[sides[i]];
+				}
+				GameState next = state.roll(TABLE, faces);
+				if (next.getState() == Greed.State.OK) {
+					value += orders / Math.pow(SIDES, count) * decide(next);
+				}
+
+				int i = count - 1;
+				while (i >= 0 && sides[i] == SIDES) {
+					i--;
+				}
+				if (i < 0) {
+					return value;
+				}
+				sides[i]++;
+				for (int j = i + 1; j < count; j++) {
+					sides[j] = sides[i];
+				}
+			}
+		}
+
+		private static double factorial(int n) {
+			double result = 1;
+			for (int i = 2; i <= n; i++) {
+				result *= i;
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package se.nielstrom.greed.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QuantileSketchTest {
+
+	@Test
+	public void estimatesQuantilesOfAUniformStream() {
+		for (double quantile : new double[] { 0.1, 0.5, 0.9 }) {
+			QuantileSketch sketch = new QuantileSketch(quantile);
+			Random random = new Random(1);
+			for (int i = 0; i < 100000; i++) {
+				sketch.add(random.nextDouble());
+			}
+			Assert.assertEquals(quantile, sketch.getEstimate(), 0.01);
+		}
+	}
+
+	@Test
+	public void estimatesQuantilesOfASkewedStream() {
+		// Exponential with a mean of 1, the median being ln 2
+		QuantileSketch median = new QuantileSketch(0.5);
+		QuantileSketch tail = new QuantileSketch(0.9);
+		Random random = new Random(2);
+		for (int i = 0; i < 100000; i++) {
+			double value = -Math.log(1 - random.nextDouble());
+			median.add(value);
+			tail.add(value);
+		}
+		Assert.assertEquals(Math.log(2), median.getEstimate(), 0.02);
+		Assert.assertEquals(Math.log(10), tail.getEstimate(), 0.05);
+	}
+
+	@Test
+	public void isExactForTheFirstValues() {
+		QuantileSketch sketch = new QuantileSketch(0.5);
+		Assert.assertTrue(Double.isNaN(sketch.getEstimate()));
+		sketch.add(30);
+		Assert.assertEquals(30, sketch.getEstimate(), 0);
+		sketch.add(10);
+		sketch.add(20);
+		Assert.assertEquals(20, sketch.getEstimate(), 0);
+		sketch.add(50);
+		sketch.add(40);
+		Assert.assertEquals(30, sketch.getEstimate(), 0);
+		Assert.assertEquals(5, sketch.getCount());
+	}
+
+	@Test
+	public void goesOnAfterBeingRead() throws IOException {
+		QuantileSketch sketch = new QuantileSketch(0.75);
+		Random random = new Random(3);
+		for (int i = 0; i < 1000; i++) {
+			sketch.add(random.nextDouble());
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		sketch.writeTo(new DataOutputStream(bytes));
+		QuantileSketch read = new QuantileSketch(new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())));
+		Assert.assertEquals(sketch.getCount(), read.getCount());
+
+		for (int i = 0; i < 1000; i++) {
+			double value = random.nextDouble();
+			sketch.add(value);
+			read.add(value);
+			Assert.assertEquals(sketch.getEstimate(), read.getEstimate(), 0);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsQuantilesOutsideZeroAndOne() {
+		new QuantileSketch(1.5);
+	}
+}
@@ -0,0 +1,169 @@
+package se.nielstrom.greed.host;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.nielstrom.greed.models.GameState;
+import se.nielstrom.greed.models.Greed;
+
+public class GameHostTest {
+	private static final long TIMEOUT = TimeUnit.MINUTES.toNanos(10);
+	/** More actions than a session performs in one go. */
+	private static final int BATCH_AND_MORE = 100;
+
+	private GameHost host;
+
+	@Before
+	public void setUp() {
+		host = new GameHost(2, TIMEOUT, TimeUnit.NANOSECONDS);
+	}
+
+	@After
+	public void tearDown() {
+		host.close();
+	}
+
+	@Test
+	public void performsTheActionsInOrder() throws InterruptedException {
+		long session = host.open(11);
+		Recorder recorder = new Recorder(200);
+		for (int i = 0; i < 200; i++) {
+			Assert.assertTrue(host.submit(session, i % 3 == 2 ? GameHost.CLAIM : GameHost.ROLL, 0,
+					recorder));
+		}
+		recorder.await();
+
+		Greed game = new Greed(11);
+		for (int i = 0; i < 200; i++) {
+			if (i % 3 == 2) {
+				game.claim();
+			} else {
+				game.roll();
+			}
+			Assert.assertEquals(game.getGameState(), recorder.states.get(i));
+		}
+		Assert.assertEquals(200, host.getActions());
+	}
+
+	@Test
+	public void carriesOnAfterAFailedAction() throws InterruptedException {
+		long session = host.open(12);
+		Recorder recorder = new Recorder(2);
+		host.submit(session, 99, 0, recorder);
+		host.submit(session, GameHost.ROLL, 0, recorder);
+		recorder.await();
+
+		Assert.assertEquals(1, recorder.failures.size());
+		Assert.assertTrue(recorder.failures.get(0) instanceof IllegalArgumentException);
+		Assert.assertEquals(1, recorder.states.size());
+	}
+
+	@Test
+	public void carriesOnAfterACallbackThrows() throws InterruptedException {
+		long session = host.open(13);
+		ActionCallback throwing = new Recorder(0) {
+			@Override
+			public void onDone(long id, long dice, long scores) {
+				throw new IllegalStateException("Thrown on purpose by the test");
+			}
+		};
+		Recorder recorder = new Recorder(BATCH_AND_MORE);
+		host.submit(session, GameHost.ROLL, 0, throwing);
+		for (int i = 0; i < BATCH_AND_MORE; i++) {
+			Assert.assertTrue(host.submit(session, GameHost.ROLL, 0, recorder));
+		}
+		recorder.await();
+		Assert.assertEquals(BATCH_AND_MORE, recorder.states.size());
+
+		// The session goes back to idle once the last callback returns
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (host.size() > 0 && System.nanoTime() - deadline < 0) {
+			host.evictIdle(System.nanoTime() + 2 * TIMEOUT);
+			Thread.yield();
+		}
+		Assert.assertEquals(0, host.size());
+	}
+
+	@Test
+	public void evictsIdleSessions() {
+		long idle = host.open(14);
+		host.evictIdle(System.nanoTime());
+		Assert.assertEquals(1, host.size());
+
+		host.evictIdle(System.nanoTime() + 2 * TIMEOUT);
+		Assert.assertEquals(0, host.size());
+		Assert.assertEquals(1, host.getEvictions());
+		Assert.assertFalse(host.submit(idle, GameHost.ROLL, 0, null));
+	}
+
+	@Test
+	public void keepsBusySessions() throws InterruptedException {
+		long session = host.open(15);
+		final CountDownLatch running = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		host.submit(session, GameHost.ROLL, 0, new Recorder(0) {
+			@Override
+			public void onDone(long id, long dice, long scores) {
+				running.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+
+		host.evictIdle(System.nanoTime() + 2 * TIMEOUT);
+		Assert.assertEquals(1, host.size());
+		Recorder recorder = new Recorder(1);
+		Assert.assertTrue(host.submit(session, GameHost.ROLL, 0, recorder));
+		release.countDown();
+		recorder.await();
+	}
+
+	@Test
+	public void refusesClosedSessions() {
+		long session = host.open(16);
+		Assert.assertTrue(host.close(session));
+		Assert.assertFalse(host.close(session));
+		Assert.assertFalse(host.submit(session, GameHost.ROLL, 0, null));
+	}
+
+	/**
+	 * Keeps the outcome of every action, in order.
+	 */
+	private static class Recorder implements ActionCallback {
+		final List<GameState> states = Collections.synchronizedList(new ArrayList<GameState>());
+		final List<Exception> failures = Collections.synchronizedList(new ArrayList<Exception>());
+		final CountDownLatch done;
+
+		Recorder(int actions) {
+			done = new CountDownLatch(actions);
+		}
+
+		@Override
+		public void onDone(long session, long dice, long scores) {
+			states.add(GameState.valueOf(dice, scores));
+			done.countDown();
+		}
+
+		@Override
+		public void onFailed(long session, Exception cause) {
+			failures.add(cause);
+			done.countDown();
+		}
+
+		void await() throws InterruptedException {
+			Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package se.nielstrom.greed.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.nielstrom.greed.models.GameStateCodec;
+import se.nielstrom.greed.models.Greed;
+
+public class GameJournalTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void replaysEveryEvent() throws IOException {
+		File file = folder.newFile();
+		Greed game = new Greed(3);
+		long[] states = new long[20 * GameStateCodec.LONGS];
+
+		GameJournal journal = new GameJournal(file);
+		game.setJournal(journal);
+		journal.record(GameJournal.START, 0, game);
+		GameStateCodec.encode(game, states, 0);
+		for (int i = 1; i < 20; i++) {
+			game.roll();
+			GameStateCodec.encode(game, states, i * GameStateCodec.LONGS);
+		}
+		game.setJournal(null);
+		journal.close();
+
+		JournalReader reader = new JournalReader(file);
+		try {
+			Assert.assertEquals(20, reader.size());
+			Assert.assertEquals(GameJournal.START, reader.getType(0));
+			Assert.assertEquals(GameJournal.ROLL, reader.getType(19));
+			Assert.assertEquals(0, reader.findGameStart(19));
+			for (int i = 0; i < 20; i++) {
+				Assert.assertEquals(states[i * GameStateCodec.LONGS], reader.getDice(i));
+				Assert.assertEquals(states[i * GameStateCodec.LONGS + 1], reader.getScores(i));
+			}
+			Greed replayed = reader.replay(19, new Greed());
+			Assert.assertEquals(game.getGameState(), replayed.getGameState());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void startsNoGameWhenAttachedAgain() throws IOException {
+		File file = folder.newFile();
+		Greed game = new Greed(4);
+		GameJournal journal = new GameJournal(file);
+		game.setJournal(journal);
+		journal.record(GameJournal.START, 0, game);
+		game.roll();
+
+		// As when the activity is recreated on rotation
+		game.setJournal(null);
+		game.setJournal(journal);
+		game.roll();
+		game.reset();
+		game.roll();
+		game.setJournal(null);
+		journal.close();
+
+		JournalReader reader = new JournalReader(file);
+		try {
+			Assert.assertEquals(5, reader.size());
+			Assert.assertEquals(GameJournal.ROLL, reader.getType(2));
+			Assert.assertEquals(0, reader.findGameStart(2));
+			Assert.assertEquals(GameJournal.RESET, reader.getType(3));
+			Assert.assertEquals(3, reader.findGameStart(4));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void hidesAndOverwritesATornBatch() throws IOException {
+		File file = folder.newFile();
+		Greed game = new Greed(5);
+		write(file, game, 3);
+
+		// A batch written after the last published count, as if the process
+		// died before the count was updated
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(raf.length());
+			for (int i = 0; i < 2 * GameJournal.RECORD_SIZE; i++) {
+				raf.write(0xff);
+			}
+		} finally {
+			raf.close();
+		}
+		Assert.assertEquals(3, size(file));
+
+		write(file, game, 2);
+		JournalReader reader = new JournalReader(file);
+		try {
+			Assert.assertEquals(5, reader.size());
+			Assert.assertEquals(GameJournal.ROLL, reader.getType(4));
+			Assert.assertEquals(game.getGameState(), reader.replay(4, new Greed()).getGameState());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void onlyReadsTheRecordsInTheFile() throws IOException {
+		File file = folder.newFile();
+		write(file, new Greed(9), 4);
+
+		// A count published for records that never reached the file
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(GameJournal.COUNT_OFFSET);
+			raf.write(new byte[] { 100, 0, 0, 0, 0, 0, 0, 0 });
+		} finally {
+			raf.close();
+		}
+		Assert.assertEquals(4, size(file));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherFiles() throws IOException {
+		File file = folder.newFile();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.write(new byte[GameJournal.HEADER_SIZE]);
+		} finally {
+			raf.close();
+		}
+		new JournalReader(file);
+	}
+
+	@Test
+	public void reportsAFileThatIsNoJournal() throws IOException {
+		File file = folder.newFile();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.write(new byte[GameJournal.HEADER_SIZE]);
+		} finally {
+			raf.close();
+		}
+		GameJournal journal = new GameJournal(file);
+		try {
+			journal.close();
+			Assert.fail("The journal wrote to a file of something else");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	/**
+	 * Records a game starting and rolling, one event each, and closes the
+	 * journal.
+	 */
+	private static void write(File file, Greed game, int events) throws IOException {
+		GameJournal journal = new GameJournal(file, 16);
+		journal.record(GameJournal.START, 0, game);
+		for (int i = 1; i < events; i++) {
+			game.roll();
+			journal.record(GameJournal.ROLL, 0, game);
+		}
+		journal.close();
+	}
+
+	private static int size(File file) throws IOException {
+		JournalReader reader = new JournalReader(file);
+		try {
+			return reader.size();
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package se.nielstrom.greed.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.nielstrom.greed.models.Greed;
+
+public class GameSnapshotTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void restoresTheLatestSave() throws IOException {
+		File file = folder.newFile();
+		Greed[] games = { new Greed(1), new Greed(2), new Greed() };
+		GameSnapshot snapshot = new GameSnapshot(file);
+		for (int i = 0; i < 5; i++) {
+			for (Greed game : games) {
+				game.roll();
+			}
+			snapshot.save(games, i % games.length, 1234, i);
+		}
+		snapshot.close();
+
+		snapshot = new GameSnapshot(file);
+		Greed[] restored = { new Greed(), new Greed(), new Greed() };
+		snapshot.restore(restored);
+		snapshot.close();
+		Assert.assertEquals(5, snapshot.getSequence());
+		Assert.assertEquals(3, snapshot.getGames());
+		Assert.assertEquals(1, snapshot.getCurrent());
+		Assert.assertEquals(1234, snapshot.getStarted());
+		Assert.assertEquals(4, snapshot.getFlags());
+		for (int i = 0; i < games.length; i++) {
+			Assert.assertEquals(games[i].getGameState(), restored[i].getGameState());
+		}
+
+		// Seeded games roll on from where they were left
+		for (int i = 0; i < 2; i++) {
+			Assert.assertEquals(games[i].getSeed(), restored[i].getSeed());
+			Assert.assertEquals(games[i].roll().getGameState(), restored[i].roll().getGameState());
+		}
+	}
+
+	@Test
+	public void fallsBackOnATornSave() throws IOException {
+		File file = folder.newFile();
+		Greed game = new Greed(4);
+		GameSnapshot snapshot = new GameSnapshot(file);
+		snapshot.save(new Greed[] { game.roll() }, 0, 0, 1);
+		Greed whole = new Greed();
+		whole.setGameState(game.getGameState());
+		snapshot.save(new Greed[] { game.roll() }, 0, 0, 2);
+		snapshot.close();
+
+		// Cut the second save short, which went to the second slot
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			int offset = GameSnapshot.HEADER_SIZE + GameSnapshot.SLOT_SIZE
+					+ GameSnapshot.SLOT_HEADER_SIZE;
+			raf.seek(offset);
+			raf.write(~raf.read());
+		} finally {
+			raf.close();
+		}
+
+		snapshot = new GameSnapshot(file);
+		Greed[] restored = { new Greed() };
+		snapshot.restore(restored);
+		snapshot.close();
+		Assert.assertEquals(1, snapshot.getSequence());
+		Assert.assertEquals(1, snapshot.getFlags());
+		Assert.assertEquals(whole.getGameState(), restored[0].getGameState());
+	}
+
+	@Test
+	public void startsEmptyOnOtherFiles() throws IOException {
+		File file = folder.newFile();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			for (int i = 0; i < GameSnapshot.FILE_SIZE; i++) {
+				raf.write(i);
+			}
+		} finally {
+			raf.close();
+		}
+
+		GameSnapshot snapshot = new GameSnapshot(file);
+		Assert.assertEquals(0, snapshot.getGames());
+		Assert.assertEquals(0, snapshot.getSequence());
+		snapshot.save(new Greed[] { new Greed() }, 0, 0, 0);
+		snapshot.close();
+		snapshot = new GameSnapshot(file);
+		snapshot.close();
+		Assert.assertEquals(1, snapshot.getGames());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsTooManyGames() throws IOException {
+		GameSnapshot snapshot = new GameSnapshot(folder.newFile());
+		try {
+			snapshot.save(new Greed[GameSnapshot.MAX_GAMES + 1], 0, 0, 0);
+		} finally {
+			snapshot.close();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package se.nielstrom.greed.models;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GameStateCodecTest {
+
+	@Test
+	public void decodesWhatItEncodes() {
+		Greed game = new Greed(7);
+		long[] state = new long[GameStateCodec.LONGS];
+		for (int step = 0; step < 2000 && game.getState() != Greed.State.WIN; step++) {
+			play(game);
+			GameStateCodec.encode(game, state, 0);
+
+			Greed copy = new Greed(8);
+			GameStateCodec.decode(state, 0, copy);
+			assertSameGame(game, copy);
+			Assert.assertEquals(GameStateCodec.hash(game), GameStateCodec.hash(copy));
+			Assert.assertEquals(game.getGameState(), copy.getGameState());
+		}
+	}
+
+	@Test
+	public void keepsTheHighestValues() {
+		Greed game = new Greed();
+		for (Die die : game.getDice()) {
+			die.setValue(Greed.NR_OF_SIDES).setLocked(true);
+		}
+		game.setRound(Integer.MAX_VALUE).setScoreTotal(GameStateCodec.SCORE_MASK
+				* GameStateCodec.SCORE_UNIT).setState(Greed.State.WIN);
+
+		Greed copy = new Greed();
+		GameStateCodec.decode(GameStateCodec.encodeDice(game), GameStateCodec.encodeScores(game), copy);
+		assertSameGame(game, copy);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsScoresOffTheUnit() {
+		GameStateCodec.encodeScores(new Greed().setScoreTotal(GameStateCodec.SCORE_UNIT + 1));
+	}
+
+	@Test
+	public void fitsOnlySixDiceOfUpToSevenSides() {
+		Assert.assertTrue(GameStateCodec.fits(RuleSet.DEFAULT));
+		Assert.assertTrue(GameStateCodec.fits(new RuleSet(6, 7, 300, 10000, 1000)));
+		Assert.assertFalse(GameStateCodec.fits(new RuleSet(7, 6, 300, 10000, 1000)));
+		Assert.assertFalse(GameStateCodec.fits(new RuleSet(6, 8, 300, 10000, 1000)));
+	}
+
+	@Test
+	public void fitsOnlyScoresOfWholeUnits() {
+		int most = GameStateCodec.SCORE_MASK * GameStateCodec.SCORE_UNIT;
+		Assert.assertTrue(GameStateCodec.fits(new RuleSet(6, 6, 0, most, 50)));
+		Assert.assertFalse(GameStateCodec.fits(new RuleSet(6, 6, 300, 10000, 1025)));
+		Assert.assertFalse(GameStateCodec.fits(new RuleSet(6, 6, 310, 10000, 1000)));
+		Assert.assertFalse(GameStateCodec.fits(new RuleSet(6, 6, 300, 10010, 1000)));
+		Assert.assertFalse(GameStateCodec.fits(new RuleSet(6, 6, 300, most + 50, 1000)));
+		Assert.assertFalse(GameStateCodec.fits(new RuleSet(6, 6, -50, 10000, 1000)));
+	}
+
+	/**
+	 * Makes a move, locking ones and fives one at a time and claiming once no
+	 * more can be locked.
+	 */
+	static void play(Greed game) {
+		if (game.getState() == Greed.State.OK) {
+			for (Die die : game.getDice()) {
+				if (!die.isLocked() && (die.getValue() == 1 || die.getValue() == 5)) {
+					die.setLocked(true);
+					game.updateScore();
+					return;
+				}
+			}
+			if (game.updateScore() && game.getScoreRound() < 400) {
+				game.roll();
+			} else {
+				game.claim();
+			}
+		} else {
+			game.roll();
+		}
+	}
+
+	static void assertSameGame(Greed expected, Greed actual) {
+		for (int i = 0; i < expected.getDice().length; i++) {
+			Assert.assertEquals(expected.getDice()[i].getValue(), actual.getDice()[i].getValue());
+			Assert.assertEquals(expected.getDice()[i].isLocked(), actual.getDice()[i].isLocked());
+		}
+		Assert.assertEquals(expected.getState(), actual.getState());
+		Assert.assertEquals(expected.getRound(), actual.getRound());
+		Assert.assertEquals(expected.getScoreTotal(), actual.getScoreTotal());
+		Assert.assertEquals(expected.getScoreRound(), actual.getScoreRound());
+		Assert.assertEquals(expected.getScorePrevious(), actual.getScorePrevious());
+		Assert.assertEquals(expected.getScoreRoundBonus(), actual.getScoreRoundBonus());
+	}
+}
@@ -0,0 +1,94 @@
+package se.nielstrom.greed.models;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GameStateTest {
+
+	@Test
+	public void movesLikeTheGame() {
+		ScoreTable table = ScoreTable.forRules(RuleSet.DEFAULT);
+		for (long seed = 0; seed < 200; seed++) {
+			Greed game = new Greed(seed);
+			GameState state = game.getGameState();
+			Assert.assertEquals(GameState.start(RuleSet.DEFAULT), state);
+			int[] faces = new int[RuleSet.DEFAULT.getDice()];
+
+			for (int step = 0; step < 2000 && game.getState() != Greed.State.WIN; step++) {
+				int lock = nextLock(game);
+				if (lock >= 0) {
+					game.getDice()[lock].setLocked(true);
+					state = state.setLocked(lock, true);
+					continue;
+				}
+				if (game.getState() == Greed.State.OK) {
+					boolean canRoll = game.updateScore();
+					state = state.updateScore(table);
+					Assert.assertEquals(game.getGameState(), state);
+					Assert.assertEquals(canRoll, state.canRoll(table));
+				}
+				if (!state.canRoll(table) || game.getScoreRound() >= 400) {
+					game.claim();
+					state = state.claim(table);
+				} else {
+					game.roll();
+					for (int i = 0; i < faces.length; i++) {
+						faces[i] = game.getDice()[i].getValue();
+					}
+					state = state.roll(table, faces);
+				}
+				Assert.assertEquals(game.getGameState(), state);
+			}
+			game.reset();
+			Assert.assertEquals(game.getGameState(), state.reset(RuleSet.DEFAULT));
+		}
+	}
+
+	@Test
+	public void leavesItselfAsItIs() {
+		ScoreTable table = ScoreTable.forRules(RuleSet.DEFAULT);
+		GameState start = GameState.start(RuleSet.DEFAULT);
+		GameState rolled = start.roll(table, new int[] { 1, 1, 1, 2, 3, 4 });
+		Assert.assertEquals(GameState.start(RuleSet.DEFAULT), start);
+		Assert.assertEquals(Greed.State.OK, rolled.getState());
+		Assert.assertEquals(1000, rolled.getScoreRound());
+
+		GameState locked = rolled.setLocked(0, true);
+		Assert.assertFalse(rolled.isLocked(0));
+		Assert.assertTrue(locked.isLocked(0));
+		Assert.assertNotEquals(rolled, locked);
+		Assert.assertEquals(rolled, locked.toggleLocked(0));
+		Assert.assertEquals(rolled.hashCode(), locked.toggleLocked(0).hashCode());
+	}
+
+	@Test
+	public void setsTheGameToAState() {
+		Greed game = new Greed(3);
+		GameState start = game.getGameState();
+		game.roll();
+		GameState rolled = game.getGameState();
+
+		Greed other = new Greed(4);
+		other.setGameState(rolled);
+		Assert.assertEquals(rolled, other.getGameState());
+		other.setGameState(start);
+		Assert.assertEquals(start, other.getGameState());
+	}
+
+	/**
+	 * @return	The first unlocked one or five of a scoring roll, or -1 if
+	 * 			there is none and it's time to roll or claim.
+	 */
+	private static int nextLock(Greed game) {
+		if (game.getState() != Greed.State.OK) {
+			return -1;
+		}
+		Die[] dice = game.getDice();
+		for (int i = 0; i < dice.length; i++) {
+			if (!dice[i].isLocked() && (dice[i].getValue() == 1 || dice[i].getValue() == 5)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
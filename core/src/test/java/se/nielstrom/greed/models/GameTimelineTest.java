@@ -0,0 +1,97 @@
+package se.nielstrom.greed.models;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GameTimelineTest {
+
+	@Test
+	public void undoesAndRedoes() {
+		Greed game = new Greed(5);
+		GameTimeline timeline = new GameTimeline();
+		Assert.assertNull(timeline.getCurrent());
+		Assert.assertFalse(timeline.canUndo());
+
+		GameState[] states = new GameState[100];
+		for (int i = 0; i < states.length; i++) {
+			game.roll();
+			states[i] = game.getGameState();
+			timeline.add(game);
+		}
+		Assert.assertEquals(states.length, timeline.size());
+		Assert.assertFalse(timeline.canRedo());
+
+		for (int i = states.length - 2; i >= 0; i--) {
+			Assert.assertEquals(states[i], timeline.undo());
+			Assert.assertEquals(i + 1, timeline.getRolls());
+		}
+		Assert.assertFalse(timeline.canUndo());
+		Assert.assertEquals(states[1], timeline.redo());
+		Assert.assertEquals(states.length, timeline.size());
+	}
+
+	@Test
+	public void addingDropsWhatCouldBeRedone() {
+		Greed game = new Greed(6);
+		GameTimeline timeline = new GameTimeline();
+		timeline.add(game);
+		game.roll();
+		timeline.add(game);
+		game.roll();
+		timeline.add(game);
+
+		timeline.undo();
+		timeline.undo();
+		game.setGameState(timeline.getCurrent());
+		game.getDice()[0].setLocked(true);
+		timeline.add(game);
+		Assert.assertEquals(2, timeline.size());
+		Assert.assertFalse(timeline.canRedo());
+		Assert.assertEquals(game.getGameState(), timeline.getCurrent());
+	}
+
+	@Test
+	public void ignoresTheSameStateTwice() {
+		Greed game = new Greed(7);
+		GameTimeline timeline = new GameTimeline();
+		timeline.add(game);
+		timeline.add(game);
+		Assert.assertEquals(1, timeline.size());
+	}
+
+	@Test
+	public void rollsTheSameDiceAfterAnUndo() {
+		Greed game = new Greed(8);
+		GameTimeline timeline = new GameTimeline();
+		timeline.add(game);
+		game.roll();
+		timeline.add(game);
+		GameState first = game.getGameState();
+		game.roll();
+		timeline.add(game);
+		GameState second = game.getGameState();
+
+		game.setGameState(timeline.undo());
+		game.resume(game.getSeed(), timeline.getRolls());
+		Assert.assertEquals(first, game.getGameState());
+		game.roll();
+		Assert.assertEquals(second, game.getGameState());
+	}
+
+	@Test
+	public void restoresWhatItSaved() {
+		Greed game = new Greed(9);
+		GameTimeline timeline = new GameTimeline();
+		for (int i = 0; i < 200; i++) {
+			game.roll();
+			timeline.add(game);
+		}
+		timeline.undo();
+
+		GameTimeline copy = new GameTimeline(timeline.toLongArray(), timeline.getPosition());
+		Assert.assertEquals(timeline.size(), copy.size());
+		Assert.assertEquals(timeline.getCurrent(), copy.getCurrent());
+		Assert.assertEquals(timeline.getRolls(), copy.getRolls());
+		Assert.assertEquals(timeline.redo(), copy.redo());
+	}
+}
@@ -0,0 +1,125 @@
+package se.nielstrom.greed.models;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import se.nielstrom.greed.random.XoshiroSource;
+
+public class KeepsTest {
+	private final ScoreTable table = ScoreTable.DEFAULT;
+
+	@Test
+	public void findsEveryCombinationOnce() {
+		Greed game = new Greed();
+		XoshiroSource random = new XoshiroSource(11);
+		int[] keeps = new int[Keeps.MAX];
+		for (int n = 0; n < 20000; n++) {
+			for (Die die : game.getDice()) {
+				die.setLocked(false).setValue(1 + random.nextInt(Greed.NR_OF_SIDES))
+						.setLocked(random.nextInt(3) == 0);
+			}
+			assertKeeps(game, keeps, game.findKeeps(keeps, 0));
+		}
+	}
+
+	@Test
+	public void findsTheKeepsOfARoll() {
+		Greed game = new Greed();
+		setDice(game, 1, 1, 5, 2, 2, 2);
+		int[] keeps = new int[Keeps.MAX];
+		int found = game.findKeeps(keeps, 0);
+
+		// One or two ones, times none or one five, times none or three twos, less nothing
+		Assert.assertEquals(3 * 2 * 2 - 1, found);
+		assertKeeps(game, keeps, found);
+		int best = 0;
+		for (int i = 0; i < found; i++) {
+			if (Keeps.usesAllDice(keeps[i])) {
+				best = keeps[i];
+			}
+		}
+		Assert.assertEquals(0x3f, Keeps.getMask(best));
+		Assert.assertEquals(200 + 50 + 200, Keeps.getScore(best));
+	}
+
+	@Test
+	public void findsNothingWithoutScoringDice() {
+		Greed game = new Greed();
+		setDice(game, 2, 3, 4, 6, 6, 2);
+		Assert.assertEquals(0, game.findKeeps(new int[Keeps.MAX], 0));
+	}
+
+	@Test
+	public void fillsFromTheOffset() {
+		Greed game = new Greed();
+		setDice(game, 1, 2, 3, 4, 6, 6);
+		int[] keeps = new int[Keeps.MAX + 3];
+		Assert.assertEquals(1, game.findKeeps(keeps, 3));
+		Assert.assertEquals(0, keeps[2]);
+		Assert.assertEquals(1, Keeps.getMask(keeps[3]));
+		Assert.assertEquals(100, Keeps.getScore(keeps[3]));
+	}
+
+	/**
+	 * Checks the keeps found against every set of rolled dice: each scoring
+	 * combination once, made of the first dice showing its sides.
+	 */
+	private void assertKeeps(Greed game, int[] keeps, int found) {
+		Die[] dice = game.getDice();
+		int locked = ScoreTable.EMPTY;
+		int rolled = 0;
+		for (int i = 0; i < dice.length; i++) {
+			if (dice[i].isLocked()) {
+				locked = ScoreTable.add(locked, dice[i].getValue());
+			} else {
+				rolled |= 1 << i;
+			}
+		}
+
+		Set<Integer> expected = new HashSet<Integer>();
+		for (int mask = rolled; mask != 0; mask = (mask - 1) & rolled) {
+			int code = add(locked, dice, mask);
+			if (table.allUsed(code)) {
+				expected.add(code);
+			}
+		}
+
+		Set<Integer> actual = new HashSet<Integer>();
+		for (int i = 0; i < found; i++) {
+			int mask = Keeps.getMask(keeps[i]);
+			int code = add(locked, dice, mask);
+			Assert.assertTrue("Found twice", actual.add(code));
+			Assert.assertEquals(0, mask & ~rolled);
+			Assert.assertEquals(table.score(code) - table.score(locked), Keeps.getScore(keeps[i]));
+			Assert.assertEquals(mask == rolled, Keeps.usesAllDice(keeps[i]));
+			for (int j = 0; j < dice.length; j++) {
+				for (int k = j + 1; k < dice.length; k++) {
+					// A later die showing the same side is only used after an earlier one
+					if ((rolled >> j & 1) != 0 && dice[j].getValue() == dice[k].getValue()
+							&& (mask >> k & 1) != 0) {
+						Assert.assertTrue("Not the first dice", (mask >> j & 1) != 0);
+					}
+				}
+			}
+		}
+		Assert.assertEquals(expected, actual);
+	}
+
+	private static int add(int code, Die[] dice, int mask) {
+		for (int i = 0; i < dice.length; i++) {
+			if ((mask >> i & 1) != 0) {
+				code = ScoreTable.add(code, dice[i].getValue());
+			}
+		}
+		return code;
+	}
+
+	private static void setDice(Greed game, int... sides) {
+		for (int i = 0; i < sides.length; i++) {
+			game.getDice()[i].setLocked(false).setValue(sides[i]);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package se.nielstrom.greed.models;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ScoreTableTest {
+	private final ScoreTable table = ScoreTable.DEFAULT;
+
+	@Test
+	public void scoresLikeTheOldScorer() {
+		for (int dice = 0; dice <= Greed.NR_OF_DICE; dice++) {
+			int[] sides = new int[dice];
+			Arrays.fill(sides, 1);
+			do {
+				int code = ScoreTable.pack(sides);
+				String roll = Arrays.toString(sides);
+				Assert.assertEquals(roll, oldScore(sides), table.score(code));
+				Assert.assertEquals(roll, oldAllUsed(sides), table.allUsed(code));
+			} while (next(sides));
+		}
+	}
+
+	@Test
+	public void indexesAreDense() {
+		boolean[] seen = new boolean[table.getCombinations()];
+		for (int dice = 0; dice <= Greed.NR_OF_DICE; dice++) {
+			int[] sides = new int[dice];
+			Arrays.fill(sides, 1);
+			do {
+				seen[table.index(ScoreTable.pack(sides))] = true;
+			} while (next(sides));
+		}
+		for (int i = 0; i < seen.length; i++) {
+			Assert.assertTrue("Index " + i + " is never used", seen[i]);
+		}
+		Assert.assertEquals(924, table.getCombinations());
+	}
+
+	@Test
+	public void packsCounts() {
+		int code = ScoreTable.pack(1, 5, 5, 2);
+		Assert.assertEquals(4, ScoreTable.size(code));
+		Assert.assertEquals(2, ScoreTable.count(code, 5));
+		Assert.assertEquals(ScoreTable.pack(1, 5, 2), ScoreTable.remove(code, 5));
+		Assert.assertEquals(ScoreTable.pack(5, 2, 5, 1, 6), ScoreTable.add(code, 6));
+	}
+
+	/**
+	 * Steps to the next roll of the dice, from all ones through all sixes.
+	 * 
+	 * @return False once every roll has been seen.
+	 */
+	private static boolean next(int[] sides) {
+		for (int i = 0; i < sides.length; i++) {
+			if (sides[i] < Greed.NR_OF_SIDES) {
+				sides[i]++;
+				return true;
+			}
+			sides[i] = 1;
+		}
+		return false;
+	}
+
+	// The scorer of Greed before the ScoreTable, kept to compare against
+
+	private static int oldScore(int... dice) {
+		Map<Integer, Integer> diceMap = aggregate(dice);
+		if (diceMap.size() == Greed.NR_OF_DICE) { // 6 different sides means it's a ladder
+			return 1000;
+		}
+		int score = 0;
+		for (Map.Entry<Integer, Integer> entry : diceMap.entrySet()) {
+			score += scoreHelper(entry.getKey(), entry.getValue());
+		}
+		return score;
+	}
+
+	private static boolean oldAllUsed(int... dice) {
+		Map<Integer, Integer> diceMap = aggregate(dice);
+		if (diceMap.size() != Greed.NR_OF_DICE) { // unless we have a ladder
+			for (Map.Entry<Integer, Integer> entry : diceMap.entrySet()) {
+				if ((entry.getKey() != 1 && entry.getKey() != 5) && entry.getValue() % 3 != 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static int scoreHelper(int side, int number) {
+		if (number >= 3) {
+			int score = (side == 1) ? 1000 : 100 * side;
+			return score + scoreHelper(side, number - 3);
+		} else if (side == 1) {
+			return number * 100;
+		} else if (side == 5) {
+			return number * 50;
+		} else {
+			return 0;
+		}
+	}
+
+	private static Map<Integer, Integer> aggregate(int... dice) {
+		Map<Integer, Integer> diceMap = new HashMap<>(dice.length);
+		for (int side : dice) {
+			Integer previous = diceMap.get(side);
+			diceMap.put(side, (previous == null) ? 1 : previous + 1);
+		}
+		return diceMap;
+	}
+}
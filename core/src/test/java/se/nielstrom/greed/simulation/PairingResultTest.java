@@ -0,0 +1,81 @@
+package se.nielstrom.greed.simulation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PairingResultTest {
+	private static final double Z = 1.96;
+	private static final double DELTA = 1e-4;
+
+	@Test
+	public void boundsTheWinRate() {
+		// The textbook Wilson interval of 7 wins in 10
+		PairingResult result = games(7, 3, 0);
+		Assert.assertEquals(0.7, result.getWinRate(), 0);
+		Assert.assertEquals(0.3968, result.getLowerBound(Z), DELTA);
+		Assert.assertEquals(0.8922, result.getUpperBound(Z), DELTA);
+	}
+
+	@Test
+	public void staysWithinZeroAndOne() {
+		PairingResult all = games(10, 0, 0);
+		Assert.assertEquals(1, all.getUpperBound(Z), 1e-12);
+		Assert.assertEquals(10 / (10 + Z * Z), all.getLowerBound(Z), 1e-12);
+
+		PairingResult none = games(0, 10, 0);
+		Assert.assertEquals(0, none.getLowerBound(Z), 1e-12);
+		Assert.assertEquals(1 - all.getLowerBound(Z), none.getUpperBound(Z), 1e-12);
+	}
+
+	@Test
+	public void countsDrawsAsHalf() {
+		PairingResult result = games(30, 30, 40);
+		Assert.assertEquals(40, result.getDraws());
+		Assert.assertEquals(0.5, result.getWinRate(), 0);
+		Assert.assertEquals(1 - result.getUpperBound(Z), result.getLowerBound(Z), 1e-12);
+		Assert.assertEquals(0.4038, result.getLowerBound(Z), DELTA);
+	}
+
+	@Test
+	public void narrowsWithMoreGames() {
+		PairingResult few = games(55, 45, 0);
+		PairingResult many = games(5500, 4500, 0);
+		Assert.assertFalse(few.isSettled(Z, 0.01));
+		Assert.assertTrue(few.getLowerBound(Z) < 0.5);
+		Assert.assertTrue(many.getLowerBound(Z) > 0.5);
+		Assert.assertTrue(many.isSettled(Z, 0.01));
+		Assert.assertTrue(games(5000, 5000, 0).isSettled(Z, 0.01));
+	}
+
+	@Test
+	public void knowsNothingWithoutGames() {
+		PairingResult result = new PairingResult(0, 1);
+		Assert.assertTrue(Double.isNaN(result.getWinRate()));
+		Assert.assertEquals(0, result.getLowerBound(Z), 0);
+		Assert.assertEquals(1, result.getUpperBound(Z), 0);
+		Assert.assertFalse(result.isSettled(Z, 1));
+	}
+
+	@Test
+	public void mergesBatches() {
+		PairingResult merged = games(3, 1, 1).merge(games(4, 2, 0));
+		Assert.assertEquals(11, merged.getGames());
+		Assert.assertEquals(7, merged.getWins());
+		Assert.assertEquals(3, merged.getLosses());
+		Assert.assertEquals(1, merged.getDraws());
+	}
+
+	private static PairingResult games(int wins, int losses, int draws) {
+		PairingResult result = new PairingResult(0, 1);
+		for (int i = 0; i < wins; i++) {
+			result.addGame(0);
+		}
+		for (int i = 0; i < losses; i++) {
+			result.addGame(1);
+		}
+		for (int i = 0; i < draws; i++) {
+			result.addGame(-1);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,25 @@
+package se.nielstrom.greed.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A die that told its listeners of a change outside of an update, committed
+ * by the {@link JfrProbe}.
+ */
+@Name("se.nielstrom.greed.DieChange")
+@Label("Die Change")
+@Category("Greed")
+@Description("A die of a Greed game changed outside of an update")
+@StackTrace(false)
+class DieChangeEvent extends Event {
+	@Label("Die")
+	int die;
+
+	@Label("Listeners")
+	int listeners;
+}
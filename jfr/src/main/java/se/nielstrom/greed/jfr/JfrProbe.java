@@ -0,0 +1,89 @@
+package se.nielstrom.greed.jfr;
+
+import jdk.jfr.FlightRecorder;
+
+import se.nielstrom.greed.metrics.GameProbe;
+import se.nielstrom.greed.models.GameChange;
+import se.nielstrom.greed.models.Greed;
+
+/**
+ * A {@link GameProbe} which emits a JDK Flight Recorder event per update of a
+ * game and per die changed outside of one, optionally passing everything on
+ * to another probe such as a
+ * {@link se.nielstrom.greed.metrics.GameMetrics GameMetrics}.
+ * 
+ * The events are named se.nielstrom.greed.Update and
+ * se.nielstrom.greed.DieChange and are off unless a recording enables them,
+ * for example with a settings file or
+ * jcmd &lt;pid&gt; JFR.start settings=profile. While they are off an update
+ * costs a check of a flag, and the JIT does away with the unused events.
+ */
+public class JfrProbe implements GameProbe {
+	private static final int[] ACTIONS = {
+		GameChange.ROLL, GameChange.CLAIM, GameChange.UPDATE_SCORE, GameChange.RESET
+	};
+	private static final String[] NAMES = {"roll", "claim", "updateScore", "reset"};
+
+	private final GameProbe next;
+
+	public JfrProbe() {
+		this(null);
+	}
+
+	/**
+	 * @param next The probe to pass everything on to, or null.
+	 */
+	public JfrProbe(GameProbe next) {
+		this.next = next;
+		FlightRecorder.register(UpdateEvent.class);
+		FlightRecorder.register(DieChangeEvent.class);
+	}
+
+	@Override
+	public void onUpdate(Greed game, int actions, long nanos, int dieEvents, int propertyEvents,
+			int changeEvents) {
+		UpdateEvent event = new UpdateEvent();
+		if (event.isEnabled()) {
+			event.actions = describe(actions);
+			event.latency = nanos;
+			event.dieEvents = dieEvents;
+			event.propertyEvents = propertyEvents;
+			event.changeEvents = changeEvents;
+			event.round = game.getRound();
+			event.commit();
+		}
+		if (next != null) {
+			next.onUpdate(game, actions, nanos, dieEvents, propertyEvents, changeEvents);
+		}
+	}
+
+	@Override
+	public void onDieChange(Greed game, int die, int listeners) {
+		DieChangeEvent event = new DieChangeEvent();
+		if (event.isEnabled()) {
+			event.die = die;
+			event.listeners = listeners;
+			event.commit();
+		}
+		if (next != null) {
+			next.onDieChange(game, die, listeners);
+		}
+	}
+
+	/**
+	 * @return The names of the {@link GameChange} actions, separated by
+	 * 			commas.
+	 */
+	private static String describe(int actions) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < ACTIONS.length; i++) {
+			if ((actions & ACTIONS[i]) != 0) {
+				if (builder.length() > 0) {
+					builder.append(',');
+				}
+				builder.append(NAMES[i]);
+			}
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,39 @@
+package se.nielstrom.greed.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One update of a game, committed by the {@link JfrProbe}.
+ */
+@Name("se.nielstrom.greed.Update")
+@Label("Game Update")
+@Category("Greed")
+@Description("An update of a Greed game delivered to its listeners")
+@StackTrace(false)
+class UpdateEvent extends Event {
+	@Label("Actions")
+	@Description("Roll, claim, updateScore and reset, or none for an update started outside the game")
+	String actions;
+
+	@Label("Latency")
+	@Timespan(Timespan.NANOSECONDS)
+	long latency;
+
+	@Label("Die Events")
+	int dieEvents;
+
+	@Label("Property Events")
+	int propertyEvents;
+
+	@Label("Change Events")
+	int changeEvents;
+
+	@Label("Round")
+	int round;
+}
@@ -1,15 +1,37 @@
 package se.nielstrom.greed;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
+import se.nielstrom.greed.bot.BotPlayer;
+import se.nielstrom.greed.bot.Move;
+import se.nielstrom.greed.bot.StrategyBrain;
+import se.nielstrom.greed.hint.Hint;
+import se.nielstrom.greed.hint.HintWorker;
+import se.nielstrom.greed.history.GameRecord;
+import se.nielstrom.greed.journal.GameJournal;
+import se.nielstrom.greed.journal.GameSnapshot;
+import se.nielstrom.greed.metrics.GameMetrics;
 import se.nielstrom.greed.models.Die;
+import se.nielstrom.greed.models.GameChange;
+import se.nielstrom.greed.models.GameState;
+import se.nielstrom.greed.models.GameTimeline;
 import se.nielstrom.greed.models.Greed;
-import se.nielstrom.greed.views.DieButton;
-import se.nielstrom.greed.views.DieButton.StateChangeListener;
+import se.nielstrom.greed.models.Odds;
+import se.nielstrom.greed.simulation.ThresholdStrategy;
+import se.nielstrom.greed.views.DiceBoardView;
+import se.nielstrom.greed.views.DiceBoardView.OnDieToggledListener;
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Parcelable;
+import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
@@ -18,79 +40,321 @@ import android.widget.TextView;
  * The GameActivity is the main activity which connects the Greed model with the
  * associated views. Tries to be as "thin" as possible.
  * 
+ * The player can take on computer opponents, each playing a game of its own.
+ * The players take turns of one round each, and the views show the game of
+ * the player whose turn it is. The bots think on a background thread and
+ * their moves are made on the UI thread, one update per move.
+ * 
+ * Every change of the games is mirrored into a {@link GameSnapshot}, so when
+ * the app is started from scratch it continues the last game, even if the
+ * process was killed without saving its state.
+ * 
  * @author Daniel Strm
  */
-public class GameActivity extends Activity implements StateChangeListener {
-	private DieButton[] dieButtons;
+public class GameActivity extends Activity implements OnDieToggledListener {
+	/** The number of computer opponents, as an int extra of the intent. */
+	public static final String BOTS = "se.nielstrom.greed.BOTS";
+
+	private static final String TAG = "GameActivity";
+	private static final String JOURNAL_FILE = "journal.bin";
+	private static final String SNAPSHOT_FILE = "snapshot.bin";
+	private static final int MENU_BOTS = 1;
+	private static final int MENU_UNDO = 2;
+	private static final int MENU_REDO = 3;
+	private static final int MENU_HINTS = 4;
+
+	// Bot settings, in milliseconds
+	private static final long BOT_BUDGET = 200; // The most time to think per move
+	private static final long BOT_PACE = 800; // The least time between moves
+	private static final long TURN_DELAY = 1000; // Before the next player starts
+	private static final int BOT_THRESHOLD = 350;
+	private static final long HINT_BUDGET = 300; // The most time to search a hint
+
+	// The flags of the snapshot
+	private static final int SAVED_TURN_OVER = 1;
+	private static final int SAVED_ROLL = 1 << 1;
+	private static final int SAVED_CLAIM = 1 << 2;
+	private static final int SAVED_DICE = 1 << 3;
+	private static final int SAVED_OVER = 1 << 4; // The game has been won
+
+	// Shared between activity instances, since it only depends on the rules
+	private static Odds odds;
+	// Counts the work of every update for as long as the process lives
+	private static final GameMetrics METRICS = new GameMetrics();
+	// Shared so that only one writer ever appends to the file
+	private static GameJournal journal;
+
+	private DiceBoardView board;
 	private Button rollButton;
 	private Button claimButton;
-	private Greed game;
+	private ParcelableGreed game;
+	private ParcelableGreed[] players;
+	private int current;
+	private boolean turnOver;
+	private long started; // When the game started, for the history
+	private Handler handler;
+	private BotPlayer bots;
+	private GameSnapshot snapshot;
+	private GameTimeline timeline; // The moves of the player, for undo
+	private HintWorker hints;
+	private boolean hinting; // The player wants hints
 	private TextView totalPoints;
 	private TextView roundPoints;
 	private TextView rounds;
+	private TextView oddsText;
+	private TextView hintText;
 
 	@Override
 	protected void onCreate(Bundle state) {
 		super.onCreate(state);
 		setContentView(R.layout.activity_game);
 		
-		if (state == null) {
-			game = new Greed();
-		} else {
-			game = state.getParcelable("game");
+		try {
+			snapshot = new GameSnapshot(new File(getFilesDir(), SNAPSHOT_FILE));
+		} catch (IOException e) {
+			Log.w(TAG, "Could not open the snapshot", e);
 		}
 		
-		game.addPropertyChangeListener(new GameChangeListener());
-		
-		// Store a reference to all six custom die views
-		dieButtons = new DieButton[6];
-		dieButtons[0] = (DieButton) findViewById(R.id.die_a);
-		dieButtons[1] = (DieButton) findViewById(R.id.die_b);
-		dieButtons[2] = (DieButton) findViewById(R.id.die_c);
-		dieButtons[3] = (DieButton) findViewById(R.id.die_d);
-		dieButtons[4] = (DieButton) findViewById(R.id.die_e);
-		dieButtons[5] = (DieButton) findViewById(R.id.die_f);
+		// The controls are enabled as they were saved, or for a new game
+		boolean roll = true;
+		boolean claim = false;
+		boolean dice = false;
+		boolean newGame = false;
+		if (state == null && isResumable()) {
+			// Continue the last game
+			players = new ParcelableGreed[snapshot.getGames()];
+			for (int i=0; i<players.length; i++) {
+				players[i] = new ParcelableGreed();
+			}
+			snapshot.restore(players);
+			current = snapshot.getCurrent();
+			started = snapshot.getStarted();
+			int flags = snapshot.getFlags();
+			turnOver = (flags & SAVED_TURN_OVER) != 0;
+			roll = (flags & SAVED_ROLL) != 0;
+			claim = (flags & SAVED_CLAIM) != 0;
+			dice = (flags & SAVED_DICE) != 0;
+		} else if (state == null) {
+			players = new ParcelableGreed[getIntent().getIntExtra(BOTS, 0) + 1];
+			for (int i=0; i<players.length; i++) {
+				players[i] = new ParcelableGreed();
+			}
+			started = System.currentTimeMillis();
+			newGame = true;
+		} else {
+			Parcelable[] saved = state.getParcelableArray("players");
+			players = new ParcelableGreed[saved.length];
+			for (int i=0; i<players.length; i++) {
+				players[i] = (ParcelableGreed) saved[i];
+			}
+			current = state.getInt("current");
+			turnOver = state.getBoolean("turnOver");
+			started = state.getLong("started");
+			roll = state.getBoolean("roll");
+			claim = state.getBoolean("claim");
+			dice = state.getBoolean("dice");
+			timeline = new GameTimeline(state.getLongArray("timeline"),
+					state.getInt("timelinePosition"));
+			hinting = state.getBoolean("hinting");
+		}
+		if (timeline == null) {
+			timeline = new GameTimeline();
+			timeline.add(players[0]);
+		}
+		game = players[current];
 		
-		// connect buttons and dice
-		Die[] dice = game.getDice();
-		for(int i=0; i<dieButtons.length; i++) {
-			dieButtons[i].setDie(dice[i]);
-			dieButtons[i].addStateChangeListener(this);
+		GameListener listener = new GameListener();
+		for (Greed player : players) {
+			player.addGameChangeListener(listener);
+			player.setProbe(METRICS);
 		}
+		// Only the game of the player is recorded
+		players[0].setJournal(getJournal(this));
+		if (newGame) {
+			getJournal(this).record(GameJournal.START, 0, players[0]);
+		}
+		players[0].addGameChangeListener(ScoreActivity.getStatistics(this));
+		
+		// The board draws all dice, showPlayer() connects it to the game
+		board = (DiceBoardView) findViewById(R.id.dice_board);
+		board.addOnDieToggledListener(this);
+		board.setEnabled(dice);
 		
 		// Action button references
 		rollButton = (Button) findViewById(R.id.roll_button);
-		rollButton.setEnabled( state != null ? state.getBoolean("roll") : true );
+		rollButton.setEnabled(roll);
 		claimButton = (Button) findViewById(R.id.claim_button);
-		claimButton.setEnabled( state != null ? state.getBoolean("claim") : false );
+		claimButton.setEnabled(claim);
 		
 		// Status texts
 		totalPoints = (TextView) findViewById(R.id.total_points);
 		roundPoints = (TextView) findViewById(R.id.round_points);
 		rounds = (TextView) findViewById(R.id.rounds_label);
+		oddsText = (TextView) findViewById(R.id.odds);
+		hintText = (TextView) findViewById(R.id.hint);
+		
+		if (odds == null || odds.getTable() != game.getScoreTable()) {
+			odds = new Odds(game.getScoreTable());
+		}
+		updateOdds();
 		
 		if (state != null) {
 			updateGameState();
-		} else {
-			// Disable all buttons on game start
-			for(DieButton button : dieButtons) {
-				button.setEnabled(false);
+		}
+		
+		// Bot moves and hints are posted back to the UI thread
+		handler = new Handler();
+		Executor mainThread = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				handler.post(command);
 			}
+		};
+		bots = new BotPlayer(new StrategyBrain(new ThresholdStrategy(BOT_THRESHOLD)),
+				BOT_BUDGET, BOT_PACE, TimeUnit.MILLISECONDS, mainThread);
+		hints = new HintWorker(game.getScoreTable(), HINT_BUDGET, TimeUnit.MILLISECONDS, mainThread);
+		showPlayer();
+		saveSnapshot();
+		if (turnOver) {
+			handler.postDelayed(nextPlayer, TURN_DELAY);
+		} else if (isBot(current)) {
+			setControlsEnabled(false);
+			bots.play(game, botListener);
+		}
+	}
+	
+	@Override
+	protected void onPause() {
+		super.onPause();
+		ScoreActivity.saveStatistics(this);
+		if (snapshot != null) {
+			snapshot.force();
 		}
 	}
 	
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		// Whatever the bots were doing is picked up again after a rotation
+		handler.removeCallbacks(nextPlayer);
+		bots.close();
+		hints.close();
+		board.setGame(null);
+		players[0].setJournal(null);
+		players[0].removeGameChangeListener(ScoreActivity.getStatistics(this));
+		if (snapshot != null) {
+			try {
+				snapshot.close();
+			} catch (IOException e) {
+				Log.w(TAG, "Could not close the snapshot", e);
+			}
+		}
+		if (BuildConfig.DEBUG) {
+			Log.d(TAG, METRICS.toString());
+		}
+	}
+
 	@Override
 	protected void onActivityResult(int requestCode, int resultCode, Intent data) {
 		// Returning from the score activity, start a new game.
-		game.reset();
+		bots.cancel();
+		handler.removeCallbacks(nextPlayer);
+		for (Greed player : players) {
+			player.reset();
+		}
+		current = 0;
+		game = players[current];
+		turnOver = false;
+		started = System.currentTimeMillis();
+		showPlayer();
+		rollButton.setEnabled(true);
+		claimButton.setEnabled(false);
+		board.setEnabled(false);
+		timeline.clear();
+		timeline.add(players[0]);
+		invalidateOptionsMenu();
+		saveSnapshot();
+	}
+
+	/**
+	 * The moves and hints are shown in the action bar, since most devices have
+	 * no menu key. The bots are chosen from the overflow.
+	 */
+	@Override
+	public boolean onCreateOptionsMenu(Menu menu) {
+		menu.add(Menu.NONE, MENU_BOTS, Menu.NONE,
+				players.length > 1 ? R.string.play_alone : R.string.play_bot)
+				.setShowAsAction(MenuItem.SHOW_AS_ACTION_NEVER);
+		if (players.length == 1) {
+			menu.add(Menu.NONE, MENU_UNDO, Menu.NONE, R.string.undo)
+					.setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM);
+			menu.add(Menu.NONE, MENU_REDO, Menu.NONE, R.string.redo)
+					.setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM);
+		}
+		menu.add(Menu.NONE, MENU_HINTS, Menu.NONE, R.string.show_hints)
+				.setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM);
+		return true;
+	}
+
+	/**
+	 * Moves may only be undone playing alone, until the game is won. The
+	 * action bar keeps showing the items as they were last prepared, so
+	 * {@link #invalidateOptionsMenu()} is called whenever the game changes.
+	 */
+	@Override
+	public boolean onPrepareOptionsMenu(Menu menu) {
+		boolean playing = game.getState() != Greed.State.WIN;
+		MenuItem undo = menu.findItem(MENU_UNDO);
+		if (undo != null) {
+			undo.setEnabled(playing && timeline.canUndo());
+		}
+		MenuItem redo = menu.findItem(MENU_REDO);
+		if (redo != null) {
+			redo.setEnabled(playing && timeline.canRedo());
+		}
+		menu.findItem(MENU_HINTS).setTitle(hinting ? R.string.hide_hints : R.string.show_hints);
+		return super.onPrepareOptionsMenu(menu);
+	}
+
+	/**
+	 * Starts a new game with or without a bot.
+	 */
+	@Override
+	public boolean onOptionsItemSelected(MenuItem item) {
+		if (item.getItemId() == MENU_BOTS) {
+			Intent intent = new Intent(this, GameActivity.class);
+			intent.putExtra(BOTS, players.length > 1 ? 0 : 1);
+			finish();
+			startActivity(intent);
+			return true;
+		} else if (item.getItemId() == MENU_UNDO && timeline.canUndo()) {
+			showGameState(timeline.undo());
+			return true;
+		} else if (item.getItemId() == MENU_REDO && timeline.canRedo()) {
+			showGameState(timeline.redo());
+			return true;
+		} else if (item.getItemId() == MENU_HINTS) {
+			hinting = !hinting;
+			updateHint();
+			invalidateOptionsMenu();
+			return true;
+		}
+		return super.onOptionsItemSelected(item);
 	}
 
 	@Override
 	protected void onSaveInstanceState(Bundle bundle) {
 		super.onSaveInstanceState(bundle);
-		bundle.putParcelable("game", game);
+		bundle.putParcelableArray("players", players);
+		bundle.putInt("current", current);
+		bundle.putBoolean("turnOver", turnOver);
+		bundle.putLong("started", started);
 		bundle.putBoolean("claim", claimButton.isEnabled());
 		bundle.putBoolean("roll", rollButton.isEnabled());
+		bundle.putBoolean("dice", board.isEnabled());
+		bundle.putLongArray("timeline", timeline.toLongArray());
+		bundle.putInt("timelinePosition", timeline.getPosition());
+		bundle.putBoolean("hinting", hinting);
 	}
 
 	/**
@@ -112,15 +376,91 @@ public class GameActivity extends Activity implements StateChangeListener {
 	}
 
 	/**
-	 * Called whenever a DieButtons checked-state changes. Updates the score
-	 * and action buttons according to what buttons are checked.
+	 * Called whenever the player locks or unlocks a die. Updates the score and
+	 * action buttons according to what dice are locked.
 	 */
 	@Override
-	public void onStateChange(DieButton button) {
+	public void onDieToggled(DiceBoardView board, int die) {
 		rollButton.setEnabled(game.updateScore());
+		timeline.add(game);
 		roundPoints.setTextColor(getScoreColor(game.getScoreRound()));
+		updateOdds();
+		invalidateOptionsMenu();
+		saveSnapshot(); // Locking dice isn't an update of the game
+	}
+
+	/**
+	 * Shows the odds of the dice the roll button would roll. Within a round
+	 * that's the chance of a bust, but the first roll of a round also ends it
+	 * if it scores less than the minimum.
+	 */
+	private void updateOdds() {
+		boolean underway = game.getState() == Greed.State.OK;
+		int dice = 0;
+		if (underway) {
+			for (Die die : game.getDice()) {
+				if (!die.isLocked()) {
+					dice++;
+				}
+			}
+		}
+		if (dice == 0) { // A new round or all dice used
+			dice = game.getDice().length;
+		}
+
+		int gain = (int) Math.round(odds.getExpectedGain(dice));
+		if (underway) {
+			int bust = (int) Math.round(odds.getBustProbability(dice) * 100);
+			oddsText.setText(getResources().getString(R.string.bust_odds, bust, gain));
+		} else {
+			// As in Greed.roll(), a score one below the minimum still counts
+			double low = 1 - odds.getProbabilityAtLeast(dice, game.getRules().getMinScore() - 1);
+			int end = (int) Math.round(low * 100);
+			oddsText.setText(getResources().getString(R.string.end_odds, end, gain));
+		}
 	}
 
+	/**
+	 * Searches a hint for the dice as they are, if the player wants hints and
+	 * it's their move. The hint shows up once found.
+	 */
+	private void updateHint() {
+		if (hinting && !isBot(current) && !turnOver && game.getState() == Greed.State.OK) {
+			hints.request(game.getGameState(), hintListener);
+		} else {
+			hints.cancel();
+			hintText.setText("");
+		}
+	}
+
+	private final HintWorker.HintListener hintListener = new HintWorker.HintListener() {
+		@Override
+		public void onHint(GameState state, Hint hint) {
+			if (!state.equals(game.getGameState())) {
+				return; // The dice have changed since
+			}
+			Die[] dice = game.getDice();
+			StringBuilder faces = new StringBuilder();
+			int locks = 0;
+			for (int i = 0; i < dice.length; i++) {
+				if ((hint.getLocks() & (1 << i)) != 0) {
+					faces.append(faces.length() > 0 ? " " : "").append(dice[i].getValue());
+				}
+				if (dice[i].isLocked()) {
+					locks |= 1 << i;
+				}
+			}
+
+			String text = hint.isClaim()
+					? getString(R.string.hint_claim, Math.round(hint.getClaimValue()))
+					: getString(R.string.hint_roll, faces, Math.round(hint.getValue()));
+			if (!Double.isNaN(hint.getRollValue()) && (hint.isClaim() || hint.getLocks() != locks)) {
+				text += "\n" + getString(R.string.hint_locks, Math.round(hint.getRollValue()));
+			}
+			hintText.setText(text);
+		}
+	};
+
 	/**
 	 * Updates the score and round information
 	 */
@@ -130,10 +470,147 @@ public class GameActivity extends Activity implements StateChangeListener {
 		setRound(rounds, game.getRound());
 	}
 
-	private void setButtonsEnabled(boolean enabled) {
-		for(DieButton button : dieButtons) {
-			button.setEnabled(enabled);
+	/**
+	 * Puts the game of the player in an earlier or later state, and enables
+	 * the controls as if it had been played there. The dice are rewound too,
+	 * so rolling again shows the faces that were rolled from there before
+	 * instead of another chance at a better roll.
+	 */
+	private void showGameState(GameState state) {
+		game.setGameState(state);
+		if (game.isSeeded()) {
+			game.resume(game.getSeed(), timeline.getRolls());
+		}
+		boolean ok = game.getState() == Greed.State.OK;
+		rollButton.setEnabled(!ok || state.canRoll(game.getScoreTable()));
+		claimButton.setEnabled(ok);
+		board.setEnabled(ok);
+		updateGameState();
+		roundPoints.setTextColor(getScoreColor(game.getScoreRound()));
+		updateOdds();
+		invalidateOptionsMenu();
+		saveSnapshot();
+	}
+
+	/**
+	 * Adds the game of the player to the history of finished games, whoever
+	 * won it.
+	 */
+	private void addToHistory() {
+		Greed player = players[0];
+		long now = System.currentTimeMillis();
+		ScoreActivity.getHistory(this).add(new GameRecord(now,
+				player.isSeeded() ? player.getSeed() : 0, now - started,
+				player.getScoreTotal(), player.getRound(), current == 0));
+	}
+
+	/**
+	 * @return The journal of the games of the player, opened the first time
+	 * 			it's asked for and kept for as long as the process lives. An
+	 * 			activity recreated on rotation must not open a second writer on
+	 * 			the file while the first one is still draining into it.
+	 */
+	private static synchronized GameJournal getJournal(Context context) {
+		if (journal == null) {
+			journal = new GameJournal(new File(context.getApplicationContext().getFilesDir(),
+					JOURNAL_FILE));
+		}
+		return journal;
+	}
+
+	/**
+	 * @return True if the activity was started from scratch and there is an
+	 * 			unfinished game to continue. Choosing the number of bots starts
+	 * 			a new game.
+	 */
+	private boolean isResumable() {
+		return snapshot != null && snapshot.getGames() > 0
+				&& snapshot.getCurrent() < snapshot.getGames()
+				&& !getIntent().hasExtra(BOTS)
+				&& (snapshot.getFlags() & SAVED_OVER) == 0;
+	}
+
+	/**
+	 * Mirrors the games and the state of the controls into the snapshot.
+	 */
+	private void saveSnapshot() {
+		if (snapshot == null) {
+			return;
+		}
+		int flags = (turnOver ? SAVED_TURN_OVER : 0)
+				| (rollButton.isEnabled() ? SAVED_ROLL : 0)
+				| (claimButton.isEnabled() ? SAVED_CLAIM : 0)
+				| (board.isEnabled() ? SAVED_DICE : 0)
+				| (game.getState() == Greed.State.WIN ? SAVED_OVER : 0);
+		snapshot.save(players, current, started, flags);
+	}
+
+	private boolean isBot(int player) {
+		return player > 0;
+	}
+
+	/**
+	 * Shows the game of the player whose turn it is.
+	 */
+	private void showPlayer() {
+		board.setGame(game);
+		if (players.length > 1) {
+			setTitle(isBot(current) ? getString(R.string.bot) + " " + current : getString(R.string.player));
 		}
+		updateGameState();
+		roundPoints.setTextColor(getScoreColor(game.getScoreRound()));
+		updateOdds();
+		updateHint();
+	}
+
+	/**
+	 * Ends the turn of the player, and lets the next one start after a while.
+	 */
+	private void endTurn() {
+		if (players.length > 1) {
+			turnOver = true;
+			setControlsEnabled(false);
+			handler.postDelayed(nextPlayer, TURN_DELAY);
+		}
+	}
+
+	private final Runnable nextPlayer = new Runnable() {
+		@Override
+		public void run() {
+			turnOver = false;
+			current = (current + 1) % players.length;
+			game = players[current];
+			showPlayer();
+			if (isBot(current)) {
+				setControlsEnabled(false);
+				bots.play(game, botListener);
+			} else {
+				rollButton.setEnabled(true);
+				claimButton.setEnabled(false);
+				board.setEnabled(false);
+			}
+			saveSnapshot();
+		}
+	};
+
+	private final BotPlayer.TurnListener botListener = new BotPlayer.TurnListener() {
+		@Override
+		public void onMove(Greed game, Move move) {
+			// The game listener keeps the views up to date
+		}
+
+		@Override
+		public void onTurnEnded(Greed game) {
+			if (game.getState() != Greed.State.WIN) {
+				endTurn();
+			}
+		}
+	};
+
+	private void setControlsEnabled(boolean enabled) {
+		rollButton.setEnabled(enabled);
+		claimButton.setEnabled(enabled);
+		board.setEnabled(enabled);
 	}
 	
 	private int getScoreColor(int score) {
@@ -141,7 +618,7 @@ public class GameActivity extends Activity implements StateChangeListener {
 		
 		if (score == 0) {
 			color_id = R.color.score_bust;
-		} else if (score < Greed.MIN_SCORE) {
+		} else if (score < game.getRules().getMinScore()) {
 			color_id = R.color.score_low;
 		} else {
 			color_id = R.color.score_ok;
@@ -160,55 +637,77 @@ public class GameActivity extends Activity implements StateChangeListener {
 	}
 
 	/**
-	 * A PropertyChangeListener implementation which listens to game events
-	 * and takes appropriate action on the interface to maintain sync.
+	 * A GameChangeListener implementation which gets one change set per game
+	 * action and takes appropriate action on the interface to maintain sync.
 	 */
-	private class GameChangeListener implements PropertyChangeListener {
+	private class GameListener implements Greed.GameChangeListener {
 		@Override
-		public void propertyChange(PropertyChangeEvent event) {
-			switch (event.getPropertyName()) {
-			case Greed.ROUND_SCORE:
-				setPoints(roundPoints, (int) event.getNewValue());
-				break;
-			case Greed.TOTAL_SCORE:
-				setPoints(totalPoints, (int) event.getNewValue());
-				break;
-			case Greed.ROUNDS:
-				setRound(rounds, (int) event.getNewValue());
-				break;
-			case Greed.STATE:
-				switch ((Greed.State) event.getNewValue()) {
+		public void onGameChanged(Greed game, GameChange change) {
+			if (game != GameActivity.this.game) {
+				return; // Not this player's turn
+			}
+			if (game == players[0] && (change.getActions()
+					& (GameChange.ROLL | GameChange.CLAIM | GameChange.RESET)) != 0) {
+				timeline.add(game);
+			}
+			if (change.has(GameChange.ROUND_SCORE)) {
+				setPoints(roundPoints, change.getNewScoreRound());
+			}
+			if (change.has(GameChange.TOTAL_SCORE)) {
+				setPoints(totalPoints, change.getNewScoreTotal());
+			}
+			if (change.has(GameChange.ROUNDS)) {
+				setRound(rounds, change.getNewRound());
+			}
+			if (change.has(GameChange.STATE | GameChange.LOCKS)) {
+				updateOdds();
+			}
+			if (change.has(GameChange.STATE)) {
+				switch (change.getNewState()) {
 				case OK:			
 					claimButton.setEnabled(true);
 					rollButton.setEnabled(false);
 					roundPoints.setTextColor(getResources().getColor(R.color.score_ok));
-					setButtonsEnabled(true);
+					board.setEnabled(true);
 					break;
 				case LOW:
 					claimButton.setEnabled(false);
 					rollButton.setEnabled(true);
 					roundPoints.setTextColor(getResources().getColor(R.color.score_low));
-					setButtonsEnabled(false);
+					board.setEnabled(false);
 					break;
 				case BUST:
 					claimButton.setEnabled(false);
 					rollButton.setEnabled(true);
 					roundPoints.setTextColor(getResources().getColor(R.color.score_bust));
-					setButtonsEnabled(false);
+					board.setEnabled(false);
 					break;
 				case WIN:
-					// The game is over, start the score activity.
+					// The game is over, keep the result of the player and
+					// start the score activity.
+					addToHistory();
 					Intent intent = new Intent(GameActivity.this, ScoreActivity.class);
 					intent.putExtra(ScoreActivity.SCORE, game.getScoreTotal());
 					intent.putExtra(ScoreActivity.ROUNDS, game.getRound());
+					intent.putExtra(ScoreActivity.WON, current == 0);
 					// I use the "startActivityForResult" method so I can reset the
 					// game on returning to the game activity instead of doing it right
 					// away. Makes for a smoother transition between the two activities.
 					startActivityForResult(intent, 0);
 					break;
 				}
-				break;
 			}
+
+			if (isBot(current)) {
+				setControlsEnabled(false); // The bot player makes the moves
+			} else if (game.getState() != Greed.State.WIN
+					&& ((change.getActions() & GameChange.CLAIM) != 0
+					|| (change.getActions() & GameChange.ROLL) != 0 && game.getState() != Greed.State.OK)) {
+				endTurn(); // Claimed or lost the round
+			}
+			updateHint();
+			invalidateOptionsMenu();
+			saveSnapshot();
 		}
 		
 	}
@@ -0,0 +1,71 @@
+package se.nielstrom.greed;
+
+import se.nielstrom.greed.models.GameStateCodec;
+import se.nielstrom.greed.models.Greed;
+import se.nielstrom.greed.random.XoshiroSource;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * A Greed game that can be saved in a Bundle. The rules live in the core
+ * module, which knows nothing about Android, so this adapter is all the app
+ * adds on top of them.
+ * 
+ * A parcel holds the two longs of the {@link GameStateCodec} and, for a
+ * seeded game, the seed and the number of rolls, so that a restored game
+ * keeps rolling the same dice it would have rolled.
+ */
+public class ParcelableGreed extends Greed implements Parcelable {
+	// Greed creator for the parcelable interface.
+	public static final Parcelable.Creator<ParcelableGreed> CREATOR = new Parcelable.Creator<ParcelableGreed>() {
+		@Override
+		public ParcelableGreed createFromParcel(Parcel parcel) {
+			return new ParcelableGreed(parcel);
+		}
+
+		@Override
+		public ParcelableGreed[] newArray(int size) {
+			return new ParcelableGreed[size];
+		}
+	};
+
+	public ParcelableGreed() {
+		super();
+	}
+
+	/**
+	 * Reconstructs a game instance from a Parcel.
+	 * 
+	 * @param parcel The parcel containing the instance data.
+	 */
+	private ParcelableGreed(Parcel parcel) {
+		super();
+		GameStateCodec.decode(parcel.readLong(), parcel.readLong(), this);
+
+		// Continue the seeded stream where it was left off
+		if (parcel.readByte() != 0) {
+			resume(parcel.readLong(), parcel.readInt());
+		} else {
+			setRandom(new XoshiroSource());
+		}
+	}
+
+	@Override
+	public int describeContents() {
+		return 0;
+	}
+
+	/**
+	 * Stores instance information in a parcel.
+	 */
+	@Override
+	public void writeToParcel(Parcel dest, int flags) {
+		dest.writeLong(GameStateCodec.encodeDice(this));
+		dest.writeLong(GameStateCodec.encodeScores(this));
+		dest.writeByte( (byte) (isSeeded() ? 1 : 0) );
+		if (isSeeded()) {
+			dest.writeLong(getSeed());
+			dest.writeInt(getRolls());
+		}
+	}
+}
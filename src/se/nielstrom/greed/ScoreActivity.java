@@ -1,21 +1,53 @@
 package se.nielstrom.greed;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import se.nielstrom.greed.history.GameHistory;
+import se.nielstrom.greed.history.GameRecord;
+import se.nielstrom.greed.history.GameStatistics;
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.widget.TextView;
 
 /**
  * Displays the score and number of rounds in a super rad way.
  * 
+ * Finished games are kept in a {@link GameHistory} shared by the whole app,
+ * so the personal best and the rank of the game are shown from its index
+ * without reading the history of past games. The statistics of all games
+ * are kept up to date by the {@link GameStatistics} as they are played, and
+ * saved as a snapshot between runs. Both are read off the UI thread, and
+ * shown once they are ready.
+ * 
  * @author Daniel Strm
  */
 public class ScoreActivity extends Activity {
 	public static final String SCORE = "se.nielstrom.greed.SCORE";
 	public static final String ROUNDS = "se.nielstrom.greed.ROUNDS";
+	/** True if the player won the game, a boolean extra of the intent. */
+	public static final String WON = "se.nielstrom.greed.WON";
+	
+	private static final String TAG = "ScoreActivity";
+	private static final String HISTORY_FILE = "history.bin";
+	private static final String STATISTICS_FILE = "statistics.bin";
+	private static GameHistory history;
+	private static GameStatistics statistics;
+	// Reads the history and the statistics and writes their snapshots, one at a time
+	private static final Executor FILES = Executors.newSingleThreadExecutor();
 	
 	private TextView score;
 	private TextView rounds;
+	private TextView best;
+	private TextView rank;
+	private TextView stats;
 	
 	@Override
     protected void onCreate(Bundle state) {
@@ -28,6 +60,133 @@ public class ScoreActivity extends Activity {
         Intent intent = getIntent();
         score.setText( intent.getIntExtra(SCORE, 0) + "");
         rounds.setText( intent.getIntExtra(ROUNDS, 0) + "");
+        
+        best = (TextView) findViewById(R.id.best_score);
+        rank = (TextView) findViewById(R.id.rank);
+        stats = (TextView) findViewById(R.id.history_stats);
+        loadHistory(intent.getBooleanExtra(WON, false), intent.getIntExtra(ROUNDS, 0));
+	}
+	
+	/**
+	 * Waits for the index of the history and the snapshot of the statistics
+	 * in the background, then shows them on the UI thread. The game was added
+	 * to the history before this activity started.
+	 */
+	private void loadHistory(final boolean won, final int roundsPlayed) {
+		final Context context = getApplicationContext();
+		FILES.execute(new Runnable() {
+			@Override
+			public void run() {
+				GameHistory games = getHistory(context);
+				final GameRecord record = games.getBest();
+				final long place = won ? games.getRank(roundsPlayed) : 0;
+				final long wins = games.getWins();
+				getStatistics(context);
+				runOnUiThread(new Runnable() {
+					@Override
+					public void run() {
+						showHistory(record, place, wins);
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * @param place	The rank of this game among the wins, or 0 if it was lost.
+	 */
+	private void showHistory(GameRecord record, long place, long wins) {
+		if (record != null) {
+			best.setText(getString(R.string.best, record.getRounds()));
+		}
+		if (place > 0) {
+			rank.setText(getString(R.string.rank, place, wins));
+		}
+		
+		// Read here, as the statistics are kept up to date on this thread
+		GameStatistics all = getStatistics(this);
+		if (all.getRounds().getCount() > 0) {
+			stats.setText(getString(R.string.stats, all.getRounds().getMean(),
+					all.getRounds().getQuantile(0.9), all.getBustRate() * 100));
+		}
+	}
+	
+	/**
+	 * @return The history of finished games, opened the first time it's asked for.
+	 */
+	static synchronized GameHistory getHistory(Context context) {
+		if (history == null) {
+			history = new GameHistory(new File(context.getApplicationContext().getFilesDir(),
+					HISTORY_FILE));
+		}
+		return history;
+	}
+	
+	/**
+	 * @return The statistics of all games, restored from the last snapshot
+	 * 			the first time they are asked for.
+	 */
+	static synchronized GameStatistics getStatistics(Context context) {
+		if (statistics == null) {
+			File file = new File(context.getApplicationContext().getFilesDir(), STATISTICS_FILE);
+			try {
+				statistics = new GameStatistics(readFile(file));
+			} catch (IOException e) {
+				if (file.exists()) {
+					Log.w(TAG, "Could not restore the statistics", e);
+				}
+				statistics = new GameStatistics();
+			}
+		}
+		return statistics;
+	}
+	
+	/**
+	 * Saves a snapshot of the statistics in the background. The snapshot is
+	 * taken right away, so this must be called on the thread playing the games.
+	 */
+	static void saveStatistics(Context context) {
+		final byte[] snapshot = getStatistics(context).snapshot();
+		final File dir = context.getApplicationContext().getFilesDir();
+		FILES.execute(new Runnable() {
+			@Override
+			public void run() {
+				// Replace the old snapshot only once the new one is complete
+				File temporary = new File(dir, STATISTICS_FILE + ".tmp");
+				try {
+					FileOutputStream out = new FileOutputStream(temporary);
+					try {
+						out.write(snapshot);
+						out.getFD().sync();
+					} finally {
+						out.close();
+					}
+					if (!temporary.renameTo(new File(dir, STATISTICS_FILE))) {
+						throw new IOException("Could not rename " + temporary);
+					}
+				} catch (IOException e) {
+					Log.w(TAG, "Could not save the statistics", e);
+				}
+			}
+		});
+	}
+	
+	private static byte[] readFile(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			int read = 0;
+			while (read < bytes.length) {
+				int n = in.read(bytes, read, bytes.length - read);
+				if (n < 0) {
+					throw new IOException("The file ends too soon - " + file);
+				}
+				read += n;
+			}
+			return bytes;
+		} finally {
+			in.close();
+		}
 	}
 	
 	@Override
@@ -0,0 +1,98 @@
+package se.nielstrom.greed.views;
+
+import se.nielstrom.greed.models.GameChange;
+
+/**
+ * The cells of a {@link DiceBoardView}, one per die in rows of a number of
+ * columns, and which of them an update of the game leaves to be redrawn.
+ *
+ * The grid is plain arithmetic on the size of the view, with no Android types,
+ * so the layout, the hit testing and the choice of cells to redraw are tested
+ * on the JVM, see app-tests.
+ */
+final class BoardGrid {
+	static final int NO_CELL = -1;
+
+	/** The left, top, right and bottom edge of each cell. */
+	private int[] edges = new int[0];
+
+	/**
+	 * Divides an area into cells row by row, the last row left short if the
+	 * cells don't fill it.
+	 *
+	 * @param count		The number of cells.
+	 * @param columns	The number of cells per row, at least 1.
+	 */
+	void layout(int count, int columns, int left, int top, int width, int height) {
+		if (edges.length != count * 4) {
+			edges = new int[count * 4];
+		}
+		if (count == 0) {
+			return;
+		}
+		int rows = (count + columns - 1) / columns;
+		for (int i = 0; i < count; i++) {
+			int column = i % columns;
+			int row = i / columns;
+			edges[i * 4] = left + column * width / columns;
+			edges[i * 4 + 1] = top + row * height / rows;
+			edges[i * 4 + 2] = left + (column + 1) * width / columns;
+			edges[i * 4 + 3] = top + (row + 1) * height / rows;
+		}
+	}
+
+	/**
+	 * @return The number of cells laid out.
+	 */
+	int size() {
+		return edges.length / 4;
+	}
+
+	int getLeft(int cell) {
+		return edges[cell * 4];
+	}
+
+	int getTop(int cell) {
+		return edges[cell * 4 + 1];
+	}
+
+	int getRight(int cell) {
+		return edges[cell * 4 + 2];
+	}
+
+	int getBottom(int cell) {
+		return edges[cell * 4 + 3];
+	}
+
+	boolean isEmpty(int cell) {
+		return getLeft(cell) >= getRight(cell) || getTop(cell) >= getBottom(cell);
+	}
+
+	/**
+	 * @return The cell at a point, or {@link #NO_CELL} for none.
+	 */
+	int cellAt(float x, float y) {
+		for (int i = 0; i < size(); i++) {
+			if (x >= getLeft(i) && x < getRight(i) && y >= getTop(i) && y < getBottom(i)) {
+				return i;
+			}
+		}
+		return NO_CELL;
+	}
+
+	/**
+	 * @return	A bit per cell whose die shows another value or was locked or
+	 * 			unlocked in an update, bit i standing for cell i.
+	 */
+	int changed(GameChange change) {
+		int cells = 0;
+		if (change.has(GameChange.DICE | GameChange.LOCKS)) {
+			for (int i = 0; i < size(); i++) {
+				if (change.isValueChanged(i) || change.isLockChanged(i)) {
+					cells |= 1 << i;
+				}
+			}
+		}
+		return cells;
+	}
+}
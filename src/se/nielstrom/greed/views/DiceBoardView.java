@@ -0,0 +1,465 @@
+package se.nielstrom.greed.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import se.nielstrom.greed.R;
+import se.nielstrom.greed.models.Die;
+import se.nielstrom.greed.models.GameChange;
+import se.nielstrom.greed.models.Greed;
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.util.AttributeSet;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+
+/**
+ * Shows all dice of a {@link Greed} game in a grid, drawn by this one view,
+ * and lets the player lock and unlock them by tapping.
+ * 
+ * The board listens to the game rather than to its dice, so every update of
+ * the game reaches it as one {@link GameChange}, and only the cells of the
+ * dice that changed are redrawn. Taps are hit-tested and toggled by the board
+ * itself. The dice are laid out in rows of the number of columns set by the
+ * columns attribute, each cell colored by whether it's pressed, disabled,
+ * locked or unlocked.
+ * 
+ * Each die is also a virtual view of its own to accessibility services, so
+ * TalkBack reads and toggles the dice one by one, and the d-pad or arrow keys
+ * move a focused die around the grid that the center or enter key toggles.
+ * 
+ * Changes made to the dice outside of an update of the game are not heard,
+ * except those made by tapping the board, so whoever makes them should call
+ * {@link #invalidate()}.
+ * 
+ * The layout of the cells, the hit testing and the choice of cells to redraw
+ * are left to a {@link BoardGrid}, which is tested on its own.
+ */
+public class DiceBoardView extends View implements Greed.GameChangeListener {
+	private static final int DEFAULT_COLUMNS = 2;
+	private static final float FOCUS_STROKE_DP = 4;
+	private static final int NO_DIE = BoardGrid.NO_CELL;
+
+	private final List<OnDieToggledListener> listeners = new ArrayList<>();
+	private final Paint paint = new Paint();
+	private final Paint focusPaint = new Paint();
+	private final DiceAccessibility accessibility;
+	private final Drawable[] faces = new Drawable[DieFaces.NR_OF_SIDES];
+	private final int colorPressed;
+	private final int colorDisabled;
+	private final int colorUnlocked;
+	private final int colorLocked;
+	private int columns = DEFAULT_COLUMNS;
+	private int facePadding;
+
+	private Greed game;
+	private final BoardGrid grid = new BoardGrid();
+	private int pressed = NO_DIE;
+	private int focused = 0;
+
+	public DiceBoardView(Context context) {
+		this(context, null);
+	}
+
+	public DiceBoardView(Context context, AttributeSet attrs) {
+		this(context, attrs, 0);
+	}
+
+	public DiceBoardView(Context context, AttributeSet attrs, int defStyle) {
+		super(context, attrs, defStyle);
+
+		Resources resources = getResources();
+		colorPressed = resources.getColor(R.color.button_pressed);
+		colorDisabled = resources.getColor(R.color.button_disabled);
+		colorUnlocked = resources.getColor(R.color.button_unchecked);
+		colorLocked = resources.getColor(R.color.button_checked);
+		focusPaint.setColor(resources.getColor(R.color.action));
+		focusPaint.setStyle(Paint.Style.STROKE);
+		focusPaint.setStrokeWidth(FOCUS_STROKE_DP * resources.getDisplayMetrics().density);
+
+		if (attrs != null) {
+			TypedArray a = context.getTheme().obtainStyledAttributes(attrs,
+					R.styleable.dice_board, defStyle, 0);
+			try {
+				columns = Math.max(1, a.getInt(R.styleable.dice_board_columns, DEFAULT_COLUMNS));
+				facePadding = a.getDimensionPixelSize(R.styleable.dice_board_facePadding, 0);
+			} finally {
+				a.recycle();
+			}
+		}
+
+		setFocusable(true);
+		accessibility = new DiceAccessibility();
+		ViewCompat.setAccessibilityDelegate(this, accessibility);
+	}
+
+	public Greed getGame() {
+		return game;
+	}
+
+	/**
+	 * Shows the dice of another game, such as the one of the next player.
+	 */
+	public void setGame(Greed game) {
+		if (this.game != null) {
+			this.game.removeGameChangeListener(this);
+		}
+		this.game = game;
+		pressed = NO_DIE;
+		if (game != null) {
+			game.addGameChangeListener(this);
+		}
+		layoutCells();
+		invalidate();
+		accessibility.invalidateRoot();
+	}
+
+	/**
+	 * Sets the number of dice per row.
+	 */
+	public void setColumns(int columns) {
+		this.columns = Math.max(1, columns);
+		layoutCells();
+		invalidate();
+		accessibility.invalidateRoot();
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return	The area of the board taken by a die, in the coordinates of
+	 * 			the view. Empty until the board has been laid out.
+	 */
+	public Rect getCell(int die) {
+		return new Rect(grid.getLeft(die), grid.getTop(die), grid.getRight(die),
+				grid.getBottom(die));
+	}
+
+	/**
+	 * @return The index of the die at a point of the view, or -1 for none.
+	 */
+	public int dieAt(float x, float y) {
+		return grid.cellAt(x, y);
+	}
+
+	@Override
+	public void onGameChanged(Greed game, GameChange change) {
+		int changed = grid.changed(change);
+		for (int i = 0; changed != 0; i++, changed >>>= 1) {
+			if ((changed & 1) != 0) {
+				invalidateCell(i);
+				accessibility.invalidateVirtualView(i);
+			}
+		}
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		if (enabled != isEnabled()) {
+			pressed = NO_DIE;
+			invalidate();
+		}
+		super.setEnabled(enabled);
+		accessibility.invalidateRoot();
+	}
+
+	@Override
+	protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+		super.onSizeChanged(width, height, oldWidth, oldHeight);
+		layoutCells();
+		accessibility.invalidateRoot();
+	}
+
+	/**
+	 * Divides the view into one cell per die, row by row.
+	 */
+	private void layoutCells() {
+		int count = (game != null) ? game.getDice().length : 0;
+		grid.layout(count, columns, getPaddingLeft(), getPaddingTop(),
+				getWidth() - getPaddingLeft() - getPaddingRight(),
+				getHeight() - getPaddingTop() - getPaddingBottom());
+		focused = Math.max(0, Math.min(focused, count - 1));
+	}
+
+	private void invalidateCell(int die) {
+		invalidate(grid.getLeft(die), grid.getTop(die), grid.getRight(die), grid.getBottom(die));
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		if (game == null) {
+			return;
+		}
+
+		Die[] dice = game.getDice();
+		for (int i = 0; i < grid.size(); i++) {
+			if (grid.isEmpty(i) || canvas.quickReject(grid.getLeft(i), grid.getTop(i),
+					grid.getRight(i), grid.getBottom(i), Canvas.EdgeType.AA)) {
+				continue;
+			}
+
+			paint.setColor(getCellColor(i, dice[i]));
+			canvas.drawRect(grid.getLeft(i), grid.getTop(i), grid.getRight(i), grid.getBottom(i),
+					paint);
+
+			if (dice[i].getValue() <= faces.length) {
+				Drawable face = getFace(dice[i].getValue());
+				setFaceBounds(face, i);
+				face.draw(canvas);
+			}
+		}
+
+		if (isFocused() && focused < grid.size() && !grid.isEmpty(focused)) {
+			float inset = focusPaint.getStrokeWidth() / 2;
+			canvas.drawRect(grid.getLeft(focused) + inset, grid.getTop(focused) + inset,
+					grid.getRight(focused) - inset, grid.getBottom(focused) - inset, focusPaint);
+		}
+	}
+
+	private int getCellColor(int index, Die die) {
+		if (index == pressed) {
+			return colorPressed;
+		} else if (!isEnabled()) {
+			return colorDisabled;
+		} else {
+			return die.isLocked() ? colorLocked : colorUnlocked;
+		}
+	}
+
+	private Drawable getFace(int value) {
+		if (faces[value - 1] == null) {
+			faces[value - 1] = DieFaces.newDrawable(getContext(), value);
+		}
+		return faces[value - 1];
+	}
+
+	/**
+	 * Centers a face in a cell, as large as the padding allows while keeping
+	 * it square.
+	 */
+	private void setFaceBounds(Drawable face, int die) {
+		int width = grid.getRight(die) - grid.getLeft(die);
+		int height = grid.getBottom(die) - grid.getTop(die);
+		int size = Math.max(0, Math.min(width, height) - 2 * facePadding);
+		int left = grid.getLeft(die) + (width - size) / 2;
+		int top = grid.getTop(die) + (height - size) / 2;
+		face.setBounds(left, top, left + size, top + size);
+	}
+
+	/**
+	 * Presses the die under the finger, and toggles it if it's released
+	 * there.
+	 */
+	@Override
+	public boolean onTouchEvent(MotionEvent event) {
+		if (!isEnabled() || game == null) {
+			return false;
+		}
+
+		int die = dieAt(event.getX(), event.getY());
+		switch (event.getAction()) {
+		case MotionEvent.ACTION_DOWN:
+			setPressedDie(die);
+			return die != NO_DIE;
+		case MotionEvent.ACTION_MOVE:
+			if (die != pressed) {
+				setPressedDie(NO_DIE);
+			}
+			return true;
+		case MotionEvent.ACTION_UP:
+			if (die != NO_DIE && die == pressed) {
+				setPressedDie(NO_DIE);
+				toggle(die);
+				performClick();
+			}
+			return true;
+		case MotionEvent.ACTION_CANCEL:
+			setPressedDie(NO_DIE);
+			return true;
+		default:
+			return super.onTouchEvent(event);
+		}
+	}
+
+	@Override
+	protected boolean dispatchHoverEvent(MotionEvent event) {
+		return accessibility.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+	}
+
+	@Override
+	protected void onFocusChanged(boolean gainFocus, int direction, Rect previouslyFocusedRect) {
+		super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+		if (focused < grid.size()) {
+			invalidateCell(focused);
+		}
+	}
+
+	/**
+	 * Moves the focused die with the d-pad or arrow keys, and toggles it with
+	 * the center or enter key. Moving past the edge of the grid is left to the
+	 * views around the board.
+	 */
+	@Override
+	public boolean onKeyDown(int keyCode, KeyEvent event) {
+		if (game == null || grid.size() == 0) {
+			return super.onKeyDown(keyCode, event);
+		}
+
+		switch (keyCode) {
+		case KeyEvent.KEYCODE_DPAD_LEFT:
+			return focused % columns > 0 && setFocusedDie(focused - 1);
+		case KeyEvent.KEYCODE_DPAD_RIGHT:
+			return focused % columns < columns - 1 && setFocusedDie(focused + 1);
+		case KeyEvent.KEYCODE_DPAD_UP:
+			return setFocusedDie(focused - columns);
+		case KeyEvent.KEYCODE_DPAD_DOWN:
+			return setFocusedDie(focused + columns);
+		case KeyEvent.KEYCODE_DPAD_CENTER:
+		case KeyEvent.KEYCODE_ENTER:
+			if (isEnabled()) {
+				toggle(focused);
+				performClick();
+			}
+			return true;
+		default:
+			return super.onKeyDown(keyCode, event);
+		}
+	}
+
+	/**
+	 * @return False if there's no such die.
+	 */
+	private boolean setFocusedDie(int die) {
+		if (die < 0 || die >= grid.size()) {
+			return false;
+		}
+		invalidateCell(focused);
+		focused = die;
+		invalidateCell(focused);
+		return true;
+	}
+
+	private void setPressedDie(int die) {
+		if (pressed != NO_DIE) {
+			invalidateCell(pressed);
+		}
+		pressed = die;
+		if (pressed != NO_DIE) {
+			invalidateCell(pressed);
+		}
+	}
+
+	/**
+	 * Locks or unlocks a die as if the player tapped it, and tells the
+	 * listeners.
+	 */
+	public void toggle(int die) {
+		game.getDice()[die].toggleLocked();
+		invalidateCell(die); // Not an update, so the game won't tell
+		accessibility.invalidateVirtualView(die);
+		for (OnDieToggledListener listener : listeners) {
+			listener.onDieToggled(this, die);
+		}
+	}
+
+	public void addOnDieToggledListener(OnDieToggledListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeOnDieToggledListener(OnDieToggledListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * @return What accessibility services read out for a die.
+	 */
+	private String describe(int die) {
+		Die d = game.getDice()[die];
+		return getResources().getString(d.isLocked() ? R.string.die_locked : R.string.die_unlocked,
+				die + 1, d.getValue());
+	}
+
+	/**
+	 * Makes every die a virtual view that can be read, focused and clicked.
+	 */
+	private class DiceAccessibility extends ExploreByTouchHelper {
+
+		DiceAccessibility() {
+			super(DiceBoardView.this);
+		}
+
+		@Override
+		protected int getVirtualViewAt(float x, float y) {
+			int die = dieAt(x, y);
+			return (die != NO_DIE) ? die : INVALID_ID;
+		}
+
+		@Override
+		protected void getVisibleVirtualViews(List<Integer> dice) {
+			if (game == null) {
+				return;
+			}
+			for (int i = 0; i < grid.size(); i++) {
+				if (!grid.isEmpty(i)) {
+					dice.add(i);
+				}
+			}
+		}
+
+		@Override
+		protected void onPopulateEventForVirtualView(int die, AccessibilityEvent event) {
+			event.setContentDescription(game != null && die < grid.size() ? describe(die) : "");
+		}
+
+		@Override
+		protected void onPopulateNodeForVirtualView(int die, AccessibilityNodeInfoCompat node) {
+			if (game == null || die >= grid.size() || grid.isEmpty(die)) {
+				// Gone since it was asked for, but a node needs some content and bounds
+				node.setContentDescription("");
+				node.setBoundsInParent(new Rect(0, 0, 1, 1));
+				return;
+			}
+			node.setContentDescription(describe(die));
+			node.setBoundsInParent(getCell(die));
+			node.setCheckable(true);
+			node.setChecked(game.getDice()[die].isLocked());
+			node.setEnabled(isEnabled());
+			if (isEnabled()) {
+				node.setClickable(true);
+				node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+			}
+		}
+
+		@Override
+		protected boolean onPerformActionForVirtualView(int die, int action, Bundle arguments) {
+			if (action != AccessibilityNodeInfoCompat.ACTION_CLICK || game == null
+					|| die >= grid.size() || !isEnabled()) {
+				return false;
+			}
+			toggle(die);
+			sendEventForVirtualView(die, AccessibilityEvent.TYPE_VIEW_CLICKED);
+			return true;
+		}
+	}
+
+	/**
+	 * Listener interface for entities that want to be notified when the player
+	 * locks or unlocks a die.
+	 */
+	public interface OnDieToggledListener {
+		public void onDieToggled(DiceBoardView board, int die);
+	}
+}
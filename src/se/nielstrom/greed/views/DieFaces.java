@@ -0,0 +1,49 @@
+package se.nielstrom.greed.views;
+
+import se.nielstrom.greed.R;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+
+/**
+ * The faces of a die, loaded once per process and shared by every view that
+ * shows dice.
+ * 
+ * Only the constant state of each face is kept, which holds the decoded
+ * bitmap. Every view gets drawables of its own from it, since a drawable
+ * keeps the bounds and callback of the view it's in, but making one is cheap:
+ * no resource is looked up and no bitmap decoded. Only used on the UI thread.
+ */
+public final class DieFaces {
+	public static final int NR_OF_SIDES = 6;
+
+	private static final int[] IDS = {
+		R.drawable.die1, R.drawable.die2, R.drawable.die3,
+		R.drawable.die4, R.drawable.die5, R.drawable.die6
+	};
+
+	private static Drawable.ConstantState[] faces;
+
+	private DieFaces() {
+	}
+
+	/**
+	 * Makes a new drawable of a face, loading all faces the first time.
+	 * 
+	 * @param value The value of the die, 1 through {@link #NR_OF_SIDES}.
+	 */
+	public static Drawable newDrawable(Context context, int value) {
+		if (faces == null) {
+			load(context.getApplicationContext().getResources());
+		}
+		return faces[value - 1].newDrawable(context.getResources());
+	}
+
+	private static void load(Resources resources) {
+		Drawable.ConstantState[] loaded = new Drawable.ConstantState[IDS.length];
+		for (int i = 0; i < IDS.length; i++) {
+			loaded[i] = resources.getDrawable(IDS[i]).getConstantState();
+		}
+		faces = loaded;
+	}
+}
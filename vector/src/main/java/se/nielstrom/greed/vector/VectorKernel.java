@@ -0,0 +1,82 @@
+package se.nielstrom.greed.vector;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import se.nielstrom.greed.models.ScoreTable;
+import se.nielstrom.greed.simulation.BatchKernel;
+import se.nielstrom.greed.simulation.GameBatch;
+import se.nielstrom.greed.simulation.ScalarKernel;
+
+/**
+ * A {@link BatchKernel} on the JDK Vector API, which handles the same die of
+ * as many games at once as the widest vectors of the CPU hold. The games left
+ * over at the end of the arrays are done one at a time, just like the
+ * {@link ScalarKernel} does them.
+ * 
+ * Picked up by {@link GameBatch#getDefaultKernel()} when this module is on
+ * the class path and the JVM has the jdk.incubator.vector module.
+ */
+public final class VectorKernel implements BatchKernel {
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	@Override
+	public void roll(int[] faces, int[] fresh, int[] locked, int dice, int games,
+			int[] lockedCodes, int[] rolledCodes) {
+		int bound = SPECIES.loopBound(games);
+		IntVector one = IntVector.broadcast(SPECIES, 1);
+
+		for (int g = 0; g < bound; g += SPECIES.length()) {
+			IntVector locks = IntVector.fromArray(SPECIES, locked, g);
+			IntVector lockedCode = IntVector.zero(SPECIES);
+			IntVector rolledCode = IntVector.zero(SPECIES);
+
+			for (int d = 0; d < dice; d++) {
+				int i = d * games + g;
+				VectorMask<Integer> isLocked = locks.lanewise(VectorOperators.LSHR, d)
+						.and(1).compare(VectorOperators.NE, 0);
+				IntVector face = IntVector.fromArray(SPECIES, faces, i)
+						.blend(IntVector.fromArray(SPECIES, fresh, i), isLocked.not());
+				face.intoArray(faces, i);
+
+				// 1 << (face - 1) * BITS_PER_SIDE
+				IntVector bit = one.lanewise(VectorOperators.LSHL,
+						face.sub(1).mul(ScoreTable.BITS_PER_SIDE));
+				lockedCode = lockedCode.add(bit, isLocked);
+				rolledCode = rolledCode.add(bit, isLocked.not());
+			}
+
+			lockedCode.intoArray(lockedCodes, g);
+			rolledCode.intoArray(rolledCodes, g);
+		}
+
+		if (bound < games) {
+			rollTail(faces, fresh, locked, dice, games, bound, lockedCodes, rolledCodes);
+		}
+	}
+
+	/**
+	 * Does the games from the first one on one at a time, as the scalar
+	 * kernel would.
+	 */
+	private static void rollTail(int[] faces, int[] fresh, int[] locked, int dice, int games,
+			int first, int[] lockedCodes, int[] rolledCodes) {
+		for (int g = first; g < games; g++) {
+			int lockedCode = ScoreTable.EMPTY;
+			int rolledCode = ScoreTable.EMPTY;
+			for (int d = 0; d < dice; d++) {
+				int i = d * games + g;
+				if ((locked[g] >>> d & 1) != 0) {
+					lockedCode += 1 << (faces[i] - 1) * ScoreTable.BITS_PER_SIDE;
+				} else {
+					faces[i] = fresh[i];
+					rolledCode += 1 << (fresh[i] - 1) * ScoreTable.BITS_PER_SIDE;
+				}
+			}
+			lockedCodes[g] = lockedCode;
+			rolledCodes[g] = rolledCode;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package se.nielstrom.greed.vector;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import se.nielstrom.greed.models.RuleSet;
+import se.nielstrom.greed.random.XoshiroSource;
+import se.nielstrom.greed.simulation.GameBatch;
+import se.nielstrom.greed.simulation.ScalarKernel;
+
+public class VectorKernelTest {
+	private static final long SEED = 42;
+
+	@Test
+	public void isTheDefaultKernel() {
+		Assert.assertEquals(VectorKernel.class, GameBatch.getDefaultKernel().getClass());
+	}
+
+	@Test
+	public void stepsLikeTheScalarKernel() {
+		// Not a multiple of any vector width, so the games left over are stepped too
+		assertSameSteps(RuleSet.DEFAULT, 4099, 500);
+	}
+
+	@Test
+	public void stepsFewerGamesThanAVectorHolds() {
+		assertSameSteps(RuleSet.DEFAULT, 3, 500);
+	}
+
+	@Test
+	public void stepsOtherRules() {
+		RuleSet rules = new RuleSet(RuleSet.MAX_DICE, RuleSet.MAX_SIDES, 300, 10000, 0);
+		assertSameSteps(rules, 1000, 200);
+	}
+
+	private static void assertSameSteps(RuleSet rules, int games, int steps) {
+		GameBatch scalar = new GameBatch(rules, games, 300, ScalarKernel.INSTANCE);
+		GameBatch vector = new GameBatch(rules, games, 300, new VectorKernel());
+		XoshiroSource scalarRandom = new XoshiroSource(SEED);
+		XoshiroSource vectorRandom = new XoshiroSource(SEED);
+
+		for (int step = 0; step < steps; step++) {
+			scalar.step(scalarRandom);
+			vector.step(vectorRandom);
+			Assert.assertTrue("The batches differ after step " + step, scalar.sameState(vector));
+		}
+	}
+}